@@ -0,0 +1,128 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.iface;
+
+import java.util.Arrays;
+
+/**
+ * Per-frame decode status for a batch of audio frames.  Create a status with the maximum number of frames per batch
+ * and reuse it for each batch, so that batch decoding does not allocate.
+ */
+public class BatchDecodeStatus
+{
+    private AudioFrameType[] mFrameTypes;
+    private int[] mErrorCounts;
+    private int mFrameCount;
+
+    /**
+     * Constructs an instance
+     *
+     * @param capacity maximum number of frames per batch
+     */
+    public BatchDecodeStatus(int capacity)
+    {
+        if(capacity < 1)
+        {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+
+        mFrameTypes = new AudioFrameType[capacity];
+        mErrorCounts = new int[capacity];
+    }
+
+    /**
+     * Maximum number of frames per batch
+     */
+    public int getCapacity()
+    {
+        return mErrorCounts.length;
+    }
+
+    /**
+     * Number of frames decoded in the most recent batch
+     */
+    public int getFrameCount()
+    {
+        return mFrameCount;
+    }
+
+    /**
+     * Clears the status for a new batch of frames
+     *
+     * @param frameCount number of frames in the batch
+     * @throws IllegalArgumentException if the frame count exceeds the capacity of this status
+     */
+    public void reset(int frameCount)
+    {
+        if(frameCount < 0 || frameCount > getCapacity())
+        {
+            throw new IllegalArgumentException("Frame count [" + frameCount + "] must be in range 0 - " +
+                getCapacity());
+        }
+
+        mFrameCount = frameCount;
+        Arrays.fill(mFrameTypes, 0, frameCount, AudioFrameType.UNKNOWN);
+        Arrays.fill(mErrorCounts, 0, frameCount, 0);
+    }
+
+    /**
+     * Sets the status for a frame in the batch
+     *
+     * @param frame index of the frame in the batch
+     * @param frameType of the decoded frame
+     * @param errorCount number of bit errors detected and corrected in the frame
+     */
+    public void set(int frame, AudioFrameType frameType, int errorCount)
+    {
+        mFrameTypes[frame] = frameType;
+        mErrorCounts[frame] = errorCount;
+    }
+
+    /**
+     * Frame type for the frame at the index
+     */
+    public AudioFrameType getFrameType(int frame)
+    {
+        return mFrameTypes[frame];
+    }
+
+    /**
+     * Number of bit errors detected and corrected in the frame at the index
+     */
+    public int getErrorCount(int frame)
+    {
+        return mErrorCounts[frame];
+    }
+
+    /**
+     * Total number of bit errors detected and corrected across all frames in the batch
+     */
+    public int getErrorCountTotal()
+    {
+        int total = 0;
+
+        for(int x = 0; x < mFrameCount; x++)
+        {
+            total += mErrorCounts[x];
+        }
+
+        return total;
+    }
+}
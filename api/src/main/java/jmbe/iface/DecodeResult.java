@@ -0,0 +1,302 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.iface;
+
+/**
+ * Decode result for a single audio frame, with the decoded audio and the frame metadata as primitive fields.  Create a
+ * result once and reuse it for each frame, so that decoding with a result does not allocate.
+ *
+ * The audio is a view of the caller's output array: the samples are at getAudioOffset() through getAudioOffset() +
+ * getSampleCount() in the getAudio() array.
+ */
+public class DecodeResult
+{
+    /**
+     * Maximum number of error protected codewords in an audio frame
+     */
+    public static final int MAX_CODEWORDS = 7;
+
+    private float[] mAudio;
+    private int mAudioOffset;
+    private int mSampleCount;
+    private AudioFrameType mFrameType = AudioFrameType.UNKNOWN;
+    private ToneType mToneType = ToneType.NONE;
+    private int mToneId;
+    private String mToneLabel;
+    private int mToneAmplitude;
+    private int[] mCodewordErrors = new int[MAX_CODEWORDS];
+    private int mCodewordCount;
+    private int mErrorCount;
+    private float mErrorRate;
+    private boolean mRepeat;
+    private boolean mMute;
+
+    /**
+     * Constructs an instance
+     */
+    public DecodeResult()
+    {
+    }
+
+    /**
+     * Clears the result for a new frame
+     */
+    public void reset()
+    {
+        mAudio = null;
+        mAudioOffset = 0;
+        mSampleCount = 0;
+        mFrameType = AudioFrameType.UNKNOWN;
+        clearTone();
+        mCodewordCount = 0;
+        mErrorCount = 0;
+        mErrorRate = 0.0f;
+        mRepeat = false;
+        mMute = false;
+    }
+
+    /**
+     * Sets the view of the decoded audio samples
+     *
+     * @param audio array containing the samples
+     * @param offset to the first sample
+     * @param sampleCount number of samples
+     */
+    public void setAudio(float[] audio, int offset, int sampleCount)
+    {
+        mAudio = audio;
+        mAudioOffset = offset;
+        mSampleCount = sampleCount;
+    }
+
+    /**
+     * Array containing the decoded audio samples, or null if the frame was not decoded to a float array
+     */
+    public float[] getAudio()
+    {
+        return mAudio;
+    }
+
+    /**
+     * Offset to the first decoded audio sample in the getAudio() array
+     */
+    public int getAudioOffset()
+    {
+        return mAudioOffset;
+    }
+
+    /**
+     * Number of decoded audio samples
+     */
+    public int getSampleCount()
+    {
+        return mSampleCount;
+    }
+
+    /**
+     * Sets the frame type
+     */
+    public void setFrameType(AudioFrameType frameType)
+    {
+        mFrameType = frameType;
+    }
+
+    /**
+     * Frame type of the decoded frame
+     */
+    public AudioFrameType getFrameType()
+    {
+        return mFrameType;
+    }
+
+    /**
+     * Sets the tone for a tone frame
+     *
+     * @param toneType category of the tone
+     * @param toneId codec identifier of the tone (e.g. the AMBE tone index)
+     * @param toneLabel of the tone (e.g. the frequency in Hertz or the DTMF digit)
+     * @param toneAmplitude codec tone amplitude (e.g. 0 - 127 for AMBE)
+     */
+    public void setTone(ToneType toneType, int toneId, String toneLabel, int toneAmplitude)
+    {
+        mToneType = toneType;
+        mToneId = toneId;
+        mToneLabel = toneLabel;
+        mToneAmplitude = toneAmplitude;
+    }
+
+    /**
+     * Clears the tone
+     */
+    public void clearTone()
+    {
+        mToneType = ToneType.NONE;
+        mToneId = -1;
+        mToneLabel = null;
+        mToneAmplitude = 0;
+    }
+
+    /**
+     * Indicates if the frame contains a tone
+     */
+    public boolean hasTone()
+    {
+        return mToneType != ToneType.NONE;
+    }
+
+    /**
+     * Category of the tone, or NONE
+     */
+    public ToneType getToneType()
+    {
+        return mToneType;
+    }
+
+    /**
+     * Codec identifier of the tone, or -1 when the frame does not contain a tone
+     */
+    public int getToneId()
+    {
+        return mToneId;
+    }
+
+    /**
+     * Label of the tone, or null when the frame does not contain a tone
+     */
+    public String getToneLabel()
+    {
+        return mToneLabel;
+    }
+
+    /**
+     * Codec amplitude of the tone
+     */
+    public int getToneAmplitude()
+    {
+        return mToneAmplitude;
+    }
+
+    /**
+     * Sets the number of bit errors detected and corrected in each error protected codeword of the frame and the total
+     * error count.
+     *
+     * @param errors array of error counts by codeword
+     * @param codewordCount number of codewords
+     * @throws IllegalArgumentException if the codeword count exceeds MAX_CODEWORDS
+     */
+    public void setCodewordErrors(int[] errors, int codewordCount)
+    {
+        if(codewordCount < 0 || codewordCount > MAX_CODEWORDS)
+        {
+            throw new IllegalArgumentException("Codeword count [" + codewordCount + "] must be in range 0 - " +
+                MAX_CODEWORDS);
+        }
+
+        System.arraycopy(errors, 0, mCodewordErrors, 0, codewordCount);
+        mCodewordCount = codewordCount;
+        mErrorCount = 0;
+
+        for(int x = 0; x < codewordCount; x++)
+        {
+            mErrorCount += errors[x];
+        }
+    }
+
+    /**
+     * Number of error protected codewords with error counts in this result
+     */
+    public int getCodewordCount()
+    {
+        return mCodewordCount;
+    }
+
+    /**
+     * Number of bit errors detected and corrected in the codeword at the index
+     */
+    public int getCodewordErrors(int codeword)
+    {
+        return mCodewordErrors[codeword];
+    }
+
+    /**
+     * Sets the total error count, for codecs that do not report errors by codeword
+     */
+    public void setErrorCount(int errorCount)
+    {
+        mErrorCount = errorCount;
+    }
+
+    /**
+     * Total number of bit errors detected and corrected in the frame
+     */
+    public int getErrorCount()
+    {
+        return mErrorCount;
+    }
+
+    /**
+     * Sets the running error rate
+     */
+    public void setErrorRate(float errorRate)
+    {
+        mErrorRate = errorRate;
+    }
+
+    /**
+     * Running (smoothed) bit error rate of the codec as of this frame, used by the codec for frame repeat and muting
+     * decisions.
+     */
+    public float getErrorRate()
+    {
+        return mErrorRate;
+    }
+
+    /**
+     * Sets the frame repeat flag
+     */
+    public void setRepeat(boolean repeat)
+    {
+        mRepeat = repeat;
+    }
+
+    /**
+     * Indicates if the codec replaced this frame with a repeat of the previous frame's model parameters
+     */
+    public boolean isRepeat()
+    {
+        return mRepeat;
+    }
+
+    /**
+     * Sets the frame muting flag
+     */
+    public void setMute(boolean mute)
+    {
+        mMute = mute;
+    }
+
+    /**
+     * Indicates if the codec muted this frame, for excessive bit errors or frame repeats
+     */
+    public boolean isMute()
+    {
+        return mMute;
+    }
+}
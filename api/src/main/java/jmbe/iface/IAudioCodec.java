@@ -19,6 +19,10 @@
 
 package jmbe.iface;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
 /**
  * Audio converter interface.  Defines methods for a stand-alone converter that
  * can convert byte data from one audio format into byte data of another.
@@ -36,12 +40,329 @@ public interface IAudioCodec
     float[] getAudio(byte[] frameData);
 
     /**
-     * Converts frameData to 8 kHz 16-bit PCM audio and provides optional decoded metadata like Tones or DTMF
+     * Converts frameData to 16-bit PCM audio at the output sample rate (8 kHz by default) and provides optional
+     * decoded metadata like Tones or DTMF
      * @param frameData byte array for an audio frame
      * @return audio data with optional metadata
      */
     IAudioWithMetadata getAudioWithMetadata(byte[] frameData);
 
+    /**
+     * Converts the audio frame that starts at the offset in the frame array to 16-bit PCM audio samples at the output
+     * sample rate (8 kHz by default) and writes the samples into the out array starting at the out offset.
+     *
+     * Implementations override this method to decode without allocating memory, so that a caller can reuse the same
+     * frame and output arrays for each frame of a call.  The default implementation delegates to getAudio().
+     *
+     * @param frame array containing the audio frame
+     * @param offset to the first byte of the audio frame in the frame array
+     * @param out array to receive the decoded audio samples
+     * @param outOffset to the first sample position in the out array
+     * @return number of samples written to the out array
+     */
+    default int decode(byte[] frame, int offset, float[] out, int outOffset)
+    {
+        byte[] frameData = (offset == 0 ? frame : Arrays.copyOfRange(frame, offset, frame.length));
+        float[] audio = getAudio(frameData);
+        System.arraycopy(audio, 0, out, outOffset, audio.length);
+        return audio.length;
+    }
+
+    /**
+     * Converts the audio frame that starts at the offset in the frame array to 16-bit PCM audio samples at the output
+     * sample rate (8 kHz by default), writes the samples into the out array starting at the out offset, and fills the
+     * result with a view of the samples and the metadata of the frame, in a single decode pass.
+     *
+     * Implementations override this method to provide tone, codeword error, error rate, repeat and mute metadata
+     * without allocating.  The default implementation delegates to decode() and provides the frame type and error
+     * count.
+     *
+     * @param frame array containing the audio frame
+     * @param offset to the first byte of the audio frame in the frame array
+     * @param out array to receive the decoded audio samples
+     * @param outOffset to the first sample position in the out array
+     * @param result to reuse for the decoded audio view and frame metadata
+     * @return number of samples written to the out array
+     */
+    default int decode(byte[] frame, int offset, float[] out, int outOffset, DecodeResult result)
+    {
+        int samples = decode(frame, offset, out, outOffset);
+        result.reset();
+        result.setAudio(out, outOffset, samples);
+        result.setFrameType(getFrameType());
+        result.setErrorCount(getErrorCount());
+        return samples;
+    }
+
+    /**
+     * Converts the audio frame that starts at the offset in the frame array to 16-bit PCM audio samples at the output
+     * sample rate (8 kHz by default) and writes the samples into the pcm array starting at the pcm offset.
+     *
+     * Implementations override this method to write the PCM samples directly from the synthesizer.  The default
+     * implementation converts the samples from decode() by truncation.
+     *
+     * @param frame array containing the audio frame
+     * @param offset to the first byte of the audio frame in the frame array
+     * @param pcm array to receive the 16-bit PCM samples
+     * @param pcmOffset to the first sample position in the pcm array
+     * @return number of samples written to the pcm array
+     */
+    default int decode(byte[] frame, int offset, short[] pcm, int pcmOffset)
+    {
+        byte[] frameData = (offset == 0 ? frame : Arrays.copyOfRange(frame, offset, frame.length));
+        float[] audio = getAudio(frameData);
+
+        for(int x = 0; x < audio.length; x++)
+        {
+            pcm[pcmOffset + x] = (short)(audio[x] * Short.MAX_VALUE);
+        }
+
+        return audio.length;
+    }
+
+    /**
+     * Converts the audio frame that starts at the offset in the frame array to 16-bit PCM audio at the output sample
+     * rate (8 kHz by default) and writes the sample bytes into the pcm array starting at the pcm offset, using the
+     * specified byte order.
+     *
+     * Implementations override this method to write the PCM samples directly from the synthesizer.  The default
+     * implementation converts the samples from decode() by truncation.
+     *
+     * @param frame array containing the audio frame
+     * @param offset to the first byte of the audio frame in the frame array
+     * @param pcm array to receive the 16-bit PCM sample bytes
+     * @param pcmOffset to the first byte position in the pcm array
+     * @param byteOrder of the 16-bit samples
+     * @return number of bytes written to the pcm array
+     */
+    default int decode(byte[] frame, int offset, byte[] pcm, int pcmOffset, ByteOrder byteOrder)
+    {
+        byte[] frameData = (offset == 0 ? frame : Arrays.copyOfRange(frame, offset, frame.length));
+        float[] audio = getAudio(frameData);
+        ByteBuffer buffer = ByteBuffer.wrap(pcm, pcmOffset, audio.length * 2).order(byteOrder);
+
+        for(float sample : audio)
+        {
+            buffer.putShort((short)(sample * Short.MAX_VALUE));
+        }
+
+        return audio.length * 2;
+    }
+
+    /**
+     * Enables or disables triangular probability density function (TPDF) dither when converting audio to 16-bit PCM
+     * samples.  Codecs that do not support dither ignore this setting.
+     *
+     * @param dither true to enable
+     */
+    default void setDither(boolean dither)
+    {
+    }
+
+    /**
+     * Seeds the random noise used by the codec (e.g. comfort noise for muted frames and dither), so that decoding the
+     * same frame sequence produces identical audio.  Codecs that do not use random noise ignore this setting.
+     *
+     * @param seed value
+     */
+    default void setNoiseSeed(long seed)
+    {
+    }
+
+    /**
+     * Sets the sample rate of the decoded audio.  Codecs that support an output resampler accept integer multiples of
+     * 8 kHz, e.g. 16000 or 48000, and produce (rate / 50) samples per 20 millisecond frame.  The default
+     * implementation supports 8 kHz only.
+     *
+     * @param sampleRate in Hertz
+     * @throws IllegalArgumentException if the sample rate is not supported
+     */
+    default void setOutputSampleRate(int sampleRate)
+    {
+        if(sampleRate != 8000)
+        {
+            throw new IllegalArgumentException("Output sample rate [" + sampleRate + "] is not supported");
+        }
+    }
+
+    /**
+     * Sample rate of the decoded audio in Hertz
+     */
+    default int getOutputSampleRate()
+    {
+        return 8000;
+    }
+
+    /**
+     * Number of audio samples that each decoded frame produces with the current codec settings, e.g. 160 at 8 kHz or
+     * 960 at 48 kHz, or 80 at 8 kHz for a time scale of 2.0.  Decoder services and the pipelined decoder size their
+     * output from this value.  The default implementation provides round(160 / time scale) samples per frame at 8 kHz,
+     * times the output sample rate factor.
+     */
+    default int getSamplesPerFrame()
+    {
+        return Math.round(160 / getTimeScale()) * (getOutputSampleRate() / 8000);
+    }
+
+    /**
+     * Enables or disables native rate synthesis, where codecs that support it synthesize voice frames directly at
+     * output sample rates above 8 kHz instead of synthesizing at 8 kHz and resampling.  The default implementation
+     * ignores the setting.
+     *
+     * @param enabled true to synthesize voice frames at the output rate
+     */
+    default void setNativeRateSynthesis(boolean enabled)
+    {
+    }
+
+    /**
+     * Indicates if native rate synthesis is enabled
+     */
+    default boolean isNativeRateSynthesis()
+    {
+        return false;
+    }
+
+    /**
+     * Sets the playback speed for time-scaled playback of recordings.  Codecs that support it synthesize fewer
+     * samples per frame at the same pitch, e.g. 80 samples per frame at 8 kHz for a speed of 2.0, as reported by
+     * getSamplesPerFrame().  The default implementation supports real time (1.0) only.
+     *
+     * @param speed relative to real time
+     * @throws IllegalArgumentException if the speed is not supported
+     */
+    default void setTimeScale(float speed)
+    {
+        if(speed != 1.0f)
+        {
+            throw new IllegalArgumentException("Time scale [" + speed + "] is not supported");
+        }
+    }
+
+    /**
+     * Playback speed relative to real time
+     */
+    default float getTimeScale()
+    {
+        return 1.0f;
+    }
+
+    /**
+     * Frame type of the most recently decoded audio frame
+     */
+    default AudioFrameType getFrameType()
+    {
+        return AudioFrameType.UNKNOWN;
+    }
+
+    /**
+     * Number of bit errors detected and corrected in the most recently decoded audio frame
+     */
+    default int getErrorCount()
+    {
+        return 0;
+    }
+
+    /**
+     * Converts a batch of back-to-back audio frames, for example the 9 IMBE frames of a P25 LDU or the 3 AMBE frames
+     * of a DMR voice burst, into audio samples that are written contiguously into the out array.  The frames are
+     * decoded in order so that codec state carries across the batch exactly as for individual frame decoding.
+     *
+     * @param frames array containing the audio frames
+     * @param offset to the first byte of the first frame in the frames array
+     * @param frameLength in bytes of each audio frame, e.g. 18 for IMBE or 9 for AMBE
+     * @param frameCount number of frames to decode
+     * @param out array to receive the decoded audio samples
+     * @param outOffset to the first sample position in the out array
+     * @param status to receive the frame type and error count of each frame, or null
+     * @return number of samples written to the out array
+     * @throws IllegalArgumentException if the frame length is less than 1 or the frames array does not contain
+     * frameCount frames from the offset
+     */
+    default int decode(byte[] frames, int offset, int frameLength, int frameCount, float[] out, int outOffset,
+                       BatchDecodeStatus status)
+    {
+        if(frameLength < 1)
+        {
+            throw new IllegalArgumentException("Frame length [" + frameLength + "] must be greater than 0");
+        }
+
+        if(frameCount < 0 || offset < 0 || (long)offset + ((long)frameCount * frameLength) > frames.length)
+        {
+            throw new IllegalArgumentException("Frames array length [" + frames.length + "] does not contain [" +
+                frameCount + "] frames of length [" + frameLength + "] from offset [" + offset + "]");
+        }
+
+        if(status != null)
+        {
+            status.reset(frameCount);
+        }
+
+        int written = 0;
+
+        for(int x = 0; x < frameCount; x++)
+        {
+            written += decode(frames, offset + (x * frameLength), out, outOffset + written);
+
+            if(status != null)
+            {
+                status.set(x, getFrameType(), getErrorCount());
+            }
+        }
+
+        return written;
+    }
+
+    /**
+     * Converts a batch of back-to-back audio frames from the buffer's current position into audio samples that are
+     * written contiguously into the out array and advances the buffer position past the decoded frames.
+     *
+     * Heap buffers are decoded in place.  Direct and read-only buffers are copied once per batch.
+     *
+     * @param frames buffer containing the audio frames, starting at the current position
+     * @param frameLength in bytes of each audio frame, e.g. 18 for IMBE or 9 for AMBE
+     * @param frameCount number of frames to decode
+     * @param out array to receive the decoded audio samples
+     * @param outOffset to the first sample position in the out array
+     * @param status to receive the frame type and error count of each frame, or null
+     * @return number of samples written to the out array
+     * @throws IllegalArgumentException if the frame length is less than 1 or the buffer does not have frameCount
+     * frames remaining
+     */
+    default int decode(ByteBuffer frames, int frameLength, int frameCount, float[] out, int outOffset,
+                       BatchDecodeStatus status)
+    {
+        if(frameLength < 1)
+        {
+            throw new IllegalArgumentException("Frame length [" + frameLength + "] must be greater than 0");
+        }
+
+        int length = frameCount * frameLength;
+
+        if(frameCount < 0 || frames.remaining() < length)
+        {
+            throw new IllegalArgumentException("Frames buffer remaining [" + frames.remaining() +
+                "] does not contain [" + frameCount + "] frames of length [" + frameLength + "]");
+        }
+
+        int written;
+
+        if(frames.hasArray())
+        {
+            written = decode(frames.array(), frames.arrayOffset() + frames.position(), frameLength, frameCount, out,
+                outOffset, status);
+        }
+        else
+        {
+            byte[] copy = new byte[length];
+            frames.duplicate().get(copy);
+            written = decode(copy, 0, frameLength, frameCount, out, outOffset, status);
+        }
+
+        frames.position(frames.position() + length);
+        return written;
+    }
+
     /**
      * Resets the audio converter for a new call.  This causes the stored previous frame to be reset to a default
      * audio frame.
@@ -0,0 +1,47 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.iface;
+
+/**
+ * Category of a decoded tone frame, labeled with the metadata key used for the tone by IAudioWithMetadata
+ */
+public enum ToneType
+{
+    NONE(""),
+    DISCRETE("TONE"),
+    DTMF("DTMF"),
+    KNOX("KNOX"),
+    CALL_PROGRESS("CALL PROGRESS");
+
+    private String mLabel;
+
+    ToneType(String label)
+    {
+        mLabel = label;
+    }
+
+    /**
+     * Metadata key for tones of this type
+     */
+    public String getLabel()
+    {
+        return mLabel;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.benchmark;
+
+import jmbe.codec.ambe.AMBEAudioCodec;
+import jmbe.codec.imbe.IMBEAudioCodec;
+import jmbe.iface.BatchDecodeStatus;
+import jmbe.iface.IAudioCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end decode throughput, from encoded frame bytes to 160 audio samples, in frames per second per core.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EndToEndBenchmark
+{
+    private static final int FRAME_COUNT = 1024;
+    private static final int IMBE_FRAMES_PER_LDU = 9;
+    private static final int AMBE_FRAMES_PER_BURST = 3;
+
+    @Param({"0.0", "0.01", "0.03"})
+    public double bitErrorRate;
+
+    private IAudioCodec mIMBECodec = new IMBEAudioCodec();
+    private IAudioCodec mAMBECodec = new AMBEAudioCodec();
+    private byte[][] mIMBEFrames;
+    private byte[][] mAMBEFrames;
+    private byte[] mIMBEBatch;
+    private byte[] mAMBEBatch;
+    private BatchDecodeStatus mIMBEStatus = new BatchDecodeStatus(IMBE_FRAMES_PER_LDU);
+    private BatchDecodeStatus mAMBEStatus = new BatchDecodeStatus(AMBE_FRAMES_PER_BURST);
+    private float[] mSamples = new float[160];
+    private float[] mBatchSamples = new float[160 * IMBE_FRAMES_PER_LDU];
+    private int mPointer;
+
+    @Setup
+    public void setup()
+    {
+        FrameGenerator generator = new FrameGenerator(1, bitErrorRate);
+        mIMBEFrames = generator.imbeFrames(FRAME_COUNT);
+        mAMBEFrames = generator.ambeFrames(FRAME_COUNT);
+        mIMBEBatch = concatenate(mIMBEFrames, FrameGenerator.IMBE_FRAME_LENGTH);
+        mAMBEBatch = concatenate(mAMBEFrames, FrameGenerator.AMBE_FRAME_LENGTH);
+    }
+
+    private static byte[] concatenate(byte[][] frames, int frameLength)
+    {
+        byte[] concatenated = new byte[frames.length * frameLength];
+
+        for(int x = 0; x < frames.length; x++)
+        {
+            System.arraycopy(frames[x], 0, concatenated, x * frameLength, frameLength);
+        }
+
+        return concatenated;
+    }
+
+    private int next()
+    {
+        mPointer = (mPointer + 1) & (FRAME_COUNT - 1);
+        return mPointer;
+    }
+
+    @Benchmark
+    public float[] imbe()
+    {
+        mIMBECodec.decode(mIMBEFrames[next()], 0, mSamples, 0);
+        return mSamples;
+    }
+
+    @Benchmark
+    public float[] ambe()
+    {
+        mAMBECodec.decode(mAMBEFrames[next()], 0, mSamples, 0);
+        return mSamples;
+    }
+
+    /**
+     * Batch decode of the 9 IMBE frames of a P25 LDU.  Divide the score by 9 for frames per second.
+     */
+    @Benchmark
+    public float[] imbeLDU()
+    {
+        int frame = (next() % (FRAME_COUNT / IMBE_FRAMES_PER_LDU)) * IMBE_FRAMES_PER_LDU;
+        mIMBECodec.decode(mIMBEBatch, frame * FrameGenerator.IMBE_FRAME_LENGTH, FrameGenerator.IMBE_FRAME_LENGTH,
+            IMBE_FRAMES_PER_LDU, mBatchSamples, 0, mIMBEStatus);
+        return mBatchSamples;
+    }
+
+    /**
+     * Batch decode of the 3 AMBE frames of a DMR voice burst.  Divide the score by 3 for frames per second.
+     */
+    @Benchmark
+    public float[] ambeBurst()
+    {
+        int frame = (next() % (FRAME_COUNT / AMBE_FRAMES_PER_BURST)) * AMBE_FRAMES_PER_BURST;
+        mAMBECodec.decode(mAMBEBatch, frame * FrameGenerator.AMBE_FRAME_LENGTH, FrameGenerator.AMBE_FRAME_LENGTH,
+            AMBE_FRAMES_PER_BURST, mBatchSamples, 0, mAMBEStatus);
+        return mBatchSamples;
+    }
+}
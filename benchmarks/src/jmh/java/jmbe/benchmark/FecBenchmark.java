@@ -0,0 +1,87 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.benchmark;
+
+import jmbe.edac.Golay23;
+import jmbe.edac.Golay24;
+import jmbe.edac.Hamming15;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error detection and correction throughput for each of the FEC codes, measured as codewords per second at several
+ * channel bit error rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FecBenchmark
+{
+    private static final int CODEWORD_COUNT = 4096;
+
+    @Param({"0.0", "0.01", "0.03", "0.08"})
+    public double bitErrorRate;
+
+    private int[] mGolay23Codewords;
+    private int[] mGolay24Codewords;
+    private int[] mHamming15Codewords;
+    private int mPointer;
+
+    @Setup
+    public void setup()
+    {
+        FrameGenerator generator = new FrameGenerator(1, bitErrorRate);
+        mGolay23Codewords = generator.golay23Codewords(CODEWORD_COUNT);
+        mGolay24Codewords = generator.golay24Codewords(CODEWORD_COUNT);
+        mHamming15Codewords = generator.hamming15Codewords(CODEWORD_COUNT);
+    }
+
+    private int next()
+    {
+        mPointer = (mPointer + 1) & (CODEWORD_COUNT - 1);
+        return mPointer;
+    }
+
+    @Benchmark
+    public int golay23()
+    {
+        return Golay23.correct(mGolay23Codewords[next()]);
+    }
+
+    @Benchmark
+    public int golay24()
+    {
+        return Golay24.correct(mGolay24Codewords[next()]);
+    }
+
+    @Benchmark
+    public int hamming15()
+    {
+        return Hamming15.correct(mHamming15Codewords[next()]);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.benchmark;
+
+import jmbe.codec.ambe.AMBEFrame;
+import jmbe.codec.imbe.IMBEFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame decode throughput (deinterleave, derandomize and FEC) in frames per second, without model parameter decoding
+ * or synthesis.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FrameDecodeBenchmark
+{
+    private static final int FRAME_COUNT = 1024;
+
+    @Param({"0.0", "0.03"})
+    public double bitErrorRate;
+
+    private byte[][] mIMBEFrames;
+    private byte[][] mAMBEFrames;
+    private IMBEFrame mIMBEFrame = new IMBEFrame();
+    private AMBEFrame mAMBEFrame = new AMBEFrame();
+    private int mPointer;
+
+    @Setup
+    public void setup()
+    {
+        FrameGenerator generator = new FrameGenerator(1, bitErrorRate);
+        mIMBEFrames = generator.imbeFrames(FRAME_COUNT);
+        mAMBEFrames = generator.ambeFrames(FRAME_COUNT);
+    }
+
+    private int next()
+    {
+        mPointer = (mPointer + 1) & (FRAME_COUNT - 1);
+        return mPointer;
+    }
+
+    @Benchmark
+    public IMBEFrame imbeFrame()
+    {
+        mIMBEFrame.decode(mIMBEFrames[next()], 0);
+        return mIMBEFrame;
+    }
+
+    @Benchmark
+    public AMBEFrame ambeFrame()
+    {
+        mAMBEFrame.decode(mAMBEFrames[next()], 0);
+        return mAMBEFrame;
+    }
+}
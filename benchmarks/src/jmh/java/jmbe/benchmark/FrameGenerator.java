@@ -0,0 +1,345 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.benchmark;
+
+import jmbe.binary.PackedFrame;
+import jmbe.codec.imbe.IMBEInterleave;
+import jmbe.edac.Golay23;
+import jmbe.edac.Hamming15;
+
+import java.util.Random;
+
+/**
+ * Generates encoded IMBE and AMBE frames with random (valid) FEC protected content and a configurable channel bit
+ * error rate, so that benchmarks run against a reproducible frame sequence without recorded audio files.
+ */
+public class FrameGenerator
+{
+    public static final int IMBE_FRAME_LENGTH = 18;
+    public static final int AMBE_FRAME_LENGTH = 9;
+
+    //AMBE frame bit positions for the vectors C0 - C3 (see AMBEFrame)
+    private static final int[] AMBE_C0 = {0, 4, 8, 12, 16, 20, 24, 28, 32, 36, 40, 44, 48, 52, 56, 60, 64, 68, 1, 5, 9,
+        13, 17, 21};
+    private static final int[] AMBE_C1 = {25, 29, 33, 37, 41, 45, 49, 53, 57, 61, 65, 69, 2, 6, 10, 14, 18, 22, 26, 30,
+        34, 38, 42};
+    private static final int[] AMBE_C2 = {46, 50, 54, 58, 62, 66, 70, 3, 7, 11, 15};
+    private static final int[] AMBE_C3 = {19, 23, 27, 31, 35, 39, 43, 47, 51, 55, 59, 63, 67, 71};
+
+    /**
+     * Interleaved (transmitted) bit index for each deinterleaved IMBE frame bit index
+     */
+    private static final int[] IMBE_INTERLEAVE = new int[144];
+
+    static
+    {
+        PackedFrame frame = new PackedFrame(144);
+
+        for(int x = 0; x < 144; x++)
+        {
+            byte[] data = new byte[IMBE_FRAME_LENGTH];
+            data[x / 8] = (byte)(0x80 >>> (x % 8));
+            IMBEInterleave.deinterleave(data, frame);
+
+            for(int y = 0; y < 144; y++)
+            {
+                if(frame.get(y))
+                {
+                    IMBE_INTERLEAVE[y] = x;
+                }
+            }
+        }
+    }
+
+    private Random mRandom;
+    private double mBitErrorRate;
+
+    /**
+     * Constructs an instance
+     *
+     * @param seed for the random content and bit errors
+     * @param bitErrorRate probability (0.0 - 1.0) that each transmitted bit is flipped
+     */
+    public FrameGenerator(long seed, double bitErrorRate)
+    {
+        mRandom = new Random(seed);
+        mBitErrorRate = bitErrorRate;
+    }
+
+    /**
+     * Creates an array of encoded IMBE frames with a slowly varying fundamental frequency
+     */
+    public byte[][] imbeFrames(int count)
+    {
+        byte[][] frames = new byte[count][];
+        int b0 = mRandom.nextInt(208);
+
+        for(int x = 0; x < count; x++)
+        {
+            b0 = Math.max(0, Math.min(207, b0 + mRandom.nextInt(21) - 10));
+            frames[x] = imbe(b0);
+        }
+
+        return frames;
+    }
+
+    /**
+     * Creates an array of encoded AMBE voice frames with random content
+     */
+    public byte[][] ambeFrames(int count)
+    {
+        byte[][] frames = new byte[count][];
+
+        for(int x = 0; x < count; x++)
+        {
+            frames[x] = ambe(mRandom.nextInt(4096));
+        }
+
+        return frames;
+    }
+
+    /**
+     * Creates an array of Golay(23,12) codewords with random content and bit errors
+     */
+    public int[] golay23Codewords(int count)
+    {
+        int[] codewords = new int[count];
+
+        for(int x = 0; x < count; x++)
+        {
+            codewords[x] = applyErrors(golay23(mRandom.nextInt(4096)), 23);
+        }
+
+        return codewords;
+    }
+
+    /**
+     * Creates an array of Golay(24,12) codewords with random content and bit errors
+     */
+    public int[] golay24Codewords(int count)
+    {
+        int[] codewords = new int[count];
+
+        for(int x = 0; x < count; x++)
+        {
+            codewords[x] = applyErrors(golay24(mRandom.nextInt(4096)), 24);
+        }
+
+        return codewords;
+    }
+
+    /**
+     * Creates an array of Hamming(15,11) codewords with random content and bit errors
+     */
+    public int[] hamming15Codewords(int count)
+    {
+        int[] codewords = new int[count];
+
+        for(int x = 0; x < count; x++)
+        {
+            codewords[x] = applyErrors(hamming15(), 15);
+        }
+
+        return codewords;
+    }
+
+    /**
+     * Encodes the 12-bit data value as a Golay(23,12) codeword
+     */
+    private static int golay23(int data)
+    {
+        int checksum = 0;
+
+        for(int x = 0; x < 12; x++)
+        {
+            if((data & (0x800 >>> x)) != 0)
+            {
+                checksum ^= Golay23.CHECKSUMS[x];
+            }
+        }
+
+        return (data << 11) | checksum;
+    }
+
+    /**
+     * Encodes the 12-bit data value as a Golay(24,12) codeword with an even parity bit
+     */
+    private static int golay24(int data)
+    {
+        int codeword = golay23(data) << 1;
+        return codeword | (Integer.bitCount(codeword) & 1);
+    }
+
+    /**
+     * Creates a Hamming(15,11) codeword with random content.  The code is perfect, so correcting a random value
+     * produces a valid codeword.
+     */
+    private int hamming15()
+    {
+        return Hamming15.correct(mRandom.nextInt(1 << 15));
+    }
+
+    /**
+     * Creates a Golay(23,12) codeword with random content
+     */
+    private int golay23()
+    {
+        return golay23(mRandom.nextInt(4096));
+    }
+
+    /**
+     * Flips each of the value's bits with probability of the bit error rate
+     */
+    private int applyErrors(int value, int width)
+    {
+        for(int x = 0; x < width; x++)
+        {
+            if(mRandom.nextDouble() < mBitErrorRate)
+            {
+                value ^= (1 << x);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Loads the value into the bits array with the MSB at the offset
+     */
+    private static void load(boolean[] bits, int offset, int width, int value)
+    {
+        for(int x = 0; x < width; x++)
+        {
+            bits[offset + x] = ((value >>> (width - 1 - x)) & 1) == 1;
+        }
+    }
+
+    /**
+     * Converts the bits array into a byte array with applied bit errors
+     */
+    private byte[] toBytes(boolean[] bits)
+    {
+        byte[] bytes = new byte[bits.length / 8];
+
+        for(int x = 0; x < bits.length; x++)
+        {
+            boolean bit = bits[x] ^ (mRandom.nextDouble() < mBitErrorRate);
+
+            if(bit)
+            {
+                bytes[x / 8] |= (byte)(0x80 >>> (x % 8));
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Creates an interleaved IMBE frame with the fundamental frequency value and random content
+     */
+    private byte[] imbe(int b0)
+    {
+        boolean[] frame = new boolean[144];
+
+        //Coset word c0 carries the 6 MSBs of b0 and the randomizer seed
+        int u0 = (mRandom.nextInt(4096) & 0x3F) | ((b0 >>> 2) << 6);
+        load(frame, 0, 23, golay23(u0));
+
+        for(int x = 1; x <= 3; x++)
+        {
+            load(frame, 23 * x, 23, golay23());
+        }
+
+        for(int x = 0; x < 3; x++)
+        {
+            load(frame, 92 + (15 * x), 15, hamming15());
+        }
+
+        load(frame, 137, 7, mRandom.nextInt(128));
+        frame[141] = ((b0 >>> 1) & 1) == 1;
+        frame[142] = (b0 & 1) == 1;
+
+        //Alg 52 - 54 randomize coset words c1 - c6
+        int prX = 16 * u0;
+
+        for(int x = 0; x < 114; x++)
+        {
+            prX = (173 * prX + 13849) % 65536;
+
+            if(prX >= 32768)
+            {
+                frame[x + 23] = !frame[x + 23];
+            }
+        }
+
+        boolean[] interleaved = new boolean[144];
+
+        for(int x = 0; x < 144; x++)
+        {
+            interleaved[IMBE_INTERLEAVE[x]] = frame[x];
+        }
+
+        return toBytes(interleaved);
+    }
+
+    /**
+     * Creates an AMBE frame with the U0 vector value and random content
+     */
+    private byte[] ambe(int u0)
+    {
+        int c0 = golay24(u0);
+        int c1 = golay23();
+
+        //Alg 52 - 54 modulate vector c1
+        int prX = 16 * u0;
+
+        for(int x = 0; x < 23; x++)
+        {
+            prX = (173 * prX + 13849) % 65536;
+
+            if(prX >= 32768)
+            {
+                c1 ^= (0x400000 >>> x);
+            }
+        }
+
+        int c2 = mRandom.nextInt(1 << 11);
+        int c3 = mRandom.nextInt(1 << 14);
+
+        boolean[] frame = new boolean[72];
+        scatter(frame, AMBE_C0, c0);
+        scatter(frame, AMBE_C1, c1);
+        scatter(frame, AMBE_C2, c2);
+        scatter(frame, AMBE_C3, c3);
+
+        return toBytes(frame);
+    }
+
+    /**
+     * Scatters the vector bits into the frame positions, where the first position receives the MSB
+     */
+    private static void scatter(boolean[] frame, int[] positions, int vector)
+    {
+        for(int x = 0; x < positions.length; x++)
+        {
+            frame[positions[x]] = ((vector >>> (positions.length - 1 - x)) & 1) == 1;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.benchmark;
+
+import jmbe.codec.ambe.AMBEFrame;
+import jmbe.codec.ambe.AMBEModelParameters;
+import jmbe.codec.imbe.IMBEFrame;
+import jmbe.codec.imbe.IMBEFundamentalFrequency;
+import jmbe.codec.imbe.IMBEModelParameters;
+import jmbe.codec.MBEModelParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Model parameter decode throughput in frames per second for each of the parameter decoding stages, using error free
+ * frames that have already been deinterleaved and error corrected.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParameterDecodeBenchmark
+{
+    private static final int FRAME_COUNT = 1024;
+
+    private IMBEFrame[] mIMBEFrames = new IMBEFrame[FRAME_COUNT];
+    private AMBEFrame[] mAMBEFrames = new AMBEFrame[FRAME_COUNT];
+    private MBEModelParameters[] mEnhancementParameters = new MBEModelParameters[FRAME_COUNT];
+    private IMBEModelParameters mPreviousIMBE = new IMBEModelParameters();
+    private IMBEModelParameters mCurrentIMBE = new IMBEModelParameters();
+    private AMBEModelParameters mPreviousAMBE = new AMBEModelParameters();
+    private AMBEModelParameters mCurrentAMBE = new AMBEModelParameters();
+    private float[] mResiduals = new float[MBEModelParameters.MAX_L + 1];
+    private int mPointer;
+
+    @Setup
+    public void setup()
+    {
+        FrameGenerator generator = new FrameGenerator(1, 0.0);
+
+        //Residual reconstruction requires a valid fundamental frequency
+        List<IMBEFrame> imbeFrames = new ArrayList<>();
+        IMBEModelParameters previous = new IMBEModelParameters();
+
+        while(imbeFrames.size() < FRAME_COUNT)
+        {
+            for(byte[] data : generator.imbeFrames(FRAME_COUNT))
+            {
+                IMBEFrame frame = new IMBEFrame(data);
+
+                if(frame.getFundamentalFrequency() != IMBEFundamentalFrequency.INVALID &&
+                    imbeFrames.size() < FRAME_COUNT)
+                {
+                    previous = frame.getModelParameters(previous);
+                    mEnhancementParameters[imbeFrames.size()] = previous;
+                    imbeFrames.add(frame);
+                }
+            }
+        }
+
+        imbeFrames.toArray(mIMBEFrames);
+
+        //Model parameters are only decoded from non-tone frames
+        List<AMBEFrame> ambeFrames = new ArrayList<>();
+
+        while(ambeFrames.size() < FRAME_COUNT)
+        {
+            for(byte[] data : generator.ambeFrames(FRAME_COUNT))
+            {
+                AMBEFrame frame = new AMBEFrame(data);
+
+                if(!frame.isToneFrame() && ambeFrames.size() < FRAME_COUNT)
+                {
+                    ambeFrames.add(frame);
+                }
+            }
+        }
+
+        ambeFrames.toArray(mAMBEFrames);
+    }
+
+    private int next()
+    {
+        mPointer = (mPointer + 1) & (FRAME_COUNT - 1);
+        return mPointer;
+    }
+
+    /**
+     * IMBE spectral amplitude prediction residuals (Alg #68 - #74)
+     */
+    @Benchmark
+    public float[] imbeResiduals()
+    {
+        mIMBEFrames[next()].getSpectralAmplitudePredictionResiduals(mResiduals);
+        return mResiduals;
+    }
+
+    /**
+     * IMBE model parameters, including the residuals, log2 and spectral amplitudes and enhancement
+     */
+    @Benchmark
+    public IMBEModelParameters imbeModelParameters()
+    {
+        IMBEModelParameters parameters = mIMBEFrames[next()].getModelParameters(mPreviousIMBE, mCurrentIMBE);
+        mCurrentIMBE = mPreviousIMBE;
+        mPreviousIMBE = parameters;
+        return parameters;
+    }
+
+    /**
+     * AMBE model parameters.  The PRBA vector decode (Alg #27 - #46) is private to the model parameters, so this
+     * includes the gain and voicing decisions decode and the spectral amplitude enhancement.
+     */
+    @Benchmark
+    public AMBEModelParameters ambeModelParameters()
+    {
+        AMBEModelParameters parameters = mAMBEFrames[next()].getVoiceParameters(mPreviousAMBE, mCurrentAMBE);
+        mCurrentAMBE = mPreviousAMBE;
+        mPreviousAMBE = parameters;
+        return parameters;
+    }
+
+    /**
+     * Spectral amplitude enhancement and adaptive smoothing (Alg #105 - #116), applied in place
+     */
+    @Benchmark
+    public MBEModelParameters enhanceSpectralAmplitudes()
+    {
+        MBEModelParameters parameters = mEnhancementParameters[next()];
+        parameters.setSpectralAmplitudes(parameters.getSpectralAmplitudes(), parameters.getLocalEnergy(),
+            parameters.getAmplitudeThreshold());
+        return parameters;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.benchmark;
+
+import jmbe.codec.MBENoiseSequenceGenerator;
+import jmbe.codec.VoicedSynthesisMode;
+import jmbe.codec.imbe.IMBEFrame;
+import jmbe.codec.imbe.IMBEModelParameters;
+import jmbe.codec.imbe.IMBESynthesizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Voiced and unvoiced audio synthesis throughput in frames per second.  Each frame is synthesized against the same
+ * previous frame parameters so that only the synthesis stage is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SynthesisBenchmark
+{
+    private static final int FRAME_COUNT = 1024;
+
+    @Param({"PHASOR", "REFERENCE", "FIXED_POINT_OSCILLATORS"})
+    public VoicedSynthesisMode voicedSynthesisMode;
+
+    private IMBESynthesizer mSynthesizer = new IMBESynthesizer();
+    private IMBEModelParameters[] mParameters = new IMBEModelParameters[FRAME_COUNT];
+    private float[] mNoise = new float[256];
+    private int mPointer;
+
+    @Setup
+    public void setup()
+    {
+        byte[][] frames = new FrameGenerator(1, 0.0).imbeFrames(FRAME_COUNT + 1);
+        IMBEModelParameters previous = new IMBEModelParameters();
+
+        for(int x = 0; x < FRAME_COUNT; x++)
+        {
+            previous = new IMBEFrame(frames[x]).getModelParameters(previous);
+            mParameters[x] = previous;
+        }
+
+        mSynthesizer.setVoicedSynthesisMode(voicedSynthesisMode);
+        mSynthesizer.getAudio(new IMBEFrame(frames[FRAME_COUNT]));
+        new MBENoiseSequenceGenerator().nextBuffer(mNoise);
+    }
+
+    private int next()
+    {
+        mPointer = (mPointer + 1) & (FRAME_COUNT - 1);
+        return mPointer;
+    }
+
+    /**
+     * Voiced audio component (Alg #127 - #141)
+     */
+    @Benchmark
+    public float[] voiced()
+    {
+        return mSynthesizer.getVoiced(mParameters[next()], mNoise);
+    }
+
+    /**
+     * Unvoiced audio component (Alg #118 - #126).  Not affected by the voiced synthesis mode.
+     */
+    @Benchmark
+    public float[] unvoiced()
+    {
+        return mSynthesizer.getUnvoiced(mParameters[next()], mNoise);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.benchmark;
+
+import jmbe.codec.ambe.Tone;
+import jmbe.codec.ambe.ToneGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AMBE tone synthesis throughput in frames per second for single frequency and dual frequency (DTMF) tones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ToneBenchmark
+{
+    @Param({"T5", "T128_DTMF_0"})
+    public String toneName;
+
+    private ToneGenerator mToneGenerator = new ToneGenerator();
+    private Tone mTone;
+    private float[] mSamples = new float[160];
+
+    @Setup
+    public void setup()
+    {
+        mTone = Tone.valueOf(toneName);
+    }
+
+    @Benchmark
+    public float[] tone()
+    {
+        mToneGenerator.generate(mTone, 64, mSamples, 0);
+        return mSamples;
+    }
+}
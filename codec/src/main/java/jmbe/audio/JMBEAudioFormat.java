@@ -25,16 +25,22 @@ public class JMBEAudioFormat
 	public static final AudioFormat.Encoding IMBE_ENCODING = 
 				new AudioFormat.Encoding( "IMBE" );
 
+	public static final AudioFormat.Encoding AMBE_ENCODING =
+				new AudioFormat.Encoding( "AMBE" );
+
 	public static final boolean LITTLE_ENDIAN = false;
 	public static final boolean BIG_ENDIAN = true;
 
 	public static final float IMBE_FRAME_RATE = 50;
 	public static final float IMBE_SAMPLE_RATE = 50;
 	public static final float PCM_8KHZ_RATE = 8000;
+	public static final float PCM_16KHZ_RATE = 16000;
 	public static final float PCM_48KHZ_RATE = 48000;
 
 	public static final int IMBE_FRAME_SIZE_BYTES = 18;
 	public static final int IMBE_SAMPLE_SIZE_BITS = 144;
+	public static final int AMBE_FRAME_SIZE_BYTES = 9;
+	public static final int AMBE_SAMPLE_SIZE_BITS = 72;
 	public static final int ONE_CHANNEL = 1;
 	public static final int PCM_SAMPLE_SIZE_BITS = 16;
 	public static final int PCM_FRAME_SIZE_BYTES = 2;
@@ -48,6 +54,15 @@ public class JMBEAudioFormat
 								 IMBE_FRAME_RATE,
 								 LITTLE_ENDIAN );
 
+	public static AudioFormat AMBE_AUDIO_FORMAT =
+				new AudioFormat( AMBE_ENCODING,
+								 IMBE_SAMPLE_RATE,
+								 AMBE_SAMPLE_SIZE_BITS,
+								 ONE_CHANNEL,
+								 AMBE_FRAME_SIZE_BYTES,
+								 IMBE_FRAME_RATE,
+								 LITTLE_ENDIAN );
+
 	public static AudioFormat PCM_SIGNED_8KHZ_16BITS =
 						new AudioFormat( AudioFormat.Encoding.PCM_SIGNED, 
 								 PCM_8KHZ_RATE,
@@ -57,6 +72,15 @@ public class JMBEAudioFormat
 								 PCM_8KHZ_RATE,
 								 LITTLE_ENDIAN );
 	
+	public static AudioFormat PCM_SIGNED_16KHZ_16BITS =
+			new AudioFormat( AudioFormat.Encoding.PCM_SIGNED,
+					 PCM_16KHZ_RATE,
+					 PCM_SAMPLE_SIZE_BITS,
+					 ONE_CHANNEL,
+					 PCM_FRAME_SIZE_BYTES,
+					 PCM_16KHZ_RATE,
+					 LITTLE_ENDIAN );
+
 	public static AudioFormat PCM_SIGNED_48KHZ_16BITS =
 			new AudioFormat( AudioFormat.Encoding.PCM_SIGNED, 
 					 PCM_48KHZ_RATE,
@@ -0,0 +1,144 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.audio;
+
+import jmbe.codec.ambe.AMBEAudioCodec;
+import jmbe.codec.imbe.IMBEAudioCodec;
+import jmbe.iface.IAudioCodec;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.spi.FormatConversionProvider;
+
+/**
+ * Java Sound format conversion provider for decoding IMBE and AMBE encoded audio streams to 16-bit signed PCM audio at
+ * 8 kHz, 16 kHz or 48 kHz.  Registered through META-INF/services, so that AudioSystem.getAudioInputStream() can convert
+ * an audio input stream of JMBEAudioFormat.IMBE_AUDIO_FORMAT or AMBE_AUDIO_FORMAT frames.  Frames are decoded lazily as
+ * the converted stream is read.  @see MBEAudioInputStream
+ */
+public class JMBEFormatConversionProvider extends FormatConversionProvider
+{
+    private static final AudioFormat.Encoding[] SOURCE_ENCODINGS = {JMBEAudioFormat.IMBE_ENCODING,
+        JMBEAudioFormat.AMBE_ENCODING};
+    private static final AudioFormat.Encoding[] TARGET_ENCODINGS = {AudioFormat.Encoding.PCM_SIGNED};
+    private static final AudioFormat.Encoding[] NO_ENCODINGS = new AudioFormat.Encoding[0];
+    private static final AudioFormat[] NO_FORMATS = new AudioFormat[0];
+    private static final AudioFormat[] TARGET_FORMATS = {JMBEAudioFormat.PCM_SIGNED_8KHZ_16BITS,
+        getBigEndianFormat(JMBEAudioFormat.PCM_SIGNED_8KHZ_16BITS), JMBEAudioFormat.PCM_SIGNED_16KHZ_16BITS,
+        getBigEndianFormat(JMBEAudioFormat.PCM_SIGNED_16KHZ_16BITS), JMBEAudioFormat.PCM_SIGNED_48KHZ_16BITS,
+        getBigEndianFormat(JMBEAudioFormat.PCM_SIGNED_48KHZ_16BITS)};
+
+    /**
+     * Constructs an instance
+     */
+    public JMBEFormatConversionProvider()
+    {
+    }
+
+    @Override
+    public AudioFormat.Encoding[] getSourceEncodings()
+    {
+        return SOURCE_ENCODINGS.clone();
+    }
+
+    @Override
+    public AudioFormat.Encoding[] getTargetEncodings()
+    {
+        return TARGET_ENCODINGS.clone();
+    }
+
+    @Override
+    public AudioFormat.Encoding[] getTargetEncodings(AudioFormat sourceFormat)
+    {
+        return isSupported(sourceFormat) ? TARGET_ENCODINGS.clone() : NO_ENCODINGS;
+    }
+
+    @Override
+    public AudioFormat[] getTargetFormats(AudioFormat.Encoding targetEncoding, AudioFormat sourceFormat)
+    {
+        if(isSupported(sourceFormat) && AudioFormat.Encoding.PCM_SIGNED.equals(targetEncoding))
+        {
+            return TARGET_FORMATS.clone();
+        }
+
+        return NO_FORMATS;
+    }
+
+    @Override
+    public AudioInputStream getAudioInputStream(AudioFormat.Encoding targetEncoding, AudioInputStream sourceStream)
+    {
+        if(!AudioFormat.Encoding.PCM_SIGNED.equals(targetEncoding))
+        {
+            throw new IllegalArgumentException("Unsupported conversion: " + sourceStream.getFormat() + " to " +
+                targetEncoding);
+        }
+
+        return getAudioInputStream(JMBEAudioFormat.PCM_SIGNED_8KHZ_16BITS, sourceStream);
+    }
+
+    @Override
+    public AudioInputStream getAudioInputStream(AudioFormat targetFormat, AudioInputStream sourceStream)
+    {
+        AudioFormat sourceFormat = sourceStream.getFormat();
+
+        if(!isConversionSupported(targetFormat, sourceFormat))
+        {
+            throw new IllegalArgumentException("Unsupported conversion: " + sourceFormat + " to " + targetFormat);
+        }
+
+        return new MBEAudioInputStream(sourceStream, createCodec(sourceFormat.getEncoding()), targetFormat);
+    }
+
+    /**
+     * Indicates if the format is an IMBE or AMBE encoded format with the codec frame size
+     */
+    private static boolean isSupported(AudioFormat format)
+    {
+        AudioFormat.Encoding encoding = format.getEncoding();
+
+        if(JMBEAudioFormat.IMBE_ENCODING.equals(encoding))
+        {
+            return format.getFrameSize() == IMBEAudioCodec.FRAME_LENGTH;
+        }
+        else if(JMBEAudioFormat.AMBE_ENCODING.equals(encoding))
+        {
+            return format.getFrameSize() == AMBEAudioCodec.FRAME_LENGTH;
+        }
+
+        return false;
+    }
+
+    /**
+     * Creates a codec for the encoding
+     */
+    private static IAudioCodec createCodec(AudioFormat.Encoding encoding)
+    {
+        return JMBEAudioFormat.IMBE_ENCODING.equals(encoding) ? new IMBEAudioCodec() : new AMBEAudioCodec();
+    }
+
+    /**
+     * Big-endian variant of the 16-bit signed PCM format
+     */
+    private static AudioFormat getBigEndianFormat(AudioFormat format)
+    {
+        return new AudioFormat(format.getEncoding(), format.getSampleRate(), format.getSampleSizeInBits(),
+            format.getChannels(), format.getFrameSize(), format.getFrameRate(), JMBEAudioFormat.BIG_ENDIAN);
+    }
+}
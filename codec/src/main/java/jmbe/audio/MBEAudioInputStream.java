@@ -0,0 +1,242 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.audio;
+
+import jmbe.iface.IAudioCodec;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+/**
+ * Audio input stream that decodes an IMBE or AMBE encoded audio input stream to 16-bit signed PCM audio at 8 kHz, or at
+ * 16 kHz or 48 kHz through the codec's resampler output stage, as the consumer reads.  Encoded frames are read from the
+ * source stream one whole frame at a time into a reusable frame buffer and decoded into a reusable buffer of one frame
+ * of PCM samples, so that arbitrarily long streams are decoded in constant memory.
+ */
+public class MBEAudioInputStream extends AudioInputStream
+{
+    private final AudioInputStream mSource;
+    private final IAudioCodec mCodec;
+    private final ByteOrder mByteOrder;
+    private final byte[] mFrame;
+    private final byte[] mPCM;
+    private int mPCMPosition;
+    private int mPCMLimit;
+    private boolean mEndOfStream;
+
+    /**
+     * Constructs an instance
+     *
+     * @param source stream of encoded audio frames, with a frame size of one encoded frame, e.g. 18 bytes for IMBE
+     * @param codec to decode the frames, matching the encoding of the source stream format
+     * @param format of the decoded audio: 16-bit signed PCM at an output sample rate supported by the codec, in either
+     * byte order
+     * @throws IllegalArgumentException if the source frame size is not specified or the decoded audio format is not
+     * supported
+     */
+    public MBEAudioInputStream(AudioInputStream source, IAudioCodec codec, AudioFormat format)
+    {
+        super(source, format, AudioSystem.NOT_SPECIFIED);
+
+        if(source.getFormat().getFrameSize() < 1)
+        {
+            throw new IllegalArgumentException("Source frame size [" + source.getFormat().getFrameSize() +
+                "] must be the length of one encoded frame");
+        }
+
+        if(!format.getEncoding().equals(AudioFormat.Encoding.PCM_SIGNED) ||
+            format.getSampleSizeInBits() != JMBEAudioFormat.PCM_SAMPLE_SIZE_BITS ||
+            format.getChannels() != JMBEAudioFormat.ONE_CHANNEL ||
+            format.getSampleRate() != (int)format.getSampleRate())
+        {
+            throw new IllegalArgumentException("Unsupported decoded audio format [" + format + "]");
+        }
+
+        codec.setOutputSampleRate((int)format.getSampleRate());
+
+        mSource = source;
+        mCodec = codec;
+        mByteOrder = format.isBigEndian() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        mFrame = new byte[source.getFormat().getFrameSize()];
+
+        //Size from the codec after setting the output rate, since a time scale shortens each decoded frame
+        int samplesPerFrame = codec.getSamplesPerFrame();
+        mPCM = new byte[samplesPerFrame * JMBEAudioFormat.PCM_FRAME_SIZE_BYTES];
+        frameLength = getFrameLength(source, samplesPerFrame);
+    }
+
+    /**
+     * Length of the decoded stream in sample frames, or NOT_SPECIFIED when the source stream length is not known
+     */
+    private static long getFrameLength(AudioInputStream source, int samplesPerFrame)
+    {
+        long frames = source.getFrameLength();
+        return frames == AudioSystem.NOT_SPECIFIED ? AudioSystem.NOT_SPECIFIED : frames * samplesPerFrame;
+    }
+
+    /**
+     * Reads and decodes the next whole frame from the source stream into the PCM buffer.
+     *
+     * @return false at the end of the source stream.  A trailing partial frame is discarded.
+     */
+    private boolean fill() throws IOException
+    {
+        if(mEndOfStream)
+        {
+            return false;
+        }
+
+        int read = 0;
+
+        while(read < mFrame.length)
+        {
+            int count = mSource.read(mFrame, read, mFrame.length - read);
+
+            if(count < 0)
+            {
+                mEndOfStream = true;
+                return false;
+            }
+
+            read += count;
+        }
+
+        mPCMLimit = mCodec.decode(mFrame, 0, mPCM, 0, mByteOrder);
+        mPCMPosition = 0;
+        return true;
+    }
+
+    /**
+     * Reads up to len bytes of decoded audio, rounded down to whole 2-byte sample frames, decoding frames from the
+     * source stream as needed.
+     *
+     * @return number of bytes read, or -1 at the end of the stream
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        len -= len % JMBEAudioFormat.PCM_FRAME_SIZE_BYTES;
+
+        if(len == 0)
+        {
+            return 0;
+        }
+
+        int total = 0;
+
+        while(total < len)
+        {
+            if(mPCMPosition == mPCMLimit && !fill())
+            {
+                break;
+            }
+
+            int count = Math.min(len - total, mPCMLimit - mPCMPosition);
+            System.arraycopy(mPCM, mPCMPosition, b, off + total, count);
+            mPCMPosition += count;
+            total += count;
+        }
+
+        if(total == 0)
+        {
+            return -1;
+        }
+
+        framePos += total / JMBEAudioFormat.PCM_FRAME_SIZE_BYTES;
+        return total;
+    }
+
+    /**
+     * Single byte reads are not supported for 2-byte sample frames
+     *
+     * @throws IOException always
+     */
+    @Override
+    public int read() throws IOException
+    {
+        throw new IOException("cannot read a single byte if frame size > 1");
+    }
+
+    /**
+     * Skips decoded audio bytes, rounded down to whole sample frames.  Skipped frames are still decoded so that the
+     * codec state carries across the skipped audio.
+     */
+    @Override
+    public long skip(long n) throws IOException
+    {
+        n -= n % JMBEAudioFormat.PCM_FRAME_SIZE_BYTES;
+        long skipped = 0;
+
+        while(skipped < n)
+        {
+            if(mPCMPosition == mPCMLimit && !fill())
+            {
+                break;
+            }
+
+            int count = (int)Math.min(n - skipped, mPCMLimit - mPCMPosition);
+            mPCMPosition += count;
+            skipped += count;
+        }
+
+        framePos += skipped / JMBEAudioFormat.PCM_FRAME_SIZE_BYTES;
+        return skipped;
+    }
+
+    /**
+     * Number of decoded bytes that can be read without blocking: the remainder of the current decoded frame plus the
+     * decoded length of the whole frames available from the source stream.
+     */
+    @Override
+    public int available() throws IOException
+    {
+        long frames = mEndOfStream ? 0 : mSource.available() / mFrame.length;
+        return (int)Math.min(Integer.MAX_VALUE, (mPCMLimit - mPCMPosition) + (frames * mPCM.length));
+    }
+
+    /**
+     * Closes the source stream
+     */
+    @Override
+    public void close() throws IOException
+    {
+        mSource.close();
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public void mark(int readlimit)
+    {
+    }
+
+    @Override
+    public void reset() throws IOException
+    {
+        throw new IOException("mark/reset not supported");
+    }
+}
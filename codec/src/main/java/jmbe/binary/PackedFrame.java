@@ -0,0 +1,253 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.binary;
+
+/**
+ * Fixed length bit frame that is packed into an array of primitive long words.
+ *
+ * Bit indexing follows the same convention as the BinaryFrame: bit 0 is the most significant bit of the first byte
+ * of the source message, and multi-bit values are read with the lowest bit index as the MSB.  Bit index i is stored in
+ * word (i / 64) at bit position (63 - (i % 64)), so that the source message bytes can be loaded directly into the
+ * words in big endian order.
+ */
+public class PackedFrame
+{
+    private final long[] mWords;
+    private final int mSize;
+
+    /**
+     * Constructs an empty (all zeros) frame
+     *
+     * @param size of the frame in bits
+     */
+    public PackedFrame(int size)
+    {
+        if(size <= 0)
+        {
+            throw new IllegalArgumentException("Frame size must be a positive bit count");
+        }
+
+        mSize = size;
+        mWords = new long[(size + 63) / 64];
+    }
+
+    /**
+     * Size of this frame in bits
+     */
+    public int size()
+    {
+        return mSize;
+    }
+
+    /**
+     * Number of long words used to store this frame
+     */
+    public int getWordCount()
+    {
+        return mWords.length;
+    }
+
+    /**
+     * Clears all bits in this frame
+     */
+    public void clear()
+    {
+        for(int x = 0; x < mWords.length; x++)
+        {
+            mWords[x] = 0;
+        }
+    }
+
+    /**
+     * Loads the byte array into this frame, replacing the current contents.  The MSB of the first byte is loaded into
+     * bit index 0.  Bytes that exceed the size of the frame are ignored.
+     *
+     * @param data bytes to load
+     */
+    public void load(byte[] data)
+    {
+        load(data, 0);
+    }
+
+    /**
+     * Loads the byte array, starting at the offset, into this frame, replacing the current contents.  The MSB of the
+     * byte at the offset is loaded into bit index 0.  Bytes that exceed the size of the frame are ignored.
+     *
+     * @param data bytes to load
+     * @param offset to the first byte to load
+     */
+    public void load(byte[] data, int offset)
+    {
+        clear();
+
+        int length = Math.min(data.length - offset, mWords.length * 8);
+
+        for(int x = 0; x < length; x++)
+        {
+            mWords[x >>> 3] |= (data[offset + x] & 0xFFL) << (56 - ((x & 7) << 3));
+        }
+    }
+
+    /**
+     * Indicates if the bit at the index is set
+     */
+    public boolean get(int index)
+    {
+        return (mWords[index >>> 6] & (Long.MIN_VALUE >>> index)) != 0;
+    }
+
+    /**
+     * Sets the bit at the index
+     */
+    public void set(int index)
+    {
+        mWords[index >>> 6] |= (Long.MIN_VALUE >>> index);
+    }
+
+    /**
+     * Toggles the bit at the index
+     */
+    public void flip(int index)
+    {
+        mWords[index >>> 6] ^= (Long.MIN_VALUE >>> index);
+    }
+
+    /**
+     * Performs exclusive or of the mask words against this frame.
+     *
+     * @param mask array containing one or more masks, each with a length equal to the word count of this frame
+     * @param offset into the mask array for the first word of the mask to apply
+     */
+    public void xor(long[] mask, int offset)
+    {
+        for(int x = 0; x < mWords.length; x++)
+        {
+            mWords[x] ^= mask[offset + x];
+        }
+    }
+
+    /**
+     * Returns the int value represented by the bit range where the start index is the MSB and the end index is the
+     * LSB of the value.
+     *
+     * @param start index of the MSB of the value
+     * @param end index of the LSB of the value (inclusive)
+     * @return int value of the bit range
+     */
+    public int getInt(int start, int end)
+    {
+        int width = end - start + 1;
+
+        if(width > 32 || width < 1)
+        {
+            throw new IllegalArgumentException("Overflow - must be 1 to 32 bits to fit into a primitive integer value");
+        }
+
+        int startWord = start >>> 6;
+        int endWord = end >>> 6;
+        long value;
+
+        if(startWord == endWord)
+        {
+            value = mWords[startWord] >>> (63 - (end & 63));
+        }
+        else
+        {
+            value = (mWords[startWord] << ((end & 63) + 1)) | (mWords[endWord] >>> (63 - (end & 63)));
+        }
+
+        return (int)(value & (0xFFFFFFFFL >>> (32 - width)));
+    }
+
+    /**
+     * Returns the int value represented by the (non-contiguous) bit indexes where the first index is the MSB and the
+     * last index is the LSB of the value.
+     *
+     * @param bits indexes
+     * @return int value
+     */
+    public int getInt(int[] bits)
+    {
+        if(bits.length > 32)
+        {
+            throw new IllegalArgumentException("Overflow - must be 32 bits or less to fit into a primitive " +
+                "integer value");
+        }
+
+        int value = 0;
+
+        for(int index : bits)
+        {
+            value = (value << 1) | (int)((mWords[index >>> 6] >>> (63 - (index & 63))) & 1);
+        }
+
+        return value;
+    }
+
+    /**
+     * Loads the value into the frame starting at the offset index where the MSB of the value is located at the
+     * offset and the LSB of the value is located at (offset + width - 1).
+     *
+     * @param offset starting bit index for the MSB of the value
+     * @param width of the value, 1 - 32 bits
+     * @param value to load
+     */
+    public void load(int offset, int width, int value)
+    {
+        if(width > 32 || width < 1)
+        {
+            throw new IllegalArgumentException("Width must be 1 to 32 bits");
+        }
+
+        int end = offset + width - 1;
+        int startWord = offset >>> 6;
+        int endWord = end >>> 6;
+        long bits = value & (0xFFFFFFFFL >>> (32 - width));
+        int shift = 63 - (end & 63);
+
+        if(startWord == endWord)
+        {
+            long mask = (0xFFFFFFFFL >>> (32 - width)) << shift;
+            mWords[startWord] = (mWords[startWord] & ~mask) | (bits << shift);
+        }
+        else
+        {
+            int lowWidth = (end & 63) + 1;
+            int highWidth = width - lowWidth;
+            long highMask = (1L << highWidth) - 1;
+            mWords[startWord] = (mWords[startWord] & ~highMask) | (bits >>> lowWidth);
+            long lowMask = -1L << shift;
+            mWords[endWord] = (mWords[endWord] & ~lowMask) | (bits << shift);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for(int x = 0; x < mSize; x++)
+        {
+            sb.append(get(x) ? "1" : "0");
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+import java.util.Random;
+
+/**
+ * Comfort noise used to fill muted and erased frames.
+ *
+ * Samples are read from a shared table of uniformly distributed white noise, instead of drawing new random values for
+ * every muted frame.  The table length (8191 samples, about 1 second at 8 kHz) is not a multiple of the 160 sample
+ * frame length, so successive frames start at different positions within the table.  Each instance maintains its own
+ * read position, which starts at the beginning of the table and can be changed with setSeed() so that channels that
+ * are mixed together do not produce identical comfort noise.
+ */
+public class ComfortNoise implements INoiseSource
+{
+    private static final int TABLE_LENGTH = 8191;
+    private static final float[] TABLE = new float[TABLE_LENGTH];
+
+    static
+    {
+        Random random = new Random(TABLE_LENGTH);
+
+        for(int x = 0; x < TABLE_LENGTH; x++)
+        {
+            TABLE[x] = random.nextFloat() * 2.0f - 1.0f;
+        }
+    }
+
+    private int mPosition;
+
+    /**
+     * Constructs an instance
+     */
+    public ComfortNoise()
+    {
+    }
+
+    /**
+     * Sets the table read position from the seed value
+     *
+     * @param seed value
+     */
+    @Override
+    public void setSeed(long seed)
+    {
+        mPosition = (int)Math.floorMod(seed, (long)TABLE_LENGTH);
+    }
+
+    @Override
+    public float nextSample()
+    {
+        float sample = TABLE[mPosition++];
+
+        if(mPosition == TABLE_LENGTH)
+        {
+            mPosition = 0;
+        }
+
+        return sample;
+    }
+
+    /**
+     * Copies the next comfort noise samples into the samples array
+     *
+     * @param samples array to receive the comfort noise
+     * @param offset into the samples array for the first sample
+     * @param length number of samples
+     * @param gain to apply to the samples
+     */
+    @Override
+    public void getSamples(float[] samples, int offset, int length, float gain)
+    {
+        while(length > 0)
+        {
+            int count = Math.min(length, TABLE_LENGTH - mPosition);
+
+            for(int x = 0; x < count; x++)
+            {
+                samples[offset + x] = TABLE[mPosition + x] * gain;
+            }
+
+            offset += count;
+            length -= count;
+            mPosition += count;
+
+            if(mPosition == TABLE_LENGTH)
+            {
+                mPosition = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+import jmbe.iface.AudioFrameType;
+
+/**
+ * Decoded audio frame that carries the output of frame decoding (error correction and model parameter
+ * reconstruction) to the synthesizer.  Instances are created by the codec and reused for each frame, so that the
+ * frame decoding and synthesis stages of a pipelined codec can run on separate threads without allocating.
+ */
+public class DecodedFrame
+{
+    private final MBEModelParameters mParameters;
+    private SynthesisAction mAction = SynthesisAction.NOISE;
+    private AudioFrameType mFrameType = AudioFrameType.UNKNOWN;
+    private int mErrorCount;
+    private long mPreviousVoicingMask;
+
+    /**
+     * Constructs an instance
+     *
+     * @param parameters instance to hold a copy of the decoded model parameters
+     */
+    public DecodedFrame(MBEModelParameters parameters)
+    {
+        mParameters = parameters;
+    }
+
+    /**
+     * Model parameters for voice and noise actions
+     */
+    public MBEModelParameters getParameters()
+    {
+        return mParameters;
+    }
+
+    /**
+     * Synthesis action for the frame
+     */
+    public SynthesisAction getAction()
+    {
+        return mAction;
+    }
+
+    /**
+     * Frame type of the decoded frame
+     */
+    public AudioFrameType getFrameType()
+    {
+        return mFrameType;
+    }
+
+    /**
+     * Number of bit errors detected and corrected in the decoded frame
+     */
+    public int getErrorCount()
+    {
+        return mErrorCount;
+    }
+
+    /**
+     * Voicing decisions of the previous frame after decoding this frame.  Frame repeats apply the adaptive smoothing
+     * (Alg #113) to the previous frame's voicing decisions, which are used when synthesizing this frame.
+     */
+    public long getPreviousVoicingMask()
+    {
+        return mPreviousVoicingMask;
+    }
+
+    /**
+     * Sets the voicing decisions of the previous frame after decoding this frame
+     *
+     * @param previousVoicingMask with bit l set for each voiced harmonic l
+     */
+    public void setPreviousVoicingMask(long previousVoicingMask)
+    {
+        mPreviousVoicingMask = previousVoicingMask;
+    }
+
+    /**
+     * Sets the synthesis action and status of the decoded frame
+     *
+     * @param action for synthesizing the frame
+     * @param frameType of the decoded frame
+     * @param errorCount of the decoded frame
+     */
+    public void set(SynthesisAction action, AudioFrameType frameType, int errorCount)
+    {
+        mAction = action;
+        mFrameType = frameType;
+        mErrorCount = errorCount;
+    }
+}
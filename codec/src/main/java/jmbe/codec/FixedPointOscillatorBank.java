@@ -0,0 +1,193 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+import jmbe.codec.imbe.Window;
+
+/**
+ * Fixed-point harmonic oscillator bank for synthesizing the voiced audio component (Alg #127 - #138) using only
+ * integer arithmetic in the per-sample loops.
+ *
+ * Phase angles are 32-bit integers where 2^32 is one full cycle, so phase accumulation wraps without error and
+ * without range reduction.  Cosine values are Q15 and come from a shared 1024 entry table with linear interpolation
+ * on the next 16 bits of the phase.  The synthesis window is Q15 and harmonic gains and the accumulated samples are
+ * 16-bit PCM values with SAMPLE_FRACTION_BITS of fraction (Q4).  Products are formed in 64-bits and rounded back to the
+ * sample format, so that no intermediate value can overflow.
+ *
+ * See VoicedSynthesisMode.FIXED_POINT_OSCILLATORS for the measured accuracy of the fixed-point synthesis mode.
+ */
+public class FixedPointOscillatorBank
+{
+    /**
+     * Fraction bits of the fixed-point sample values and harmonic gains
+     */
+    public static final int SAMPLE_FRACTION_BITS = 4;
+
+    private static final int WINDOW_HALF_LENGTH = 105;
+    private static final int Q15_SHIFT = 15;
+    private static final long Q30_ROUNDING = 1L << 29;
+    private static final long Q23_ROUNDING = 1L << 22;
+    private static final int TABLE_BITS = 10;
+    private static final int TABLE_SHIFT = 32 - TABLE_BITS;
+    private static final int INTERPOLATION_SHIFT = TABLE_SHIFT - 16;
+    private static final int[] COSINE = new int[(1 << TABLE_BITS) + 1];
+    private static final int[] WINDOW = new int[Window.SYNTHESIS.length];
+    private static final double RADIANS_TO_ANGLE = 4294967296.0 / (2.0 * Math.PI);
+
+    //Largest harmonic gain where the sum of two windowed harmonics for each of 56 harmonics cannot overflow
+    private static final int MAXIMUM_GAIN = 1 << 24;
+
+    static
+    {
+        for(int x = 0; x < COSINE.length; x++)
+        {
+            COSINE[x] = (int)Math.round(Math.cos(2.0 * Math.PI * x / (1 << TABLE_BITS)) * (1 << Q15_SHIFT));
+        }
+
+        for(int x = 0; x < WINDOW.length; x++)
+        {
+            WINDOW[x] = Math.round(Window.SYNTHESIS[x] * (1 << Q15_SHIFT));
+        }
+    }
+
+    /**
+     * Static kernels only
+     */
+    private FixedPointOscillatorBank()
+    {
+    }
+
+    /**
+     * Converts an angle in radians to a 32-bit integer angle where 2^32 is one full cycle.
+     *
+     * @param radians to convert
+     * @return integer angle, wrapped to one cycle
+     */
+    public static int toAngle(double radians)
+    {
+        return (int)(long)Math.rint(radians * RADIANS_TO_ANGLE);
+    }
+
+    /**
+     * Converts the harmonic amplitude to a fixed-point harmonic gain of 2.0 * amplitude with SAMPLE_FRACTION_BITS of
+     * fraction, limited to the range that the kernels can accumulate without overflow.
+     *
+     * @param amplitude of the harmonic
+     * @return fixed-point gain
+     */
+    public static int toGain(float amplitude)
+    {
+        float gain = 2.0f * amplitude * (1 << SAMPLE_FRACTION_BITS);
+
+        if(gain >= MAXIMUM_GAIN)
+        {
+            return MAXIMUM_GAIN;
+        }
+        else if(gain <= -MAXIMUM_GAIN)
+        {
+            return -MAXIMUM_GAIN;
+        }
+
+        return Math.round(gain);
+    }
+
+    /**
+     * Q15 cosine of the integer angle
+     *
+     * @param angle where 2^32 is one full cycle
+     * @return cosine scaled by 2^15
+     */
+    public static int cosine(int angle)
+    {
+        int index = angle >>> TABLE_SHIFT;
+        int fraction = (angle >>> INTERPOLATION_SHIFT) & 0xFFFF;
+        int value = COSINE[index];
+        return value + (((COSINE[index + 1] - value) * fraction) >> 16);
+    }
+
+    /**
+     * Adds a constant frequency harmonic that is weighted by the synthesis window (Alg #131, #132 and #133):
+     *
+     * samples[n] += gain * ws(n + windowOffset) * cos(phase + frequency * (n + windowOffset))
+     *
+     * Only samples where the synthesis window is non-zero are processed.
+     *
+     * @param samples to accumulate the harmonic into, with SAMPLE_FRACTION_BITS of fraction
+     * @param sampleCount number of samples to process
+     * @param gain of the harmonic from toGain()
+     * @param phase of the harmonic at sample index -windowOffset as an integer angle
+     * @param frequency of the harmonic as an integer angle per sample
+     * @param windowOffset applied to the sample index to access the synthesis window (0 for the previous frame and
+     * -N for the current frame)
+     */
+    public static void addWindowedHarmonic(int[] samples, int sampleCount, int gain, int phase, int frequency,
+                                           int windowOffset)
+    {
+        int start = Math.max(0, -WINDOW_HALF_LENGTH - windowOffset);
+        int end = Math.min(sampleCount, WINDOW_HALF_LENGTH + 1 - windowOffset);
+
+        int angle = phase + (frequency * (start + windowOffset));
+        int windowIndex = start + windowOffset + WINDOW_HALF_LENGTH;
+
+        for(int n = start; n < end; n++)
+        {
+            //Window and cosine product is Q30
+            int windowed = WINDOW[windowIndex++] * cosine(angle);
+            samples[n] += (int)(((long)gain * windowed + Q30_ROUNDING) >> (2 * Q15_SHIFT));
+            angle += frequency;
+        }
+    }
+
+    /**
+     * Adds a harmonic with linearly interpolated amplitude (Alg #135) and quadratic phase (Alg #136):
+     *
+     * samples[n] += (previousGain + (n / sampleCount) * (currentGain - previousGain)) *
+     *               cos(phase + frequency * n + chirp * n * n)
+     *
+     * The phase increment from sample n to n + 1 is frequency + chirp * (2n + 1), which is stepped by 2 * chirp each
+     * sample.
+     *
+     * @param samples to accumulate the harmonic into, with SAMPLE_FRACTION_BITS of fraction
+     * @param sampleCount number of samples to process
+     * @param previousGain of the harmonic at the start of the frame from toGain()
+     * @param currentGain of the harmonic at the end of the frame from toGain()
+     * @param phase of the harmonic at sample index 0 as an integer angle
+     * @param frequency linear phase term as an integer angle per sample
+     * @param chirp quadratic phase term as an integer angle per sample squared
+     */
+    public static void addInterpolatedHarmonic(int[] samples, int sampleCount, int previousGain, int currentGain,
+                                               int phase, int frequency, int chirp)
+    {
+        //Amplitude is interpolated with 8 additional fraction bits (Q12)
+        long amplitude = (long)previousGain << 8;
+        long amplitudeIncrement = ((long)(currentGain - previousGain) << 8) / sampleCount;
+        int angle = phase;
+        int increment = frequency + chirp;
+        int incrementStep = chirp << 1;
+
+        for(int n = 0; n < sampleCount; n++)
+        {
+            samples[n] += (int)((amplitude * cosine(angle) + Q23_ROUNDING) >> (Q15_SHIFT + 8));
+            amplitude += amplitudeIncrement;
+            angle += increment;
+            increment += incrementStep;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+/**
+ * Fixed-point spectral amplitude enhancement (Alg #105 - #110) for the FIXED_POINT_OSCILLATORS synthesis mode, using only
+ * integer arithmetic in place of the floating point cosine, power and square root calculations.
+ *
+ * The enhancement weights and the energy correction only depend on the ratios of the spectral amplitudes, so each
+ * frame's amplitudes are block scaled by a power of 2 so that the largest amplitude is a 23-bit integer.  Sums of
+ * squares are formed in 64-bits, harmonic cosines are Q15 from the FixedPointOscillatorBank table, the weights are
+ * Q16 and fourth and square roots are integer square roots.  The enhanced amplitudes are scaled back by the same
+ * power of 2.
+ */
+public class FixedPointSpectralEnhancer
+{
+    private static final int AMPLITUDE_EXPONENT = 22;
+    private static final int Q15_SHIFT = 15;
+    private static final int Q16_SHIFT = 16;
+    private static final int Q24_SHIFT = 24;
+    private static final int Q32_SHIFT = 32;
+    private static final long Q48_ONE = 1L << 48;
+
+    //Q16 numerator of the 0.96 * PI / w0 weight term (Alg #107) for a fundamental frequency that is an integer angle
+    private static final long WEIGHT_NUMERATOR = Math.round(0.48 * (1L << 48));
+
+    //Alg #108 weight limits 1.2 and 0.5 raised to the fourth power (Q16) and the 1.2 limit (Q24)
+    private static final long WEIGHT_MAXIMUM_FOURTH_POWER = Math.round(1.2 * 1.2 * 1.2 * 1.2 * (1 << Q16_SHIFT));
+    private static final long WEIGHT_MINIMUM_FOURTH_POWER = Math.round(0.5 * 0.5 * 0.5 * 0.5 * (1 << Q16_SHIFT));
+    private static final long WEIGHT_MAXIMUM = Math.round(1.2 * (1 << Q24_SHIFT));
+
+    /**
+     * Static methods only
+     */
+    private FixedPointSpectralEnhancer()
+    {
+    }
+
+    /**
+     * Generates the enhanced spectral amplitudes from the spectral amplitudes (Alg #105 - #110).
+     *
+     * @param amplitudes spectral amplitudes for harmonics 1 - L
+     * @param enhanced array to receive the enhanced spectral amplitudes.  All other elements are set to zero.
+     * @param L number of harmonics
+     * @param fundamental frequency as an integer angle from FixedPointOscillatorBank.toAngle()
+     * @return RM0, the sum of the squared spectral amplitudes, or zero if all amplitudes are zero
+     */
+    public static float enhance(float[] amplitudes, float[] enhanced, int L, int fundamental)
+    {
+        float maximum = 0.0f;
+
+        for(int l = 1; l <= L; l++)
+        {
+            maximum = Math.max(maximum, amplitudes[l]);
+        }
+
+        for(int x = 0; x < enhanced.length; x++)
+        {
+            enhanced[x] = 0.0f;
+        }
+
+        if(maximum <= 0.0f)
+        {
+            return 0.0f;
+        }
+
+        //Block scale so that the largest amplitude is in the range 2^22 - 2^23
+        int scale = AMPLITUDE_EXPONENT - Math.getExponent(maximum);
+
+        /* Algorithm #105 and #106 - calculate RM0 and RM1 from amplitudes */
+        long rm0 = 0;
+        long rm1 = 0;
+
+        for(int l = 1; l <= L; l++)
+        {
+            long m = toFixed(amplitudes[l], scale);
+            long squared = m * m;
+            rm0 += squared;
+            rm1 += (squared * FixedPointOscillatorBank.cosine(fundamental * l)) >> Q15_SHIFT;
+        }
+
+        //RM1 / RM0 as Q24.  Both sums are less than 2^52 and RM0 is at least 2^44 from the block scaling.
+        long r = ((rm1 >> 13) << Q24_SHIFT) / (rm0 >> 13);
+        long rSquared = r * r;
+        long denominator = (Q48_ONE - rSquared) >> Q24_SHIFT;
+        long weight = fundamental > 0 ? WEIGHT_NUMERATOR / fundamental : 0;
+        long energy = 0;
+
+        for(int l = 1; l <= L; l++)
+        {
+            long m = toFixed(amplitudes[l], scale);
+            long e;
+
+            if((8 * l) <= L)
+            {
+                e = m;
+            }
+            else
+            {
+                /* Algorithm #107 - calculate enhancement weights (W), as W^4 in Q16:
+                 * W^4 = (0.96 * PI / w0) * (M^2 / RM0) * (1 + r^2 - 2 * r * cos(w0 * l)) / (1 - r^2) */
+                long weightFourthPower;
+
+                //A zero fundamental frequency or RM1 equal to RM0 makes the weight infinite
+                if(weight == 0 || denominator <= 0)
+                {
+                    weightFourthPower = Long.MAX_VALUE;
+                }
+                else
+                {
+                    //Spectral ratio is Q24 and the weighted amplitude ratio is Q32
+                    long numerator = Math.max(0, Q48_ONE + rSquared -
+                        ((r * FixedPointOscillatorBank.cosine(fundamental * l)) << 10));
+                    long spectralRatio = numerator / denominator;
+                    long amplitudeRatio = ((m * m) << Q16_SHIFT) / (rm0 >> Q16_SHIFT);
+                    long product = (amplitudeRatio * weight) >> Q16_SHIFT;
+
+                    if(product != 0 && spectralRatio > (Long.MAX_VALUE >> 1) / product)
+                    {
+                        weightFourthPower = Long.MAX_VALUE;
+                    }
+                    else
+                    {
+                        weightFourthPower = (product * spectralRatio) >> (Q32_SHIFT + Q24_SHIFT - Q16_SHIFT);
+                    }
+                }
+
+                /* Algorithm #108 - apply weights to produce enhanced amplitudes, with W as Q24 */
+                if(weightFourthPower > WEIGHT_MAXIMUM_FOURTH_POWER)
+                {
+                    e = ((m * WEIGHT_MAXIMUM) + (1L << (Q24_SHIFT - 1))) >> Q24_SHIFT;
+                }
+                else if(weightFourthPower < WEIGHT_MINIMUM_FOURTH_POWER)
+                {
+                    e = (m + 1) >> 1;
+                }
+                else
+                {
+                    long squareRoot = sqrt(weightFourthPower << Q32_SHIFT);
+                    long w = sqrt(squareRoot << Q24_SHIFT);
+                    e = ((m * w) + (1L << (Q24_SHIFT - 1))) >> Q24_SHIFT;
+                }
+            }
+
+            //The integer enhanced amplitude is at most 24 bits, so it is held exactly in the float array until the
+            // energy differential is removed
+            enhanced[l] = e;
+            energy += e * e;
+        }
+
+        /* Algorithm #109 - remove energy differential of enhanced amplitudes, with y as Q16.  Both sums are less than
+         * 2^53 and at least 2^42, so 21 bits can be dropped from both. */
+        long y = sqrt(((rm0 >> 21) << Q32_SHIFT) / Math.max(1, energy >> 21));
+
+        /* Algorithm #110 - scale enhanced amplitudes to remove energy differential */
+        for(int l = 1; l <= L; l++)
+        {
+            long e = (((long)enhanced[l] * y) + (1L << (Q16_SHIFT - 1))) >> Q16_SHIFT;
+            enhanced[l] = Math.scalb((float)e, -scale);
+        }
+
+        return Math.scalb((float)rm0, -2 * scale);
+    }
+
+    /**
+     * Converts the amplitude to an integer, block scaled by 2^scale
+     */
+    private static long toFixed(float amplitude, int scale)
+    {
+        return (long)(Math.scalb(amplitude, scale) + 0.5f);
+    }
+
+    /**
+     * Integer square root
+     *
+     * @param value to evaluate, zero or positive
+     * @return largest integer that is less than or equal to the square root of the value
+     */
+    public static long sqrt(long value)
+    {
+        if(value <= 0)
+        {
+            return 0;
+        }
+
+        long root = 0;
+        long bit = 1L << ((63 - Long.numberOfLeadingZeros(value)) & ~1);
+
+        while(bit != 0)
+        {
+            if(value >= root + bit)
+            {
+                value -= root + bit;
+                root = (root >> 1) + bit;
+            }
+            else
+            {
+                root >>= 1;
+            }
+
+            bit >>= 2;
+        }
+
+        return root;
+    }
+}
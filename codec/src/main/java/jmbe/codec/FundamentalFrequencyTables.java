@@ -0,0 +1,176 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+/**
+ * Immutable synthesis tables for a fundamental frequency and harmonic count (L).
+ *
+ * Band edges (Alg #122 and #123), the DFT bin to frequency band map and the per-harmonic frequency, cosine and sine
+ * values depend only on the fundamental frequency, so they are computed once per fundamental frequency enumeration
+ * entry and shared by all codec instances, instead of being recomputed for every frame.  Values are evaluated with the
+ * same expressions as the per-frame calculations that they replace, so synthesis output is unchanged.
+ *
+ * Arrays returned by the accessor methods are shared and must not be modified.
+ */
+public final class FundamentalFrequencyTables
+{
+    /**
+     * Number of 256-point DFT bins covered by the frequency bands (0 - 127)
+     */
+    public static final int DFT_BIN_COUNT = 128;
+
+    private static final float TWO56_OVER_TWO_PI = 256.0f / ((float)Math.PI * 2.0f);
+
+    private final float mFrequency;
+    private final int mL;
+    private final int[] mBandEdgeMinimums;
+    private final int[] mBandEdgeMaximums;
+    private final int[] mBinBands;
+    private final int[] mInterleavedBinBands;
+    private final float[] mHarmonicFrequencies;
+    private final double[] mHarmonicCosines;
+    private final double[] mHarmonicSines;
+
+    /**
+     * Constructs the tables.  Use IFundamentalFrequency.getTables() to access the shared tables for a fundamental
+     * frequency entry.
+     *
+     * @param frequency fundamental frequency in radians per sample
+     * @param L number of harmonics
+     */
+    public FundamentalFrequencyTables(float frequency, int L)
+    {
+        if(L < 0 || L > MBEModelParameters.MAX_L)
+        {
+            throw new IllegalArgumentException("Harmonic count L must be in range 0 - " + MBEModelParameters.MAX_L +
+                ".  Unrecognized: " + L);
+        }
+
+        mFrequency = frequency;
+        mL = L;
+        mBandEdgeMinimums = new int[L + 1];
+        mBandEdgeMaximums = new int[L + 1];
+        mBinBands = new int[DFT_BIN_COUNT];
+        mInterleavedBinBands = new int[DFT_BIN_COUNT * 2];
+        mHarmonicFrequencies = new float[L + 1];
+        mHarmonicCosines = new double[L + 1];
+        mHarmonicSines = new double[L + 1];
+
+        float multiplier = TWO56_OVER_TWO_PI * frequency;
+
+        for(int l = 1; l <= L; l++)
+        {
+            //Alg #122 & #123
+            mBandEdgeMinimums[l] = (int)Math.ceil(((float)l - 0.5f) * multiplier);
+            mBandEdgeMaximums[l] = (int)Math.ceil(((float)l + 0.5f) * multiplier);
+
+            //Bands are contiguous, so each DFT bin belongs to at most one band.  Bins outside of the bands stay at 0.
+            for(int n = Math.max(mBandEdgeMinimums[l], 0); n < Math.min(mBandEdgeMaximums[l], DFT_BIN_COUNT); n++)
+            {
+                mBinBands[n] = l;
+            }
+
+            mHarmonicFrequencies[l] = frequency * (float)l;
+            mHarmonicCosines[l] = Math.cos(mHarmonicFrequencies[l]);
+            mHarmonicSines[l] = Math.sin(mHarmonicFrequencies[l]);
+        }
+
+        for(int n = 0; n < DFT_BIN_COUNT; n++)
+        {
+            mInterleavedBinBands[2 * n] = mBinBands[n];
+            mInterleavedBinBands[2 * n + 1] = mBinBands[n];
+        }
+    }
+
+    /**
+     * Fundamental frequency
+     *
+     * @return frequency in radians per sample
+     */
+    public float getFrequency()
+    {
+        return mFrequency;
+    }
+
+    /**
+     * Number of harmonics (frequency bands)
+     */
+    public int getL()
+    {
+        return mL;
+    }
+
+    /**
+     * Minimum 256-point DFT index for each of the L frequency bands at array indexes 1 - L (Alg #122)
+     */
+    public int[] getBandEdgeMinimums()
+    {
+        return mBandEdgeMinimums;
+    }
+
+    /**
+     * Maximum (exclusive) 256-point DFT index for each of the L frequency bands at array indexes 1 - L (Alg #123)
+     */
+    public int[] getBandEdgeMaximums()
+    {
+        return mBandEdgeMaximums;
+    }
+
+    /**
+     * Frequency band (1 - L) for each of the 128 lower DFT bins, or 0 when the bin is outside of all bands (Alg #124)
+     */
+    public int[] getBinBands()
+    {
+        return mBinBands;
+    }
+
+    /**
+     * Frequency band (1 - L) for each of the 256 interleaved real and imaginary values of the 128 lower DFT bins, or 0
+     * when the bin is outside of all bands.  Entries 2n and 2n + 1 are the band of DFT bin n.
+     */
+    public int[] getInterleavedBinBands()
+    {
+        return mInterleavedBinBands;
+    }
+
+    /**
+     * Frequency of each harmonic (w0 * l) in radians per sample at array indexes 1 - L
+     */
+    public float[] getHarmonicFrequencies()
+    {
+        return mHarmonicFrequencies;
+    }
+
+    /**
+     * Cosine of each harmonic frequency (cos(w0 * l)) at array indexes 1 - L
+     */
+    public double[] getHarmonicCosines()
+    {
+        return mHarmonicCosines;
+    }
+
+    /**
+     * Sine of each harmonic frequency (sin(w0 * l)) at array indexes 1 - L
+     */
+    public double[] getHarmonicSines()
+    {
+        return mHarmonicSines;
+    }
+}
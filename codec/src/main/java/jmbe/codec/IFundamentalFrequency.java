@@ -37,4 +37,9 @@ public interface IFundamentalFrequency
      * Indicates the type of frame
      */
     FrameType getFrameType();
+
+    /**
+     * Synthesis tables for this fundamental frequency, built on first access and shared by all codec instances
+     */
+    FundamentalFrequencyTables getTables();
 }
@@ -0,0 +1,51 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+/**
+ * Source of uniformly distributed white noise samples.  Implementations are not thread safe and each instance should
+ * be used by a single synthesizer or noise generator.
+ */
+public interface INoiseSource
+{
+    /**
+     * Next white noise sample
+     *
+     * @return sample in range -1.0 <> 1.0
+     */
+    float nextSample();
+
+    /**
+     * Fills the samples array with white noise samples scaled by the gain
+     *
+     * @param samples array to receive the white noise
+     * @param offset into the samples array for the first sample
+     * @param length number of samples to generate
+     * @param gain to apply to the samples
+     */
+    void getSamples(float[] samples, int offset, int length, float gain);
+
+    /**
+     * Sets the seed for the noise sequence, so that the sequence of samples that follows is reproducible.
+     *
+     * @param seed value
+     */
+    void setSeed(long seed);
+}
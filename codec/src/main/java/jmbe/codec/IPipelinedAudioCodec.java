@@ -0,0 +1,63 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+import jmbe.iface.IAudioCodec;
+
+/**
+ * Audio codec that splits the decoding of each frame into two stages that can run on separate threads: frame
+ * decoding (deinterleave, error correction and model parameter reconstruction) and audio synthesis.
+ *
+ * Each stage holds its own previous frame state.  Frames must be passed to decode() and then to synthesize() in the
+ * same order, with at most one thread in each stage at a time.  Do not mix the two stage methods with the single
+ * stage decode methods on the same instance without an intervening reset().
+ */
+public interface IPipelinedAudioCodec extends IAudioCodec
+{
+    /**
+     * Length in bytes of each audio frame
+     */
+    int getFrameLength();
+
+    /**
+     * Creates a reusable decoded frame for handing frames from the decode stage to the synthesis stage
+     */
+    DecodedFrame createDecodedFrame();
+
+    /**
+     * Decode stage: decodes the audio frame that starts at the offset in the frame array into the decoded frame
+     *
+     * @param frame array containing the audio frame
+     * @param offset to the first byte of the audio frame in the frame array
+     * @param decoded frame to receive the synthesis action and model parameters
+     */
+    void decode(byte[] frame, int offset, DecodedFrame decoded);
+
+    /**
+     * Synthesis stage: synthesizes one frame of audio from the decoded frame into the out array.  The number of
+     * samples is getSamplesPerFrame(), e.g. 160 at 8 kHz or 960 at 48 kHz.
+     *
+     * @param decoded frame from the decode stage
+     * @param out array to receive the decoded audio samples
+     * @param outOffset to the first sample position in the out array
+     * @return number of samples written to the out array
+     */
+    int synthesize(DecodedFrame decoded, float[] out, int outOffset);
+}
@@ -0,0 +1,81 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Shared inverse discrete cosine transform basis matrices used to reconstruct the gain vector and the higher order
+ * spectral amplitude coefficient blocks (IMBE Alg #69 - #74, AMBE Alg #27 - #39).
+ *
+ * The basis for block length J holds cos(PI * (k - 1) * (j - 0.5) / J) at [j][k] for j and k in the range 1 - J, so
+ * that the inverse DCT reduces to multiply and add operations against the cached matrix.  Matrices are created on
+ * first use of each block length and are shared by all codec instances.
+ */
+public class InverseDCT
+{
+    /**
+     * Maximum supported block length
+     */
+    public static final int MAX_BLOCK_LENGTH = MBEModelParameters.MAX_L;
+
+    private static final AtomicReferenceArray<float[][]> BASIS = new AtomicReferenceArray<>(MAX_BLOCK_LENGTH + 1);
+
+    private InverseDCT()
+    {
+    }
+
+    /**
+     * Inverse DCT basis matrix for the block length.
+     *
+     * @param J block length in range 0 - MAX_BLOCK_LENGTH
+     * @return basis matrix with cos(PI * (k - 1) * (j - 0.5) / J) at [j][k] for j and k in range 1 - J.  Do not modify.
+     */
+    public static float[][] getBasis(int J)
+    {
+        if(J < 0 || J > MAX_BLOCK_LENGTH)
+        {
+            throw new IllegalArgumentException("Block length J must be in range 0 - " + MAX_BLOCK_LENGTH +
+                ".  Unrecognized: " + J);
+        }
+
+        float[][] basis = BASIS.get(J);
+
+        if(basis == null)
+        {
+            basis = new float[J + 1][J + 1];
+
+            for(int j = 1; j <= J; j++)
+            {
+                for(int k = 1; k <= J; k++)
+                {
+                    basis[j][k] = (float)Math.cos((Math.PI * (double)(k - 1) * ((double)j - 0.5)) / (double)J);
+                }
+            }
+
+            if(!BASIS.compareAndSet(J, null, basis))
+            {
+                basis = BASIS.get(J);
+            }
+        }
+
+        return basis;
+    }
+}
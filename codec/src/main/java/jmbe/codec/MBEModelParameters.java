@@ -19,27 +19,40 @@
 
 package jmbe.codec;
 
+import java.util.Arrays;
+
 /**
  * Base Multi-Band Excitation (MBE) voice frame model parameters required to synthesize an audio frame.
  */
 public abstract class MBEModelParameters
 {
+    /**
+     * Maximum number of harmonics (L) for IMBE and AMBE frames.  Parameter arrays hold the values for harmonics 1 - L
+     * at array indexes 1 - L and are sized to hold the maximum number of harmonics, so that they can be reused across
+     * frames.
+     */
+    public static final int MAX_L = 56;
+
     private static final float PI_96 = 0.96f * (float)Math.PI;
-    private float mLocalEnergy = 75000.0f;
-    private int mAmplitudeThreshold = 20480;
-    private boolean[] mVoicingDecisions;
-    private float[] mLog2SpectralAmplitudes;
-    protected float[] mSpectralAmplitudes;
-    protected float[] mEnhancedSpectralAmplitudes;
+    private static final float DEFAULT_LOCAL_ENERGY = 75000.0f;
+    private static final int DEFAULT_AMPLITUDE_THRESHOLD = 20480;
+    private float mLocalEnergy = DEFAULT_LOCAL_ENERGY;
+    private int mAmplitudeThreshold = DEFAULT_AMPLITUDE_THRESHOLD;
+    private long mVoicingMask;
+    private final float[] mLog2SpectralAmplitudes = new float[MAX_L + 1];
+    protected final float[] mSpectralAmplitudes = new float[MAX_L + 1];
+    protected final float[] mEnhancedSpectralAmplitudes = new float[MAX_L + 1];
     private float mErrorRate;
     private int mErrorCount;
     private int mErrorCount4;
     private int mRepeatCount = 0;
+    private boolean mFixedPointEnhancement;
 
     private IFundamentalFrequency mMBEFundamentalFrequency;
     private FrameType mFrameType;
     private float mFundamentalFrequency;
     private int mL;
+    private FundamentalFrequencyTables mTables;
 
     /**
      * Constructs an instance
@@ -51,6 +64,51 @@ public abstract class MBEModelParameters
         setMBEFundamentalFrequency(mbeFundamentalFrequency);
     }
 
+    /**
+     * Resets all parameters to the initial (constructed) state for reuse with the specified fundamental frequency.
+     * Voicing decisions are set to unvoiced and all amplitudes are set to zero.
+     */
+    protected void resetParameters(IFundamentalFrequency mbeFundamentalFrequency)
+    {
+        setMBEFundamentalFrequency(mbeFundamentalFrequency);
+        mLocalEnergy = DEFAULT_LOCAL_ENERGY;
+        mAmplitudeThreshold = DEFAULT_AMPLITUDE_THRESHOLD;
+        mErrorRate = 0.0f;
+        mErrorCount = 0;
+        mErrorCount4 = 0;
+        mRepeatCount = 0;
+        mVoicingMask = 0L;
+        Arrays.fill(mLog2SpectralAmplitudes, 0.0f);
+        Arrays.fill(mSpectralAmplitudes, 0.0f);
+        Arrays.fill(mEnhancedSpectralAmplitudes, 0.0f);
+    }
+
+    /**
+     * Copies the complete model parameter state from the source parameters, so that a parameter set decoded on one
+     * thread can be handed to the synthesizer on another thread.  This differs from a frame repeat copy, which only
+     * carries selected parameters forward and updates the repeat count.
+     *
+     * @param source parameters to copy
+     */
+    public void copyParameters(MBEModelParameters source)
+    {
+        mMBEFundamentalFrequency = source.mMBEFundamentalFrequency;
+        mFrameType = source.mFrameType;
+        mFundamentalFrequency = source.mFundamentalFrequency;
+        mL = source.mL;
+        mTables = source.mTables;
+        mLocalEnergy = source.mLocalEnergy;
+        mAmplitudeThreshold = source.mAmplitudeThreshold;
+        mVoicingMask = source.mVoicingMask;
+        mErrorRate = source.mErrorRate;
+        mErrorCount = source.mErrorCount;
+        mErrorCount4 = source.mErrorCount4;
+        mRepeatCount = source.mRepeatCount;
+        System.arraycopy(source.mLog2SpectralAmplitudes, 0, mLog2SpectralAmplitudes, 0, MAX_L + 1);
+        System.arraycopy(source.mSpectralAmplitudes, 0, mSpectralAmplitudes, 0, MAX_L + 1);
+        System.arraycopy(source.mEnhancedSpectralAmplitudes, 0, mEnhancedSpectralAmplitudes, 0, MAX_L + 1);
+    }
+
     /**
      * Sets or changes the fundamental frequency
      */
@@ -60,6 +118,8 @@ public abstract class MBEModelParameters
         mFrameType = mbeFundamentalFrequency.getFrameType();
         mFundamentalFrequency = mbeFundamentalFrequency.getFrequency();
         mL = mbeFundamentalFrequency.getL();
+        mTables = mbeFundamentalFrequency.getTables();
+        mVoicingMask &= getBandMask();
     }
 
     /**
@@ -85,6 +145,7 @@ public abstract class MBEModelParameters
     public void setFundamentalFrequency(float frequency)
     {
         mFundamentalFrequency = frequency;
+        mTables = new FundamentalFrequencyTables(mFundamentalFrequency, mL);
     }
 
     /**
@@ -98,6 +159,17 @@ public abstract class MBEModelParameters
     public void setL(int L)
     {
         mL = L;
+        mTables = new FundamentalFrequencyTables(mFundamentalFrequency, mL);
+        mVoicingMask &= getBandMask();
+    }
+
+    /**
+     * Synthesis tables for the fundamental frequency and number of frequency bands.  Tables for the fundamental
+     * frequency entries are shared.  Explicitly setting the fundamental frequency or L creates a private set of tables.
+     */
+    public FundamentalFrequencyTables getTables()
+    {
+        return mTables;
     }
 
     /**
@@ -116,58 +188,169 @@ public abstract class MBEModelParameters
     }
 
     /**
-     * Voicing decisions array for each of the L frequency bands.
+     * Voicing decisions for each of the L frequency bands as a bit mask where bit l is set when band l is voiced.  Bit
+     * 0 and the bits above L are always clear.
+     */
+    public long getVoicingMask()
+    {
+        return mVoicingMask;
+    }
+
+    /**
+     * Sets the voicing decisions from a bit mask where bit l is set when band l is voiced.  Bit 0 and bits above the
+     * current L are ignored, so the fundamental frequency must be set before the voicing decisions.
+     */
+    public void setVoicingMask(long voicingMask)
+    {
+        mVoicingMask = voicingMask & getBandMask();
+    }
+
+    /**
+     * Indicates if frequency band l is voiced
+     *
+     * @param l frequency band in range 1 - L
+     */
+    public boolean isVoiced(int l)
+    {
+        return ((mVoicingMask >>> l) & 1L) != 0;
+    }
+
+    /**
+     * Sets the voicing decision for frequency band l
+     *
+     * @param l frequency band in range 1 - L
+     * @param voiced true if the band is voiced
+     */
+    public void setVoiced(int l, boolean voiced)
+    {
+        if(voiced)
+        {
+            mVoicingMask |= (1L << l) & getBandMask();
+        }
+        else
+        {
+            mVoicingMask &= ~(1L << l);
+        }
+    }
+
+    /**
+     * Voicing decisions array for each of the L frequency bands.  The array is sized for the maximum L and array
+     * indexes above L are always false.  Note: the array is a copy of the voicing mask.  Use getVoicingMask() or
+     * isVoiced() to avoid the array allocation.
      *
      * @return array indicating which bands are voiced (ie true).
      */
     public boolean[] getVoicingDecisions()
     {
-        return mVoicingDecisions;
+        boolean[] voicingDecisions = new boolean[MAX_L + 1];
+
+        for(int l = 1; l <= mL; l++)
+        {
+            voicingDecisions[l] = isVoiced(l);
+        }
+
+        return voicingDecisions;
     }
 
+    /**
+     * Sets this frame's voicing decisions from the voicing decisions array indexes 1 - L.
+     */
     public void setVoicingDecisions(boolean[] voicingDecisions)
     {
-        mVoicingDecisions = voicingDecisions;
+        long voicingMask = 0L;
+
+        for(int l = 1; l < voicingDecisions.length; l++)
+        {
+            if(voicingDecisions[l])
+            {
+                voicingMask |= (1L << l);
+            }
+        }
+
+        setVoicingMask(voicingMask);
     }
 
     /**
-     * Log2 spectral amplitudes
+     * Bit mask with bits 1 - L set
+     */
+    private long getBandMask()
+    {
+        return ((1L << mL) - 1L) << 1;
+    }
+
+    /**
+     * Log2 spectral amplitudes.  The array is sized for the maximum L.
      */
     public float[] getLog2SpectralAmplitudes()
     {
         return mLog2SpectralAmplitudes;
     }
 
+    /**
+     * Copies the log2 spectral amplitudes into this frame's log2 spectral amplitudes array.
+     */
     public void setLog2SpectralAmplitudes(float[] log2SpectralAmplitudes)
     {
-        mLog2SpectralAmplitudes = log2SpectralAmplitudes;
+        copy(log2SpectralAmplitudes, mLog2SpectralAmplitudes);
     }
 
     /**
-     * (Unenhanced) Spectral amplitudes
+     * (Unenhanced) Spectral amplitudes.  The array is sized for the maximum L.
      */
     public float[] getSpectralAmplitudes()
     {
         return mSpectralAmplitudes;
     }
 
+    /**
+     * Copies the spectral amplitudes into this frame's spectral amplitudes array and generates the enhanced spectral
+     * amplitudes.  The spectral amplitudes argument can be this frame's own spectral amplitudes array, after it has
+     * been updated in place.
+     */
     public void setSpectralAmplitudes(float[] spectralAmplitudes, float previousLocalEnergy, int previousAmplitudeThreshold)
     {
-        mSpectralAmplitudes = spectralAmplitudes;
+        copy(spectralAmplitudes, mSpectralAmplitudes);
         enhanceSpectralAmplitudes(previousLocalEnergy, previousAmplitudeThreshold);
     }
 
     /**
-     * Enhances Spectral amplitudes
+     * Indicates if the enhanced spectral amplitudes are generated with integer arithmetic
+     */
+    public boolean isFixedPointEnhancement()
+    {
+        return mFixedPointEnhancement;
+    }
+
+    /**
+     * Selects integer arithmetic (FixedPointSpectralEnhancer) or floating point arithmetic for generating the
+     * enhanced spectral amplitudes (Alg #105 - #110) of subsequent frames loaded into this instance.  Defaults to
+     * floating point.
+     *
+     * @param fixedPoint true to use integer arithmetic
+     */
+    public void setFixedPointEnhancement(boolean fixedPoint)
+    {
+        mFixedPointEnhancement = fixedPoint;
+    }
+
+    /**
+     * Enhanced spectral amplitudes.  The array is sized for the maximum L.
      */
     public float[] getEnhancedSpectralAmplitudes()
     {
         return mEnhancedSpectralAmplitudes;
     }
 
-    protected void setEnhancedSpectralAmplitudes(float[] enhancedSpectralAmplitudes)
+    /**
+     * Copies the source array into the destination array and clears any remaining destination array elements.
+     */
+    private static void copy(float[] source, float[] destination)
     {
-        mEnhancedSpectralAmplitudes = enhancedSpectralAmplitudes;
+        if(source != destination)
+        {
+            System.arraycopy(source, 0, destination, 0, source.length);
+            Arrays.fill(destination, source.length, destination.length, 0.0f);
+        }
     }
 
     /**
@@ -270,33 +453,23 @@ public abstract class MBEModelParameters
      */
     public boolean hasVoicedBands()
     {
-        for(boolean voiced : getVoicingDecisions())
-        {
-            if(voiced)
-            {
-                return true;
-            }
-        }
+        return mVoicingMask != 0L;
+    }
 
-        return false;
+    /**
+     * Indicates if any of the L frequency bands are unvoiced
+     */
+    public boolean hasUnvoicedBands()
+    {
+        return mVoicingMask != getBandMask();
     }
 
     /**
-     * Count of the unvoiced bands in this frame
+     * Count of the unvoiced bands in this frame.  Note: the count includes the unused array index 0.
      */
     public int getUnvoicedBandCount()
     {
-        int unvoiced = 0;
-
-        for(boolean voiced: getVoicingDecisions())
-        {
-            if(!voiced)
-            {
-                unvoiced++;
-            }
-        }
-
-        return unvoiced;
+        return mL + 1 - Long.bitCount(mVoicingMask);
     }
 
     /**
@@ -314,61 +487,93 @@ public abstract class MBEModelParameters
      * @param previousAmplitudeThreshold from previous frame's voice parameters
      */
     private void enhanceSpectralAmplitudes(float previousLocalEnergy, int previousAmplitudeThreshold)
+    {
+        float rm0;
+
+        if(mFixedPointEnhancement)
+        {
+            rm0 = FixedPointSpectralEnhancer.enhance(mSpectralAmplitudes, mEnhancedSpectralAmplitudes, getL(),
+                FixedPointOscillatorBank.toAngle(getFundamentalFrequency()));
+        }
+        else
+        {
+            rm0 = applyEnhancementWeights();
+        }
+
+        if(rm0 == 0.0f)
+        {
+            return;
+        }
+
+        /* Algorithm #111 - calculate local energy */
+        mLocalEnergy = (0.95f * previousLocalEnergy) + (0.05f * rm0);
+
+        if(mLocalEnergy < 10000.0f)
+        {
+            mLocalEnergy = 10000.0f;
+        }
+
+        applyAdaptiveSmoothing(previousAmplitudeThreshold);
+    }
+
+    /**
+     * Generates the enhanced spectral amplitudes with floating point arithmetic (Alg #105 - #110)
+     *
+     * @return RM0, the sum of the squared spectral amplitudes, or zero if all amplitudes are zero
+     */
+    private float applyEnhancementWeights()
     {
         /* Algorithm #105 and #106 - calculate RM0 and RM1 from amplitudes */
-        float[] RM = new float[2];
+        float rm0 = 0.0f;
+        float rm1 = 0.0f;
 
-        float[] spectralAmplitudes = getSpectralAmplitudes();
+        float[] spectralAmplitudes = mSpectralAmplitudes;
+        float[] enhancedSpectralAmplitudes = mEnhancedSpectralAmplitudes;
 
         int L = getL();
+        double[] cosines = getTables().getHarmonicCosines();
 
         for(int l = 1; l <= L; l++)
         {
             float amplitudesSquared = spectralAmplitudes[l] * spectralAmplitudes[l];
-            RM[0] += amplitudesSquared;
-            RM[1] += (amplitudesSquared * Math.cos(getFundamentalFrequency() * (float)l));
+            rm0 += amplitudesSquared;
+            rm1 += (amplitudesSquared * cosines[l]);
         }
 
-        float[] W = new float[L + 1];
+        float rm0squared = rm0 * rm0;
+        float rm1squared = rm1 * rm1;
 
-        float rm0squared = RM[0] * RM[0];
-        float rm1squared = RM[1] * RM[1];
+        Arrays.fill(enhancedSpectralAmplitudes, 0.0f);
 
-        float[] enhancedSpectralAmplitudes = new float[L + 1];
-
-        if(RM[0] == 0.0f)
+        if(rm0 == 0.0f)
         {
-            setEnhancedSpectralAmplitudes(enhancedSpectralAmplitudes);
-            return;
+            return rm0;
         }
 
-        /* Algorithm #107 - calculate enhancement weights (W) */
-        for(int l = 1; l <= getL(); l++)
+        for(int l = 1; l <= L; l++)
         {
+            /* Algorithm #107 - calculate enhancement weights (W) */
             float temp = (PI_96 * (rm0squared + rm1squared -
-                (2.0f * RM[0] * RM[1] * (float)Math.cos(getFundamentalFrequency() * (float)l)))) /
-                (getFundamentalFrequency() * RM[0] * (rm0squared - rm1squared));
-            W[l] = (float)(Math.sqrt(spectralAmplitudes[l]) * Math.pow(temp, 0.25));
-        }
+                (2.0f * rm0 * rm1 * (float)cosines[l]))) /
+                (getFundamentalFrequency() * rm0 * (rm0squared - rm1squared));
+            float W = (float)(Math.sqrt(spectralAmplitudes[l]) * Math.pow(temp, 0.25));
 
-        /* Algorithm #108 - apply weights to produce enhanced amplitudes */
-        for(int l = 1; l <= L; l++)
-        {
+            /* Algorithm #108 - apply weights to produce enhanced amplitudes */
             if((8 * l) <= L)
             {
                 enhancedSpectralAmplitudes[l] = spectralAmplitudes[l];
             }
-            else if(W[l] > 1.2f)
+            else if(W > 1.2f)
             {
                 enhancedSpectralAmplitudes[l] = spectralAmplitudes[l] * 1.2f;
             }
-            else if(W[l] < 0.5f)
+            else if(W < 0.5f)
             {
                 enhancedSpectralAmplitudes[l] = spectralAmplitudes[l] * 0.5f;
             }
             else
             {
-                enhancedSpectralAmplitudes[l] = spectralAmplitudes[l] * W[l];
+                enhancedSpectralAmplitudes[l] = spectralAmplitudes[l] * W;
             }
         }
 
@@ -380,7 +585,7 @@ public abstract class MBEModelParameters
             denominator += (enhancedSpectralAmplitudes[l] * enhancedSpectralAmplitudes[l]);
         }
 
-        float y = (float)Math.sqrt(RM[0] / denominator);
+        float y = (float)Math.sqrt(rm0 / denominator);
 
         /* Algorithm #110 - scale enhanced amplitudes to remove energy differential */
         for(int l = 1; l <= L; l++)
@@ -388,17 +593,7 @@ public abstract class MBEModelParameters
             enhancedSpectralAmplitudes[l] *= y;
         }
 
-        /* Algorithm #111 - calculate local energy */
-        mLocalEnergy = (0.95f * previousLocalEnergy) + (0.05f * RM[0]);
-
-        if(mLocalEnergy < 10000.0f)
-        {
-            mLocalEnergy = 10000.0f;
-        }
-
-        setEnhancedSpectralAmplitudes(enhancedSpectralAmplitudes);
-
-        applyAdaptiveSmoothing(previousAmplitudeThreshold);
+        return rm0;
     }
 
     /**
@@ -430,17 +625,16 @@ public abstract class MBEModelParameters
             }
 
             //Voicing decisions only have to be smoothed in the presence of errors
-            boolean[] voicingDecisions = getVoicingDecisions();
-
             for(int l = 1; l <= getL(); l++)
             {
                 float amplitude = enhancedSpectralAmplitudes[l];
 
                 /* Algorithm #113 - apply adaptive threshold to voice/no voice decisions */
-                voicingDecisions[l] = ((amplitude > VM) ? true : voicingDecisions[l]);
+                if(amplitude > VM)
+                {
+                    setVoiced(l, true);
+                }
             }
-
-            setVoicingDecisions(voicingDecisions);
         }
 
         float Am = 0.0f;
@@ -475,7 +669,5 @@ public abstract class MBEModelParameters
                 enhancedSpectralAmplitudes[l] *= scale;
             }
         }
-
-        setEnhancedSpectralAmplitudes(enhancedSpectralAmplitudes);
     }
 }
@@ -19,13 +19,21 @@
 
 package jmbe.codec;
 
-import java.util.Arrays;
-
 public class MBENoiseSequenceGenerator
 {
+    /**
+     * The sequence is a full period linear congruential generator modulo 53125, advanced 160 samples per buffer, so
+     * the sequence of buffers repeats every 53125 / gcd(53125, 160) = 10625 buffers
+     */
+    public static final int BUFFER_PERIOD = 10625;
+
     private float mSample = 3147;
     private float[] mCurrentBuffer = new float[256];
 
+    //The first two buffers are partially zero and are outside of the buffer period
+    private int mNextBufferIndex = -2;
+    private int mBufferIndex = -2;
+
     public MBENoiseSequenceGenerator()
     {
     }
@@ -42,7 +50,20 @@ public class MBENoiseSequenceGenerator
      */
     public float[] nextBuffer()
     {
-        float[] copy = Arrays.copyOf(mCurrentBuffer, mCurrentBuffer.length);
+        return nextBuffer(new float[mCurrentBuffer.length]);
+    }
+
+    /**
+     * Copies the current 256 white noise samples into the buffer argument and then advances the sequence.
+     *
+     * @param buffer to receive the samples, minimum length 256
+     * @return the buffer argument
+     */
+    public float[] nextBuffer(float[] buffer)
+    {
+        System.arraycopy(mCurrentBuffer, 0, buffer, 0, mCurrentBuffer.length);
+        mBufferIndex = mNextBufferIndex;
+        mNextBufferIndex = (mNextBufferIndex + 1) % BUFFER_PERIOD;
 
         //Shift the end 96 samples to the beginning so that we can generate 160 new samples
         System.arraycopy(mCurrentBuffer, 160, mCurrentBuffer, 0, 96);
@@ -52,6 +73,16 @@ public class MBENoiseSequenceGenerator
             mCurrentBuffer[x] = next();
         }
 
-        return copy;
+        return buffer;
+    }
+
+    /**
+     * Position (0 - 10624) of the most recently generated buffer within the repeating buffer period, or a negative
+     * value for the first two buffers of the sequence which are not part of the period.  Buffers at the same position
+     * contain identical samples for every instance of this generator.
+     */
+    public int getBufferIndex()
+    {
+        return mBufferIndex;
     }
 }
@@ -20,34 +20,339 @@
 package jmbe.codec;
 
 import jmbe.codec.imbe.Window;
-import org.jtransforms.fft.FloatFFT_1D;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
 
 /**
  * Base Multi-Band Excitation (MBE) synthesizer
  */
 public abstract class MBESynthesizer
 {
-    private static final float TWO_PI = (float)Math.PI * 2.0f;
+    static final float TWO_PI = (float)Math.PI * 2.0f;
     private static final float TWO56_OVER_TWO_PI = 256.0f / TWO_PI;
     private static final float AUDIO_SCALAR_16_BITS_SIGNED = 1.00f / (float)Short.MAX_VALUE;
-    private static final float MAXIMUM_AUDIO_AMPLITUDE = 0.95f;
-    protected static final int SAMPLES_PER_FRAME = 160;
-    private static final float WHITE_NOISE_SCALAR = TWO_PI / 53125.0f;
+    static final float MAXIMUM_AUDIO_AMPLITUDE = 0.95f;
+    public static final int SAMPLES_PER_FRAME = 160;
+    public static final int SAMPLE_RATE = 8000;
+    static final float WHITE_NOISE_SCALAR = TWO_PI / 53125.0f;
 
     // Algorithm 121 - unvoiced scaling coefficient (yw) from synthesis window (ws) and pitch refinement window (wr)
-    private static final float UNVOICED_SCALING_COEFFICIENT = 146.17696f;
+    static final float UNVOICED_SCALING_COEFFICIENT = 146.17696f;
+
+    private static final float[] SILENCE = new float[SAMPLES_PER_FRAME];
+    private static final float WHITE_NOISE_GAIN = 0.003f;
+    private static final float FIXED_POINT_SAMPLE_SCALAR = 1.0f / (1 << FixedPointOscillatorBank.SAMPLE_FRACTION_BITS);
 
-    private WhiteNoiseGenerator mWhiteNoiseGenerator = new WhiteNoiseGenerator();
+    private INoiseSource mNoiseSource = new ComfortNoise();
     private MBENoiseSequenceGenerator mMBENoiseSequenceGenerator = new MBENoiseSequenceGenerator();
-    private FloatFFT_1D mFFT = new FloatFFT_1D(256);
     private float[] mPreviousPhaseO = new float[57];
     private float[] mPreviousPhaseV = new float[57];
+    private float[] mCurrentPhaseO = new float[57];
+    private float[] mCurrentPhaseV = new float[57];
     private float[] mPreviousUw = new float[256];
+    private float[] mCurrentUw = new float[256];
+    private boolean mPreviousUwSilent = true;
+
+    //Reusable working buffers so that steady-state synthesis does not allocate
+    private float[] mNoiseSamples = new float[256];
+    private float[] mBandScalor = new float[57];
+    private float[] mUnvoiced = new float[SAMPLES_PER_FRAME];
+    private float[] mVoiced = new float[SAMPLES_PER_FRAME];
+    private int[] mVoicedFixedPoint = new int[SAMPLES_PER_FRAME];
+    private float[] mOutputSamples = new float[SAMPLES_PER_FRAME];
+    private VoicedSynthesisMode mVoicedSynthesisMode = VoicedSynthesisMode.PHASOR;
+    private boolean mCachedNoiseSpectra;
+
+    //Output target for the current frame - exactly one of the output arrays is non-null
+    private float[] mOutputFloat;
+    private short[] mOutputShort;
+    private byte[] mOutputBytes;
+    private boolean mOutputBigEndian;
+    private int mOutputOffset;
+    private boolean mDither;
+    private int mDitherSeed = 0x2545F491;
+    private long mNativeRateNoiseSeed = NativeRateSynthesisEngine.DEFAULT_NOISE_SEED;
+
+    //Optional output resampler stage, with a reusable buffer of resampled samples for PCM output targets
+    private PolyphaseResampler mResampler;
+    private float[] mResampledSamples;
+
+    //Optional native rate synthesis engine for voice frames at output rates above 8 kHz or time-scaled playback
+    private boolean mNativeRateSynthesis;
+    private NativeRateSynthesisEngine mNativeRateEngine;
+
+    //Time-scaled playback speed and the resulting number of 8 kHz samples per frame
+    private float mTimeScale = 1.0f;
+    private int mFrameSampleCount = SAMPLES_PER_FRAME;
 
     protected MBESynthesizer()
     {
     }
 
+    /**
+     * Voiced audio synthesis engine used by this synthesizer
+     */
+    public VoicedSynthesisMode getVoicedSynthesisMode()
+    {
+        return mVoicedSynthesisMode;
+    }
+
+    /**
+     * Sets or changes the voiced audio synthesis engine.  Defaults to PHASOR.  Use FIXED_POINT_OSCILLATORS for
+     * fixed-point voiced oscillators on hardware with costly floating point arithmetic.
+     *
+     * @param mode to use for synthesizing the voiced audio component
+     * @throws IllegalArgumentException if the mode is FIXED_POINT_OSCILLATORS and native rate synthesis is enabled or
+     * the time scale is not 1.0
+     */
+    public void setVoicedSynthesisMode(VoicedSynthesisMode mode)
+    {
+        if(mode == null)
+        {
+            throw new IllegalArgumentException("Voiced synthesis mode cannot be null");
+        }
+
+        if(mode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS && (mNativeRateSynthesis || mTimeScale != 1.0f))
+        {
+            throw new IllegalArgumentException("Voiced synthesis mode [" + mode + "] is not supported with native " +
+                "rate synthesis or time-scaled playback");
+        }
+
+        mVoicedSynthesisMode = mode;
+    }
+
+    /**
+     * Indicates if unvoiced synthesis uses the shared noise spectrum cache instead of a forward DFT of the noise
+     */
+    public boolean isCachedNoiseSpectra()
+    {
+        return mCachedNoiseSpectra;
+    }
+
+    /**
+     * Enables or disables use of the shared noise spectrum cache for unvoiced synthesis.  The white noise sequence is
+     * deterministic, so the cached spectra are identical to the forward DFT of the windowed noise and the audio
+     * output is unchanged.  The static cache is shared by all synthesizers and is never released: it grows to 10625
+     * spectra (about 11 MB) and each spectrum that is not yet cached is copied into it, so frames allocate until the
+     * cache is full or precomputed.  Disabled by default.  @see NoiseSpectrumCache
+     *
+     * @param enabled true to use cached noise spectra
+     */
+    public void setCachedNoiseSpectra(boolean enabled)
+    {
+        mCachedNoiseSpectra = enabled;
+    }
+
+    /**
+     * Noise source for the white (comfort) noise of muted and erased frames
+     */
+    public INoiseSource getNoiseSource()
+    {
+        return mNoiseSource;
+    }
+
+    /**
+     * Sets the noise source for the white (comfort) noise of muted and erased frames.  The default source is the
+     * shared comfort noise table.  @see ComfortNoise
+     *
+     * @param noiseSource to use
+     */
+    public void setNoiseSource(INoiseSource noiseSource)
+    {
+        if(noiseSource == null)
+        {
+            throw new IllegalArgumentException("Noise source cannot be null");
+        }
+
+        mNoiseSource = noiseSource;
+    }
+
+    /**
+     * Seeds the noise source for the white (comfort) noise of muted and erased frames, the dither sequence and the
+     * unvoiced noise of native rate and time-scaled voice frames.  Synthesizers that use the same seed produce
+     * identical audio output from identical frame sequences.  Use different seeds for channels that are mixed together.
+     *
+     * @param seed value
+     */
+    public void setNoiseSeed(long seed)
+    {
+        mNoiseSource.setSeed(seed);
+
+        //The xorshift dither state must be non-zero
+        mDitherSeed = (int)(seed ^ (seed >>> 32)) | 1;
+
+        mNativeRateNoiseSeed = seed;
+
+        if(mNativeRateEngine != null)
+        {
+            mNativeRateEngine.setNoiseSeed(seed);
+        }
+    }
+
+    /**
+     * Resets the synthesizer for a new call.  Subclasses reset the previous frame parameters and call this method to
+     * clear the output resampler history.
+     */
+    public void reset()
+    {
+        if(mResampler != null)
+        {
+            mResampler.reset();
+        }
+
+        if(mNativeRateEngine != null)
+        {
+            mNativeRateEngine.reset();
+        }
+    }
+
+    /**
+     * Output sample rate in Hertz
+     */
+    public int getOutputSampleRate()
+    {
+        return mResampler != null ? SAMPLE_RATE * mResampler.getFactor() : SAMPLE_RATE;
+    }
+
+    /**
+     * Sets the output sample rate.  Rates above 8 kHz enable the polyphase resampler output stage, which is fused with
+     * the final mix of the voiced and unvoiced audio and writes each frame directly to the output target at the output
+     * rate.  Each frame then produces 160 * (rate / 8000) samples, e.g. 320 samples at 16 kHz or 960 samples at 48 kHz.
+     * Voice frames can instead be synthesized directly at the output rate.  @see #setNativeRateSynthesis(boolean)
+     * @see PolyphaseResampler
+     *
+     * @param sampleRate in Hertz: 8000 or an integer multiple of 8000 up to 48000
+     * @throws IllegalArgumentException if the sample rate is not supported
+     */
+    public void setOutputSampleRate(int sampleRate)
+    {
+        if(sampleRate % SAMPLE_RATE != 0 || sampleRate < SAMPLE_RATE ||
+            sampleRate > SAMPLE_RATE * PolyphaseResampler.MAXIMUM_FACTOR)
+        {
+            throw new IllegalArgumentException("Output sample rate [" + sampleRate + "] must be a multiple of " +
+                SAMPLE_RATE + " in range " + SAMPLE_RATE + " - " + (SAMPLE_RATE * PolyphaseResampler.MAXIMUM_FACTOR));
+        }
+
+        if(sampleRate == SAMPLE_RATE)
+        {
+            mResampler = null;
+            mResampledSamples = null;
+        }
+        else if(sampleRate != getOutputSampleRate())
+        {
+            mResampler = new PolyphaseResampler(sampleRate / SAMPLE_RATE);
+            mResampledSamples = new float[SAMPLES_PER_FRAME * mResampler.getFactor()];
+        }
+
+        updateNativeRateEngine();
+    }
+
+    /**
+     * Indicates if voice frames are synthesized directly at output sample rates above 8 kHz
+     */
+    public boolean isNativeRateSynthesis()
+    {
+        return mNativeRateSynthesis;
+    }
+
+    /**
+     * Enables or disables native rate synthesis.  When enabled and the output sample rate is above 8 kHz, voice
+     * frames are synthesized directly at the output rate by scaling the harmonic frequencies and the synthesis window
+     * lengths, instead of synthesizing at 8 kHz and resampling.  Tone and comfort noise frames are still generated at
+     * 8 kHz and resampled.  Disabled by default.  @see NativeRateSynthesisEngine
+     *
+     * The engine synthesizes the voiced harmonics with its own floating point oscillators, so the REFERENCE and PHASOR
+     * voiced synthesis modes produce the same audio at the output rate and the FIXED_POINT_OSCILLATORS mode can't be
+     * combined with native rate synthesis.
+     *
+     * @param enabled true to synthesize voice frames at the output rate
+     * @throws IllegalArgumentException if enabled while the voiced synthesis mode is FIXED_POINT_OSCILLATORS
+     */
+    public void setNativeRateSynthesis(boolean enabled)
+    {
+        if(enabled && mVoicedSynthesisMode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS)
+        {
+            throw new IllegalArgumentException("Native rate synthesis is not supported with voiced synthesis mode [" +
+                mVoicedSynthesisMode + "]");
+        }
+
+        mNativeRateSynthesis = enabled;
+        updateNativeRateEngine();
+    }
+
+    /**
+     * Creates or removes the native rate synthesis engine to match the native rate setting, the output rate and the
+     * time scale.  Time-scaled playback without native rate synthesis uses the engine at 8 kHz, followed by the
+     * resampler output stage when enabled.
+     */
+    private void updateNativeRateEngine()
+    {
+        int factor = (mNativeRateSynthesis && mResampler != null) ? mResampler.getFactor() : 1;
+
+        if(factor == 1 && mFrameSampleCount == SAMPLES_PER_FRAME)
+        {
+            mNativeRateEngine = null;
+        }
+        else if(mNativeRateEngine == null || mNativeRateEngine.getFactor() != factor ||
+            mNativeRateEngine.getSamplesPerFrame() != mFrameSampleCount * factor)
+        {
+            mNativeRateEngine = new NativeRateSynthesisEngine(factor, mFrameSampleCount * factor);
+            mNativeRateEngine.setNoiseSeed(mNativeRateNoiseSeed);
+        }
+    }
+
+    /**
+     * Number of samples per frame at the output sample rate: 20 milliseconds of samples, or fewer when the time scale
+     * is above 1.0
+     */
+    public int getSamplesPerFrame()
+    {
+        return mResampler != null ? mFrameSampleCount * mResampler.getFactor() : mFrameSampleCount;
+    }
+
+    /**
+     * Playback speed of the synthesized audio relative to real time
+     */
+    public float getTimeScale()
+    {
+        return mTimeScale;
+    }
+
+    /**
+     * Sets the playback speed for time-scaled playback, e.g. 1.5 or 2.0 for fast review of recorded calls.  Voice
+     * frames are synthesized from the model parameters with round(160 / speed) samples per frame at 8 kHz, at the same
+     * pitch, by shortening the voiced and unvoiced overlap-add and the phase advance per frame, so synthesis costs
+     * less than at normal speed.  Tone and comfort noise frames are generated with the same number of samples.  The
+     * actual speed is 160 / round(160 / speed).  Output sample rates above 8 kHz produce the samples per frame times
+     * the rate factor.  Defaults to 1.0 (real time).  @see NativeRateSynthesisEngine
+     *
+     * Time-scaled voice frames are synthesized by the native rate engine with its own floating point oscillators, so
+     * the REFERENCE and PHASOR voiced synthesis modes produce the same audio and the FIXED_POINT_OSCILLATORS mode only
+     * supports real time.
+     *
+     * @param speed in range 1.0 - 4.0
+     * @throws IllegalArgumentException if the speed is not supported, or is not 1.0 while the voiced synthesis mode is
+     * FIXED_POINT_OSCILLATORS
+     */
+    public void setTimeScale(float speed)
+    {
+        if(!(speed >= 1.0f && speed <= 4.0f))
+        {
+            throw new IllegalArgumentException("Time scale [" + speed + "] must be in range 1.0 - 4.0");
+        }
+
+        if(speed != 1.0f && mVoicedSynthesisMode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS)
+        {
+            throw new IllegalArgumentException("Time scale [" + speed + "] is not supported with voiced synthesis " +
+                "mode [" + mVoicedSynthesisMode + "]");
+        }
+
+        mTimeScale = speed;
+        mFrameSampleCount = Math.round(SAMPLES_PER_FRAME / speed);
+        updateNativeRateEngine();
+    }
+
     /**
      * Access previous frame's MBE model parameters
      */
@@ -61,15 +366,23 @@ public abstract class MBESynthesizer
     public static int[] getFrequencyBandEdgeMinimums(MBEModelParameters voiceParameters)
     {
         int[] a = new int[voiceParameters.getL() + 1];
+        getFrequencyBandEdgeMinimums(voiceParameters, a);
+        return a;
+    }
 
+    /**
+     * Calculates the minimum 256-point DFT index for each of the L frequency bands into array indexes 1 - L
+     *
+     * Alg #122
+     */
+    public static void getFrequencyBandEdgeMinimums(MBEModelParameters voiceParameters, int[] a)
+    {
         float multiplier = TWO56_OVER_TWO_PI * voiceParameters.getFundamentalFrequency();
 
         for(int l = 1; l <= voiceParameters.getL(); l++)
         {
             a[l] = (int)Math.ceil(((float)l - 0.5f) * multiplier);
         }
-
-        return a;
     }
 
     /**
@@ -80,15 +393,23 @@ public abstract class MBESynthesizer
     public static int[] getFrequencyBandEdgeMaximums(MBEModelParameters voiceParameters)
     {
         int[] b = new int[voiceParameters.getL() + 1];
+        getFrequencyBandEdgeMaximums(voiceParameters, b);
+        return b;
+    }
 
+    /**
+     * Calculates the maximum 256-point DFT index for each of the L frequency bands into array indexes 1 - L
+     *
+     * Alg #123
+     */
+    public static void getFrequencyBandEdgeMaximums(MBEModelParameters voiceParameters, int[] b)
+    {
         float multiplier = TWO56_OVER_TWO_PI * voiceParameters.getFundamentalFrequency();
 
         for(int x = 1; x <= voiceParameters.getL(); x++)
         {
             b[x] = (int)Math.ceil(((float)x + 0.5f) * multiplier);
         }
-
-        return b;
     }
 
     /**
@@ -142,6 +463,61 @@ public abstract class MBESynthesizer
         return yw;
     }
 
+    /**
+     * Indicates if triangular probability density function (TPDF) dither is applied when converting to 16-bit PCM
+     */
+    public boolean isDither()
+    {
+        return mDither;
+    }
+
+    /**
+     * Enables or disables triangular probability density function (TPDF) dither of +/- 1 LSB when converting audio to
+     * 16-bit PCM samples.  Dither decorrelates the quantization error from the signal at the cost of a slightly
+     * higher noise floor.  Disabled by default, where samples are truncated.  Float output is not affected.
+     *
+     * @param dither true to enable
+     */
+    public void setDither(boolean dither)
+    {
+        mDither = dither;
+    }
+
+    /**
+     * Sets the output target for the next frame to a float array
+     */
+    protected void setOutput(float[] audio, int offset)
+    {
+        mOutputFloat = audio;
+        mOutputShort = null;
+        mOutputBytes = null;
+        mOutputOffset = offset;
+    }
+
+    /**
+     * Sets the output target for the next frame to a 16-bit PCM sample array
+     */
+    protected void setOutput(short[] pcm, int offset)
+    {
+        mOutputFloat = null;
+        mOutputShort = pcm;
+        mOutputBytes = null;
+        mOutputOffset = offset;
+    }
+
+    /**
+     * Sets the output target for the next frame to a 16-bit PCM byte array with the specified byte order, where the
+     * offset is the byte index of the first sample
+     */
+    protected void setOutput(byte[] pcm, int offset, ByteOrder byteOrder)
+    {
+        mOutputFloat = null;
+        mOutputShort = null;
+        mOutputBytes = pcm;
+        mOutputBigEndian = (byteOrder == ByteOrder.BIG_ENDIAN);
+        mOutputOffset = offset;
+    }
+
     /**
      * Generates 160 samples (20 ms) of voice audio using the model parameters
      *
@@ -150,27 +526,105 @@ public abstract class MBESynthesizer
      */
     public float[] getVoice(MBEModelParameters parameters)
     {
-        float amp = 0;
-        for(float amplitude: parameters.getEnhancedSpectralAmplitudes())
+        float[] audio = new float[getSamplesPerFrame()];
+        getVoice(parameters, audio, 0);
+        return audio;
+    }
+
+    /**
+     * Generates 160 samples (20 ms) of voice audio using the model parameters into the audio array, or the samples per
+     * frame at the output sample rate when the resampler output stage is enabled
+     *
+     * @param parameters to use in generating the voice frame
+     * @param audio array to receive the samples scaled to -1.0 <> 1.0
+     * @param offset into the audio array for the first sample
+     */
+    public void getVoice(MBEModelParameters parameters, float[] audio, int offset)
+    {
+        setOutput(audio, offset);
+        writeVoice(parameters);
+    }
+
+    /**
+     * Generates 160 samples (20 ms) of voice audio using the model parameters into the output target
+     *
+     * @param parameters to use in generating the voice frame
+     */
+    protected void writeVoice(MBEModelParameters parameters)
+    {
+        //Alg #117 - generate white noise samples.
+        float[] u = mMBENoiseSequenceGenerator.nextBuffer(mNoiseSamples);
+
+        if(mNativeRateEngine != null)
         {
-            amp += amplitude;
+            writeNativeRateVoice(parameters, u);
+            return;
         }
 
-        //Alg #117 - generate white noise samples.
-        float[] u = mMBENoiseSequenceGenerator.nextBuffer();
+        //Each component is only synthesized when it can be non-zero: the unvoiced component requires an unvoiced
+        //band in the current frame or unvoiced samples remaining from the previous frame, and the voiced component
+        //requires a voiced band in the current or the previous frame.  Frames with neither (e.g. all voiced frames
+        //following voiced frames produce no unvoiced component, silence frames following silence produce no voiced
+        //component) skip the corresponding kernel.
+        int spectrumIndex = mCachedNoiseSpectra ? mMBENoiseSequenceGenerator.getBufferIndex() : -1;
+        float[] unvoiced = synthesizeUnvoiced(parameters, u, spectrumIndex);
+        float[] voiced = synthesizeVoiced(parameters, u);
 
-        float[] unvoiced = getUnvoiced(parameters, u);
-        float[] voiced = getVoiced(parameters, u);
+        if(unvoiced == null && voiced == null)
+        {
+            writeSamples(SILENCE);
+            return;
+        }
 
-        float[] audio = new float[160];
+        if(unvoiced == null)
+        {
+            unvoiced = SILENCE;
+        }
 
-        //Alg #142 - combine voiced and unvoiced audio samples to form the completed audio samples.
-        for(int x = 0; x < 160; x++)
+        if(voiced == null)
         {
-            audio[x] = clip((voiced[x] + unvoiced[x]) * AUDIO_SCALAR_16_BITS_SIGNED);
+            voiced = SILENCE;
         }
 
-        return audio;
+        //Alg #142 - combine voiced and unvoiced audio samples to form the completed audio samples, written directly
+        //in the output format.  With the resampler output stage, each combined sample is resampled as it is mixed.
+        if(mResampler != null)
+        {
+            if(mOutputFloat != null)
+            {
+                mResampler.mix(voiced, unvoiced, AUDIO_SCALAR_16_BITS_SIGNED, MAXIMUM_AUDIO_AMPLITUDE, mOutputFloat,
+                    mOutputOffset, SAMPLES_PER_FRAME);
+            }
+            else
+            {
+                mResampler.mix(voiced, unvoiced, AUDIO_SCALAR_16_BITS_SIGNED, MAXIMUM_AUDIO_AMPLITUDE,
+                    mResampledSamples, 0, SAMPLES_PER_FRAME);
+                writePCM(mResampledSamples, mResampledSamples.length);
+            }
+        }
+        else if(mOutputFloat != null)
+        {
+            SynthesisKernels.mix(voiced, unvoiced, AUDIO_SCALAR_16_BITS_SIGNED, MAXIMUM_AUDIO_AMPLITUDE, mOutputFloat,
+                mOutputOffset, SAMPLES_PER_FRAME);
+        }
+        else if(mOutputShort != null)
+        {
+            //PCM conversion is scalar, so the mix is converted to PCM in the same pass
+            short[] pcm = mOutputShort;
+            int offset = mOutputOffset;
+
+            for(int x = 0; x < SAMPLES_PER_FRAME; x++)
+            {
+                pcm[offset + x] = toPCM(clip((voiced[x] + unvoiced[x]) * AUDIO_SCALAR_16_BITS_SIGNED));
+            }
+        }
+        else
+        {
+            for(int x = 0; x < SAMPLES_PER_FRAME; x++)
+            {
+                putPCM(x, toPCM(clip((voiced[x] + unvoiced[x]) * AUDIO_SCALAR_16_BITS_SIGNED)));
+            }
+        }
     }
 
     /**
@@ -193,31 +647,221 @@ public abstract class MBESynthesizer
     }
 
     /**
-     * Generates 160 samples (20 ms) of white noise
+     * Synthesizes the voice frame with the native rate synthesis engine, directly at the output rate or at 8 kHz for
+     * the resampler output stage, and writes it to the output target
+     *
+     * @param parameters to use in generating the voice frame
+     * @param u white noise samples from algorithm #117
+     */
+    private void writeNativeRateVoice(MBEModelParameters parameters, float[] u)
+    {
+        if(mNativeRateEngine.getFactor() == 1)
+        {
+            float[] samples = (mOutputFloat != null && mResampler == null) ? mOutputFloat : mOutputSamples;
+            int offset = (samples == mOutputFloat) ? mOutputOffset : 0;
+            mNativeRateEngine.synthesize(parameters, getPreviousFrame(), u, AUDIO_SCALAR_16_BITS_SIGNED,
+                MAXIMUM_AUDIO_AMPLITUDE, samples, offset);
+
+            if(samples == mOutputSamples)
+            {
+                writeSamples(samples);
+            }
+
+            return;
+        }
+
+        if(mOutputFloat != null)
+        {
+            mNativeRateEngine.synthesize(parameters, getPreviousFrame(), u, AUDIO_SCALAR_16_BITS_SIGNED,
+                MAXIMUM_AUDIO_AMPLITUDE, mOutputFloat, mOutputOffset);
+        }
+        else
+        {
+            mNativeRateEngine.synthesize(parameters, getPreviousFrame(), u, AUDIO_SCALAR_16_BITS_SIGNED,
+                MAXIMUM_AUDIO_AMPLITUDE, mResampledSamples, 0);
+            writePCM(mResampledSamples, mNativeRateEngine.getSamplesPerFrame());
+        }
+
+        //Tone and comfort noise frames that follow are resampled from a clear history instead of the stale history of
+        //the last resampled frame
+        mResampler.reset();
+    }
+
+    /**
+     * Writes the 8 kHz samples per frame (160 samples, or fewer for time-scaled playback) scaled to -1.0 <> 1.0 to
+     * the output target, through the resampler output stage when enabled
+     *
+     * @param samples to write
+     */
+    protected void writeSamples(float[] samples)
+    {
+        int count = mFrameSampleCount;
+
+        if(mResampler != null)
+        {
+            if(mOutputFloat != null)
+            {
+                mResampler.resample(samples, 0, count, mOutputFloat, mOutputOffset);
+            }
+            else
+            {
+                mResampler.resample(samples, 0, count, mResampledSamples, 0);
+                writePCM(mResampledSamples, count * mResampler.getFactor());
+            }
+        }
+        else if(mOutputFloat != null)
+        {
+            System.arraycopy(samples, 0, mOutputFloat, mOutputOffset, count);
+        }
+        else
+        {
+            writePCM(samples, count);
+        }
+    }
+
+    /**
+     * Number of 8 kHz samples per frame: 160, or fewer for time-scaled playback.  Subclasses generate this number of
+     * samples for the frames that they write with writeSamples().
+     */
+    protected int getFrameSampleCount()
+    {
+        return mFrameSampleCount;
+    }
+
+    /**
+     * Converts the samples to 16-bit PCM and writes them to the short or byte output target
+     *
+     * @param samples to write
+     * @param count of samples
+     */
+    private void writePCM(float[] samples, int count)
+    {
+        int offset = mOutputOffset;
+
+        if(mOutputShort != null)
+        {
+            short[] pcm = mOutputShort;
+
+            for(int x = 0; x < count; x++)
+            {
+                pcm[offset + x] = toPCM(samples[x]);
+            }
+        }
+        else
+        {
+            for(int x = 0; x < count; x++)
+            {
+                putPCM(x, toPCM(samples[x]));
+            }
+        }
+    }
+
+    /**
+     * Writes one frame (20 ms, or less for time-scaled playback) of comfort noise to the output target for muted and
+     * erased frames
+     */
+    protected void writeWhiteNoise()
+    {
+        if(mOutputFloat != null && mResampler == null)
+        {
+            mNoiseSource.getSamples(mOutputFloat, mOutputOffset, mFrameSampleCount, WHITE_NOISE_GAIN);
+        }
+        else
+        {
+            mNoiseSource.getSamples(mOutputSamples, 0, mFrameSampleCount, WHITE_NOISE_GAIN);
+            writeSamples(mOutputSamples);
+        }
+    }
+
+    /**
+     * Reusable 160 sample buffer for subclasses to generate samples that are then written with writeSamples()
+     */
+    protected float[] getOutputSamples()
+    {
+        return mOutputSamples;
+    }
+
+    /**
+     * Converts the sample to a 16-bit PCM value, applying TPDF dither when enabled.  Samples are clipped to 0.95
+     * before conversion, so dither cannot overflow the 16-bit range.
+     */
+    private short toPCM(float sample)
+    {
+        if(mDither)
+        {
+            //Two uniform values in the range 0 <> 1 LSB, differenced for a triangular distribution of -1 <> 1 LSB
+            int seed = mDitherSeed;
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            float dither = (seed >>> 8) * 0x1.0p-24f;
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            dither -= (seed >>> 8) * 0x1.0p-24f;
+            mDitherSeed = seed;
+
+            return (short)Math.floor(sample * Short.MAX_VALUE + dither + 0.5f);
+        }
+
+        return (short)(sample * Short.MAX_VALUE);
+    }
+
+    /**
+     * Writes the 16-bit PCM value for the sample index of the current frame to the output byte array in the output
+     * byte order
+     */
+    private void putPCM(int index, short value)
+    {
+        int pointer = mOutputOffset + (index * 2);
+
+        if(mOutputBigEndian)
+        {
+            mOutputBytes[pointer] = (byte)(value >> 8);
+            mOutputBytes[pointer + 1] = (byte)value;
+        }
+        else
+        {
+            mOutputBytes[pointer] = (byte)value;
+            mOutputBytes[pointer + 1] = (byte)(value >> 8);
+        }
+    }
+
+    /**
+     * Generates 160 samples (20 ms) of white (comfort) noise
      *
      * @return samples
      */
     public float[] getWhiteNoise()
     {
-        return mWhiteNoiseGenerator.getSamples(160, 0.003f);
+        float[] samples = new float[SAMPLES_PER_FRAME];
+        getWhiteNoise(samples, 0);
+        return samples;
+    }
+
+    /**
+     * Generates 160 samples (20 ms) of white (comfort) noise into the audio array from the noise source
+     *
+     * @param audio array to receive the samples
+     * @param offset into the audio array for the first sample
+     */
+    public void getWhiteNoise(float[] audio, int offset)
+    {
+        mNoiseSource.getSamples(audio, offset, SAMPLES_PER_FRAME, WHITE_NOISE_GAIN);
     }
 
     /**
      * Applies the synthesis window to the 256-element white noise array by considering the samples of the array to
      * be indexed as -128 <> 127
      * @param whiteNoise samples to window
-     * @return windowed white noise samples
+     * @param windowed array to receive the windowed white noise samples
      */
-    private float[] applyWindow(float[] whiteNoise)
+    static void applyWindow(float[] whiteNoise, float[] windowed)
     {
-        float[] windowed = new float[whiteNoise.length];
-
         for(int x = 0; x < whiteNoise.length; x++)
         {
             windowed[x] = whiteNoise[x] * synthesisWindow(x - 128);
         }
-
-        return windowed;
     }
 
     /**
@@ -226,135 +870,156 @@ public abstract class MBESynthesizer
      * harmonics are removed from the white noise.
      *
      * @param parameters from the voice frame
-     * @return - 160 samples of unvoiced audio component
+     * @return - 160 samples of unvoiced audio component.  Note: the returned array is reused by this synthesizer and
+     * is overwritten on the next call to this method.
      */
     public float[] getUnvoiced(MBEModelParameters parameters, float[] whiteNoiseSamples)
     {
-        float[] Uw = applyWindow(whiteNoiseSamples);
+        float[] unvoiced = synthesizeUnvoiced(parameters, whiteNoiseSamples, -1);
+
+        if(unvoiced == null)
+        {
+            unvoiced = mUnvoiced;
+            Arrays.fill(unvoiced, 0.0f);
+        }
+
+        return unvoiced;
+    }
 
-        //Alg #122 and #123 - generate the 256 FFT bins to L frequency band mapping from the fundamental frequency
-        boolean[] voicedBands = parameters.getVoicingDecisions();
+    /**
+     * Generates the unvoiced component of the audio signal, using the cached spectrum of the white noise samples when
+     * available.
+     *
+     * @param parameters from the voice frame
+     * @param whiteNoiseSamples from the MBE noise sequence generator
+     * @param spectrumIndex of the white noise samples in the noise sequence period, or -1 to compute the spectrum
+     * @return - 160 samples of unvoiced audio component, reused by this synthesizer, or null when the unvoiced
+     * component is silent because neither the current nor the previous frame contain unvoiced bands.
+     */
+    private float[] synthesizeUnvoiced(MBEModelParameters parameters, float[] whiteNoiseSamples, int spectrumIndex)
+    {
+        float[] Uw = mCurrentUw;
+
+        //Alg #122 and #123 - the 256 FFT bins to L frequency band mapping for the fundamental frequency
+        long voicingMask = parameters.getVoicingMask();
         float[] M = parameters.getEnhancedSpectralAmplitudes();
-        int[] a_min = getFrequencyBandEdgeMinimums(parameters);
-        int[] b_max = getFrequencyBandEdgeMaximums(parameters);
+        FundamentalFrequencyTables tables = parameters.getTables();
+        int[] a_min = tables.getBandEdgeMinimums();
+        int[] b_max = tables.getBandEdgeMaximums();
 
-        //Alg 118 - perform 256-point DFT against samples.  We use the JTransforms library to calculate an FFT against
-        // the 256 element sample array that contains zeros for all elements greater than 209
-        mFFT.realForward(Uw);
-        //NOTE: from this point forward, Uw contains the DFT frequency bins (uw)
+        //When all bands are voiced, every DFT bin is zeroized (Alg 120) and the inverse DFT (Alg 125) is zero
+        boolean hasUnvoicedBands = parameters.hasUnvoicedBands();
 
-        //Alg 120 - determine band-level scaling value for each DFT bin for unvoiced samples and zeroize all voiced and
-        // out-of-band bins.  The denominator in this algorithm is the average bin energy per band calculated by summing
-        // the squared dft real and the squared dft imaginary values, dividing by the number of bins in the band to get
-        // the average, and then taking the square root to get the amplitude average (a^2 + b^2 = c^2).  Calculate this
-        // value for each of the unvoiced bands and apply the unvoiced scaling coefficient and the decoded amplitude for
-        // the band.
-        float[] dftBinScalor = new float[128];
+        if(!hasUnvoicedBands && mPreviousUwSilent)
+        {
+            //Alg #126 - the overlap add of two silent inverse DFT results is silent.  The previous Uw buffer already
+            //contains the silent (zero) inverse DFT results for the next frame.
+            return null;
+        }
 
-        for(int l = 1; l <= parameters.getL(); l++)
+        if(hasUnvoicedBands)
         {
-            if(!voicedBands[l])
+            //Alg 118 - perform 256-point DFT against the 256 element sample array that contains zeros for all
+            // elements greater than 209.  The noise sequence is deterministic, so the DFT of each windowed noise
+            // buffer is computed once and cached.
+            float[] spectrum = (spectrumIndex >= 0 ? NoiseSpectrumCache.get(spectrumIndex) : null);
+
+            if(spectrum != null)
+            {
+                System.arraycopy(spectrum, 0, Uw, 0, Uw.length);
+            }
+            else
             {
-                float numerator = 0.0f;
+                applyWindow(whiteNoiseSamples, Uw);
+                RealFFT256.realForward(Uw);
 
-                for(int n = a_min[l]; n < b_max[l]; n++)
+                if(spectrumIndex >= 0)
                 {
-                    if(n < 128)
-                    {
-                        int dftBinIndex = 2 * n;
-
-                        // Real component
-                        numerator += (Uw[dftBinIndex] * Uw[dftBinIndex]);
-
-                        dftBinIndex++;
-
-                        // Imaginary component
-                        numerator += (Uw[dftBinIndex] * Uw[dftBinIndex]);
-                    }
+                    NoiseSpectrumCache.put(spectrumIndex, Uw);
                 }
+            }
+            //NOTE: from this point forward, Uw contains the DFT frequency bins (uw)
+
+            //Alg 120 - determine band-level scaling value for each DFT bin for unvoiced samples and zeroize all voiced
+            // and out-of-band bins.  The denominator in this algorithm is the average bin energy per band calculated by
+            // summing the squared dft real and the squared dft imaginary values, dividing by the number of bins in the
+            // band to get the average, and then taking the square root to get the amplitude average (a^2 + b^2 = c^2).
+            // Calculate this value for each of the unvoiced bands and apply the unvoiced scaling coefficient and the
+            // decoded amplitude for the band.
+            float[] bandScalor = mBandScalor;
+            Arrays.fill(bandScalor, 0.0f);
+
+            for(int l = 1; l <= parameters.getL(); l++)
+            {
+                if(((voicingMask >>> l) & 1L) == 0)
+                {
+                    //Sum of the squared real and imaginary components of the band's DFT bins below bin 128
+                    float numerator = SynthesisKernels.sumOfSquares(Uw, 2 * a_min[l], 2 * Math.min(b_max[l], 128));
 
-                float denominator = (float)(b_max[l] - a_min[l]);
-
-                float scalor = UNVOICED_SCALING_COEFFICIENT * M[l] / (float)Math.sqrt((numerator / denominator));
+                    float denominator = (float)(b_max[l] - a_min[l]);
 
-                for(int n = a_min[l]; n < b_max[l]; n++)
-                {
-                    if(n < 128)
-                    {
-                        dftBinScalor[n] = scalor;
-                    }
+                    bandScalor[l] = UNVOICED_SCALING_COEFFICIENT * M[l] / (float)Math.sqrt((numerator / denominator));
                 }
             }
-        }
 
-        // Alg 119, 120 & 124 - scale the DFT bins in the a-b min/max bin ranges.  Since the binScalor array is
-        // initialized to zero, this also zeroizes any of lowest and highest frequency DFT bins per Alg 124 that weren't
-        // explicitly listed in the a-b DFT bin ranges for each L frequency band.
-        for(int bin = 0; bin < 128; bin++)
-        {
-            int dftBinIndex = 2 * bin;
+            // Alg 119, 120 & 124 - scale the DFT bins in the a-b min/max bin ranges.  Since the bandScalor array is
+            // initialized to zero and the bin to band map uses band 0 for bins outside of the L frequency bands, this
+            // also zeroizes the voiced bands and any of lowest and highest frequency DFT bins per Alg 124 that
+            // weren't explicitly listed in the a-b DFT bin ranges for each L frequency band.
+            SynthesisKernels.scaleBins(Uw, bandScalor, tables.getInterleavedBinBands());
 
-            Uw[dftBinIndex] *= dftBinScalor[bin];
-            Uw[dftBinIndex + 1] *= dftBinScalor[bin];
+            //Alg #125 - calculate inverse DFT of scaled dft bins to recreate the white noise, notched for voiced bands
+            RealFFT256.realInverse(Uw, true);
+        }
+        else
+        {
+            Arrays.fill(Uw, 0.0f);
         }
-
-        //Alg #125 - calculate inverse DFT of scaled dft bins to recreate the white noise, notched for voiced bands
-        mFFT.realInverse(Uw, true);
 
         //Note: from this point forward, Uw contains the inverse DFT results
 
         /* Algorithm #126 - use Weighted Overlap Add algorithm to combine previous
          * Uw and the current Uw inverse DFT results to form final unvoiced set */
-        float[] unvoiced = new float[SAMPLES_PER_FRAME];
-
-        float[] windowArray = new float[SAMPLES_PER_FRAME];
-
-        for(int n = 0; n < SAMPLES_PER_FRAME; n++)
-        {
-            float previousWindow = synthesisWindow(n);
-            float currentWindow = synthesisWindow(n - SAMPLES_PER_FRAME);
-            windowArray[n] = previousWindow;
-
-            //Uw samples index is in range 0<>255 and must be translated to -128 <> 127 for this algorithm, recognizing
-            //that previousUw needs samples for indexes 0<>159 and currentUw needs samples -160<>-1
-            float previousUw = (n < 128 ? mPreviousUw[n + 128] : 0.0f); //n
-            float currentUw = (n >= 32 ? Uw[n - 32] : 0.0f);  //n - N
-
-            unvoiced[n] = ((previousWindow * previousUw) + (currentWindow * currentUw)) /
-                ((previousWindow * previousWindow) + (currentWindow * currentWindow));
-        }
+        float[] unvoiced = mUnvoiced;
+        SynthesisKernels.overlapAdd(mPreviousUw, Uw, unvoiced);
 
+        mCurrentUw = mPreviousUw;
         mPreviousUw = Uw;
+        mPreviousUwSilent = !hasUnvoicedBands;
 
         return unvoiced;
     }
 
     /**
-     * Resizes the voicing decisions array, as needed, padding the newly
-     * added indices with a 0-false value
+     * Reconstructs the voiced audio components using the model parameters from both the current and previous imbe frames.
+     *
+     * @param currentFrame - voice parameters
+     * @param u = white noise samples from algorithm #117
+     * @return - 160 samples of voiced audio component.  Note: the returned array is reused by this synthesizer and is
+     * overwritten on the next call to this method.
      */
-    private boolean[] resize(boolean[] voicingDecisions, int size)
+    public float[] getVoiced(MBEModelParameters currentFrame, float[] u)
     {
-        if(voicingDecisions.length != size)
-        {
-            boolean[] resized = new boolean[size];
+        float[] voiced = synthesizeVoiced(currentFrame, u);
 
-            System.arraycopy(voicingDecisions, 0, resized, 0, voicingDecisions.length);
-
-            return resized;
+        if(voiced == null)
+        {
+            voiced = mVoiced;
+            Arrays.fill(voiced, 0.0f);
         }
 
-        return voicingDecisions;
+        return voiced;
     }
 
     /**
-     * Reconstructs the voiced audio components using the model parameters from both the current and previous imbe frames.
+     * Reconstructs the voiced audio components using the model parameters from both the current and previous frames.
      *
      * @param currentFrame - voice parameters
      * @param u = white noise samples from algorithm #117
-     * @return - 160 samples of voiced audio component
+     * @return - 160 samples of voiced audio component, reused by this synthesizer, or null when the voiced component
+     * is silent because neither the current nor the previous frame contain voiced bands.
      */
-    public float[] getVoiced(MBEModelParameters currentFrame, float[] u)
+    private float[] synthesizeVoiced(MBEModelParameters currentFrame, float[] u)
     {
         float currentFrequency = currentFrame.getFundamentalFrequency();
         float previousFrequency = getPreviousFrame().getFundamentalFrequency();
@@ -362,7 +1027,7 @@ public abstract class MBESynthesizer
         float phaseOffsetPerFrame = averageFrequency * (float)SAMPLES_PER_FRAME;
 
         //Alg #139 - calculate current phase angle for each harmonic
-        float[] currentPhaseV = new float[57];
+        float[] currentPhaseV = mCurrentPhaseV;
 
         //Update each of the phase values
         for(int l = 1; l <= 56; l++)
@@ -374,30 +1039,35 @@ public abstract class MBESynthesizer
             currentPhaseV[l] = mPreviousPhaseV[l] + (phaseOffsetPerFrame * (float)l);
         }
 
-        //Short circuit if there are no voiced bands and return an array of zeros
+        //Short circuit if there are no voiced bands in either frame - the voiced component is silent
         if(!getPreviousFrame().hasVoicedBands() && !currentFrame.hasVoicedBands())
         {
-            mPreviousPhaseV = currentPhaseV;
-            return new float[160];
+            swapPhaseV();
+            return null;
         }
 
+        float[] voiced = mVoiced;
+        Arrays.fill(voiced, 0.0f);
+
         int currentL = currentFrame.getL();
         int previousL = getPreviousFrame().getL();
         int maxL = Math.max(currentL, previousL);
 
-        boolean[] currentVoicing = resize(currentFrame.getVoicingDecisions(), maxL + 1);
-        boolean[] previousVoicing = resize(getPreviousFrame().getVoicingDecisions(), maxL + 1);
+        //Voicing masks have the bits for harmonics above L cleared (unvoiced)
+        long currentVoicing = currentFrame.getVoicingMask();
+        long previousVoicing = getPreviousFrame().getVoicingMask();
 
         //Alg #128 & #129 - enhanced spectral amplitudes for current and previous frames outside range of 1 - L are set
         // to zero.  Below, in the audio generation loop, we control access to these arrays through the voicing
-        // decisions array.  Thus, we don't have to resize the enhanced spectral amplitudes arrays to the max L of
+        // decisions mask.  Thus, we don't have to resize the enhanced spectral amplitudes arrays to the max L of
         // current or previous.
 
         //Alg #140 partial - number of unvoiced spectral amplitudes (Luv) in current frame */
         int unvoicedBandCount = currentFrame.getUnvoicedBandCount();
 
         //Alg #139 - calculate current phase angle for each harmonic
-        float[] currentPhaseO = new float[57];
+        float[] currentPhaseO = mCurrentPhaseO;
+        Arrays.fill(currentPhaseO, maxL + 1, currentPhaseO.length, 0.0f);
         int threshold = (int)Math.floor((float)currentL / 4.0f);
 
         //Update each of the phase values
@@ -417,18 +1087,168 @@ public abstract class MBESynthesizer
 
         float[] currentM = currentFrame.getEnhancedSpectralAmplitudes();
         float[] previousM = getPreviousFrame().getEnhancedSpectralAmplitudes();
-        float[] voiced = new float[SAMPLES_PER_FRAME];
 
         //Alg #127 - reconstruct 160 voice samples using each of the l harmonics that are common between this frame and
         // the previous frame, using one of four algorithms selected by the combination of the voicing decisions of the
         // current and previous frames for each harmonic.
         boolean exceedsThreshold = Math.abs(currentFrequency - previousFrequency) >= (0.1 * currentFrequency);
 
+        if(mVoicedSynthesisMode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS)
+        {
+            //Phases, frequencies and amplitudes are converted to integer angles and fixed-point gains once per
+            // harmonic and the harmonics are accumulated with integer arithmetic
+            int[] accumulator = mVoicedFixedPoint;
+            Arrays.fill(accumulator, 0);
+            float[] currentW = currentFrame.getTables().getHarmonicFrequencies();
+            float[] previousW = getPreviousFrame().getTables().getHarmonicFrequencies();
+            int phaseOffsetAngle = FixedPointOscillatorBank.toAngle(phaseOffsetPerFrame);
+            long frequencyChange = FixedPointOscillatorBank.toAngle(currentFrequency) -
+                FixedPointOscillatorBank.toAngle(previousFrequency);
+
+            for(int l = 1; l <= maxL; l++)
+            {
+                boolean currentVoiced = ((currentVoicing >>> l) & 1L) != 0;
+                boolean previousVoiced = ((previousVoicing >>> l) & 1L) != 0;
+
+                if(currentVoiced && previousVoiced)
+                {
+                    if(l >= 8 || exceedsThreshold)
+                    {
+                        //Alg #133
+                        FixedPointOscillatorBank.addWindowedHarmonic(accumulator, SAMPLES_PER_FRAME,
+                            FixedPointOscillatorBank.toGain(previousM[l]),
+                            FixedPointOscillatorBank.toAngle(mPreviousPhaseO[l]),
+                            FixedPointOscillatorBank.toAngle(previousW[l]), 0);
+                        FixedPointOscillatorBank.addWindowedHarmonic(accumulator, SAMPLES_PER_FRAME,
+                            FixedPointOscillatorBank.toGain(currentM[l]),
+                            FixedPointOscillatorBank.toAngle(currentPhaseO[l]),
+                            FixedPointOscillatorBank.toAngle(currentW[l]), -SAMPLES_PER_FRAME);
+                    }
+                    else
+                    {
+                        int previousPhase = FixedPointOscillatorBank.toAngle(mPreviousPhaseO[l]);
+
+                        //Alg #137
+                        int ol = FixedPointOscillatorBank.toAngle(currentPhaseO[l]) - previousPhase -
+                            (phaseOffsetAngle * l);
+
+                        //Alg #138 - the integer angle difference is already wrapped to the range -PI to PI
+                        int wl = ol / SAMPLES_PER_FRAME;
+
+                        //Alg #134, #135 & #136
+                        FixedPointOscillatorBank.addInterpolatedHarmonic(accumulator, SAMPLES_PER_FRAME,
+                            FixedPointOscillatorBank.toGain(previousM[l]),
+                            FixedPointOscillatorBank.toGain(currentM[l]),
+                            previousPhase,
+                            FixedPointOscillatorBank.toAngle(previousW[l]) + wl,
+                            (int)((frequencyChange * l) / (2 * SAMPLES_PER_FRAME)));
+                    }
+                }
+                else if(!currentVoiced && previousVoiced)
+                {
+                    //Alg #131
+                    FixedPointOscillatorBank.addWindowedHarmonic(accumulator, SAMPLES_PER_FRAME,
+                        FixedPointOscillatorBank.toGain(previousM[l]),
+                        FixedPointOscillatorBank.toAngle(mPreviousPhaseO[l]),
+                        FixedPointOscillatorBank.toAngle(previousW[l]), 0);
+                }
+                else if(currentVoiced && !previousVoiced)
+                {
+                    //Alg #132
+                    FixedPointOscillatorBank.addWindowedHarmonic(accumulator, SAMPLES_PER_FRAME,
+                        FixedPointOscillatorBank.toGain(currentM[l]),
+                        FixedPointOscillatorBank.toAngle(currentPhaseO[l]),
+                        FixedPointOscillatorBank.toAngle(currentW[l]), -SAMPLES_PER_FRAME);
+                }
+
+                //Alg #130 - harmonics that are unvoiced in both the current and previous frames contribute nothing
+            }
+
+            for(int n = 0; n < SAMPLES_PER_FRAME; n++)
+            {
+                voiced[n] = accumulator[n] * FIXED_POINT_SAMPLE_SCALAR;
+            }
+
+            swapPhaseV();
+            swapPhaseO();
+
+            return voiced;
+        }
+
+        if(mVoicedSynthesisMode == VoicedSynthesisMode.PHASOR)
+        {
+            //Harmonic frequencies and rotation phasors for each harmonic are only accessed for the voiced harmonics
+            // 1 - L of each frame
+            FundamentalFrequencyTables currentTables = currentFrame.getTables();
+            FundamentalFrequencyTables previousTables = getPreviousFrame().getTables();
+            float[] currentW = currentTables.getHarmonicFrequencies();
+            double[] currentCos = currentTables.getHarmonicCosines();
+            double[] currentSin = currentTables.getHarmonicSines();
+            float[] previousW = previousTables.getHarmonicFrequencies();
+            double[] previousCos = previousTables.getHarmonicCosines();
+            double[] previousSin = previousTables.getHarmonicSines();
+
+            for(int l = 1; l <= maxL; l++)
+            {
+                boolean currentVoiced = ((currentVoicing >>> l) & 1L) != 0;
+                boolean previousVoiced = ((previousVoicing >>> l) & 1L) != 0;
+
+                if(currentVoiced && previousVoiced)
+                {
+                    if(l >= 8 || exceedsThreshold)
+                    {
+                        //Alg #133
+                        SynthesisKernels.addWindowedHarmonic(voiced, SAMPLES_PER_FRAME, previousM[l],
+                            mPreviousPhaseO[l], previousW[l], (float)previousCos[l], (float)previousSin[l], 0);
+                        SynthesisKernels.addWindowedHarmonic(voiced, SAMPLES_PER_FRAME, currentM[l],
+                            currentPhaseO[l], currentW[l], (float)currentCos[l], (float)currentSin[l],
+                            -SAMPLES_PER_FRAME);
+                    }
+                    else
+                    {
+                        //Alg #137
+                        float ol = (currentPhaseO[l] - mPreviousPhaseO[l] - (phaseOffsetPerFrame * (float)l));
+
+                        //Alg #138
+                        float wl = (ol - (TWO_PI * (float)Math.floor((ol + (float)Math.PI) / TWO_PI))) / 160.0f;
+
+                        //Alg #134, #135 & #136
+                        HarmonicOscillatorBank.addInterpolatedHarmonic(voiced, SAMPLES_PER_FRAME, previousM[l],
+                            currentM[l], mPreviousPhaseO[l], previousW[l] + wl,
+                            (currentFrequency - previousFrequency) * (float)l / 320.0f);
+                    }
+                }
+                else if(!currentVoiced && previousVoiced)
+                {
+                    //Alg #131
+                    SynthesisKernels.addWindowedHarmonic(voiced, SAMPLES_PER_FRAME, previousM[l],
+                        mPreviousPhaseO[l], previousW[l], (float)previousCos[l], (float)previousSin[l], 0);
+                }
+                else if(currentVoiced && !previousVoiced)
+                {
+                    //Alg #132
+                    SynthesisKernels.addWindowedHarmonic(voiced, SAMPLES_PER_FRAME, currentM[l],
+                        currentPhaseO[l], currentW[l], (float)currentCos[l], (float)currentSin[l],
+                        -SAMPLES_PER_FRAME);
+                }
+
+                //Alg #130 - harmonics that are unvoiced in both the current and previous frames contribute nothing
+            }
+
+            swapPhaseV();
+            swapPhaseO();
+
+            return voiced;
+        }
+
         for(int n = 0; n < SAMPLES_PER_FRAME; n++)
         {
             for(int l = 1; l <= maxL; l++)
             {
-                if(currentVoicing[l] && previousVoicing[l])
+                boolean currentVoiced = ((currentVoicing >>> l) & 1L) != 0;
+                boolean previousVoiced = ((previousVoicing >>> l) & 1L) != 0;
+
+                if(currentVoiced && previousVoiced)
                 {
                     if(l >= 8 || exceedsThreshold)
                     {
@@ -460,13 +1280,13 @@ public abstract class MBESynthesizer
                         voiced[n] += 2.0f * (amplitude * Math.cos(phase));
                     }
                 }
-                else if(!currentVoicing[l] && previousVoicing[l])
+                else if(!currentVoiced && previousVoiced)
                 {
                     //Alg #131
                     voiced[n] += 2.0f * (synthesisWindow(n) * previousM[l] *
                         (float)Math.cos(mPreviousPhaseO[l] + (previousFrequency * (float)n * (float)l)));
                 }
-                else if(currentVoicing[l] && !previousVoicing[l])
+                else if(currentVoiced && !previousVoiced)
                 {
                     //Alg #132
                     voiced[n] += 2.0f * (synthesisWindow(n - SAMPLES_PER_FRAME) * currentM[l] *
@@ -477,9 +1297,29 @@ public abstract class MBESynthesizer
             }
         }
 
-        mPreviousPhaseV = currentPhaseV;
-        mPreviousPhaseO = currentPhaseO;
+        swapPhaseV();
+        swapPhaseO();
 
         return voiced;
     }
+
+    /**
+     * Swaps the current and previous phase V buffers so that the current phase values become the previous values
+     */
+    private void swapPhaseV()
+    {
+        float[] previous = mPreviousPhaseV;
+        mPreviousPhaseV = mCurrentPhaseV;
+        mCurrentPhaseV = previous;
+    }
+
+    /**
+     * Swaps the current and previous phase O buffers so that the current phase values become the previous values
+     */
+    private void swapPhaseO()
+    {
+        float[] previous = mPreviousPhaseO;
+        mPreviousPhaseO = mCurrentPhaseO;
+        mCurrentPhaseO = previous;
+    }
 }
@@ -0,0 +1,522 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+import jmbe.codec.imbe.Window;
+
+import java.util.Arrays;
+
+/**
+ * Synthesizes MBE voice frames directly at an output sample rate that is an integer multiple (factor) of 8 kHz, e.g.
+ * 320 samples per 20 ms frame at 16 kHz or 960 samples at 48 kHz, without an output resampler.  Frames can also be
+ * synthesized with fewer samples than 20 ms at the output rate, for time-scaled (faster) playback with unchanged
+ * pitch.
+ *
+ * The fundamental frequency, spectral amplitudes and voicing decisions of the model parameters do not depend on the
+ * sample rate.  This engine performs the voiced (Alg #127 - #140) and unvoiced (Alg #117 - #126) synthesis of the
+ * 8 kHz synthesizer with the harmonic frequencies in radians per sample divided by the factor, the synthesis window
+ * stretched by the factor, and a power of two DFT that spans the stretched window for the unvoiced component.  The
+ * phase advance per frame is unchanged, so the voiced harmonics have the same phases at each frame boundary as the
+ * 8 kHz synthesizer.  The unvoiced component is spectrally shaped white noise from an independent noise source,
+ * with the DFT bins scaled so that the unvoiced signal power matches the 8 kHz synthesizer and the bins above the
+ * highest frequency band zeroized, so the output is band limited to the 4 kHz bandwidth of the model.
+ *
+ * For time-scaled playback, each frame is synthesized with N samples instead of 20 ms of samples.  The harmonic
+ * frequencies are unchanged, while the synthesis window and the overlap-add are compressed to the N sample frame and
+ * the phase advance per frame (Alg #139) is the average frequency times N, so that each harmonic is continuous from
+ * frame to frame at the same pitch.
+ *
+ * Voiced harmonics are always generated with the phasor oscillators.  @see HarmonicOscillatorBank
+ *
+ * The cost of the harmonic oscillators grows with the number of output samples, so this engine costs more per frame
+ * than 8 kHz synthesis with the polyphase resampler output stage (about 1.5 times at 16 kHz and 3 times at 48 kHz).
+ * In exchange, the audio has no resampler group delay and no pass band roll-off between 3.4 kHz and 4 kHz.
+ */
+public class NativeRateSynthesisEngine
+{
+    /**
+     * Seed of the unvoiced white noise sequence until setNoiseSeed() is called
+     */
+    public static final long DEFAULT_NOISE_SEED = 0x4D42454E41544956L;
+
+    private final int mFactor;
+    private final int mSamplesPerFrame;
+    private final RealFFT mFFT;
+    private final int mDFTSize;
+
+    //Synthesis window stretched to the frame length, for window indexes -(105 * N / 160) <> (105 * N / 160)
+    private final float[] mWindow;
+
+    //Alg #126 weighted overlap-add weights of the previous and current inverse DFT results for each output sample
+    private final float[] mPreviousWeight;
+    private final float[] mCurrentWeight;
+
+    //Alg #121 unvoiced scaling coefficient adjusted for the output rate and the frame length
+    private final float mUnvoicedScalor;
+
+    private final INoiseSource mNoiseSource = new XorShiftNoiseSource(DEFAULT_NOISE_SEED);
+    private float[] mPreviousPhaseO = new float[57];
+    private float[] mPreviousPhaseV = new float[57];
+    private float[] mCurrentPhaseO = new float[57];
+    private float[] mCurrentPhaseV = new float[57];
+    private float[] mPreviousUw;
+    private float[] mCurrentUw;
+    private boolean mPreviousUwSilent = true;
+    private final float[] mVoiced;
+    private final float[] mUnvoiced;
+
+    /**
+     * Constructs an instance that synthesizes 20 ms frames at the output rate
+     *
+     * @param factor of the output sample rate relative to 8 kHz, in range 1 - 6
+     * @throws IllegalArgumentException if the factor is not supported
+     */
+    public NativeRateSynthesisEngine(int factor)
+    {
+        this(factor, MBESynthesizer.SAMPLES_PER_FRAME * factor);
+    }
+
+    /**
+     * Constructs an instance that synthesizes frames of the specified length at the output rate.  A frame length of
+     * 160 * factor samples is 20 ms, and shorter frame lengths play back faster by 160 * factor / length.
+     *
+     * @param factor of the output sample rate relative to 8 kHz, in range 1 - 6
+     * @param samplesPerFrame a multiple of the factor in range 40 * factor - 160 * factor
+     * @throws IllegalArgumentException if the factor or the frame length is not supported
+     */
+    public NativeRateSynthesisEngine(int factor, int samplesPerFrame)
+    {
+        if(factor < 1 || factor > PolyphaseResampler.MAXIMUM_FACTOR)
+        {
+            throw new IllegalArgumentException("Native rate factor [" + factor + "] must be in range 1 - " +
+                PolyphaseResampler.MAXIMUM_FACTOR);
+        }
+
+        if(samplesPerFrame % factor != 0 || samplesPerFrame < 40 * factor ||
+            samplesPerFrame > MBESynthesizer.SAMPLES_PER_FRAME * factor)
+        {
+            throw new IllegalArgumentException("Samples per frame [" + samplesPerFrame + "] must be a multiple of " +
+                factor + " in range " + (40 * factor) + " - " + (MBESynthesizer.SAMPLES_PER_FRAME * factor));
+        }
+
+        mFactor = factor;
+        mSamplesPerFrame = samplesPerFrame;
+
+        int halfLength = (HarmonicOscillatorBank.WINDOW_HALF_LENGTH * samplesPerFrame) /
+            MBESynthesizer.SAMPLES_PER_FRAME;
+        mWindow = new float[(2 * halfLength) + 1];
+
+        //The synthesis window is piecewise linear, so linear interpolation of the coefficients is an exact stretch
+        for(int m = -halfLength; m <= halfLength; m++)
+        {
+            int scaled = m * MBESynthesizer.SAMPLES_PER_FRAME;
+            int n = Math.floorDiv(scaled, samplesPerFrame);
+            float fraction = (float)(scaled - (n * samplesPerFrame)) / (float)samplesPerFrame;
+            mWindow[m + halfLength] = MBESynthesizer.synthesisWindow(n) +
+                (fraction * (MBESynthesizer.synthesisWindow(n + 1) - MBESynthesizer.synthesisWindow(n)));
+        }
+
+        mDFTSize = Integer.highestOneBit(2 * halfLength) * 2;
+        mFFT = new RealFFT(mDFTSize);
+        mPreviousUw = new float[mDFTSize];
+        mCurrentUw = new float[mDFTSize];
+
+        mPreviousWeight = new float[mSamplesPerFrame];
+        mCurrentWeight = new float[mSamplesPerFrame];
+
+        for(int n = 0; n < mSamplesPerFrame; n++)
+        {
+            float previousWindow = window(n);
+            float currentWindow = window(n - mSamplesPerFrame);
+            float denominator = (previousWindow * previousWindow) + (currentWindow * currentWindow);
+            mPreviousWeight[n] = previousWindow / denominator;
+            mCurrentWeight[n] = currentWindow / denominator;
+        }
+
+        //The band energy of the windowed noise is spread over (DFT size / 256) / factor times as many bins and the
+        //inverse DFT energy is concentrated in a window that is N / 160 times longer, so the bin amplitudes are scaled
+        //by the square root of the product to produce the same unvoiced signal power as the 8 kHz synthesizer
+        mUnvoicedScalor = MBESynthesizer.UNVOICED_SCALING_COEFFICIENT *
+            (float)Math.sqrt((double)factor * samplesPerFrame / MBESynthesizer.SAMPLES_PER_FRAME);
+
+        mVoiced = new float[mSamplesPerFrame];
+        mUnvoiced = new float[mSamplesPerFrame];
+    }
+
+    /**
+     * Factor of the output sample rate relative to 8 kHz
+     */
+    public int getFactor()
+    {
+        return mFactor;
+    }
+
+    /**
+     * Number of samples per frame at the output sample rate
+     */
+    public int getSamplesPerFrame()
+    {
+        return mSamplesPerFrame;
+    }
+
+    /**
+     * Seeds the white noise sequence for the unvoiced synthesis, so that identical frame sequences produce identical
+     * audio output
+     *
+     * @param seed value
+     */
+    public void setNoiseSeed(long seed)
+    {
+        mNoiseSource.setSeed(seed);
+    }
+
+    /**
+     * Resets the harmonic phases and the unvoiced overlap-add history for a new call
+     */
+    public void reset()
+    {
+        Arrays.fill(mPreviousPhaseO, 0.0f);
+        Arrays.fill(mPreviousPhaseV, 0.0f);
+        Arrays.fill(mPreviousUw, 0.0f);
+        mPreviousUwSilent = true;
+    }
+
+    /**
+     * Stretched synthesis window coefficient
+     */
+    private float window(int m)
+    {
+        int halfLength = mWindow.length / 2;
+
+        if(m < -halfLength || m > halfLength)
+        {
+            return 0.0f;
+        }
+
+        return mWindow[m + halfLength];
+    }
+
+    /**
+     * Synthesizes one frame of voice audio at the output rate, combines the voiced and unvoiced components, applies
+     * the gain and clips the samples (Alg #142).
+     *
+     * @param currentFrame model parameters
+     * @param previousFrame model parameters
+     * @param u white noise samples from algorithm #117, used for the voiced phase of the unvoiced bands (Alg #140)
+     * @param gain applied to the combined samples
+     * @param limit for clipping
+     * @param output array to receive the samples per frame
+     * @param offset into the output array for the first sample
+     */
+    public void synthesize(MBEModelParameters currentFrame, MBEModelParameters previousFrame, float[] u, float gain,
+                           float limit, float[] output, int offset)
+    {
+        boolean unvoiced = synthesizeUnvoiced(currentFrame);
+        boolean voiced = synthesizeVoiced(currentFrame, previousFrame, u);
+
+        if(!unvoiced && !voiced)
+        {
+            Arrays.fill(output, offset, offset + mSamplesPerFrame, 0.0f);
+            return;
+        }
+
+        if(!unvoiced)
+        {
+            Arrays.fill(mUnvoiced, 0.0f);
+        }
+
+        if(!voiced)
+        {
+            Arrays.fill(mVoiced, 0.0f);
+        }
+
+        SynthesisKernels.mix(mVoiced, mUnvoiced, gain, limit, output, offset, mSamplesPerFrame);
+    }
+
+    /**
+     * Generates the unvoiced component into the unvoiced buffer
+     *
+     * @return true if generated, or false when the unvoiced component is silent because neither the current nor the
+     * previous frame contain unvoiced bands
+     */
+    private boolean synthesizeUnvoiced(MBEModelParameters parameters)
+    {
+        boolean hasUnvoicedBands = parameters.hasUnvoicedBands();
+
+        if(!hasUnvoicedBands && mPreviousUwSilent)
+        {
+            return false;
+        }
+
+        float[] Uw = mCurrentUw;
+        int center = mDFTSize / 2;
+
+        if(hasUnvoicedBands)
+        {
+            //Alg #117 and #118 - DFT of the windowed white noise, centered on DFT index 0 of the window
+            int halfLength = mWindow.length / 2;
+            Arrays.fill(Uw, 0.0f);
+            mNoiseSource.getSamples(Uw, center - halfLength, mWindow.length, 1.0f);
+
+            for(int x = 0; x < mWindow.length; x++)
+            {
+                Uw[center - halfLength + x] *= mWindow[x];
+            }
+
+            mFFT.realForward(Uw);
+
+            //Alg #119 - #124 - scale the bins of the unvoiced bands and zeroize the voiced and out-of-band bins, using
+            //the band edges of Alg #122 and #123 for the DFT size and the output rate.  As with the 256-point DFT, the
+            //band energy is measured over the bins below 4 kHz and averaged over all of the band's bins.
+            long voicingMask = parameters.getVoicingMask();
+            float[] M = parameters.getEnhancedSpectralAmplitudes();
+            int L = parameters.getL();
+            float multiplier = (float)mDFTSize / MBESynthesizer.TWO_PI * parameters.getFundamentalFrequency() /
+                (float)mFactor;
+
+            int maximumBin = mDFTSize / (2 * mFactor);
+            int a = (int)Math.ceil(0.5f * multiplier);
+            Arrays.fill(Uw, 0, 2 * Math.min(a, maximumBin), 0.0f);
+
+            for(int l = 1; l <= L; l++)
+            {
+                int b = (int)Math.ceil(((float)l + 0.5f) * multiplier);
+                int start = Math.min(a, maximumBin);
+                int end = Math.min(b, maximumBin);
+
+                if(((voicingMask >>> l) & 1L) == 0)
+                {
+                    float numerator = SynthesisKernels.sumOfSquares(Uw, 2 * start, 2 * end);
+                    float scalor = mUnvoicedScalor * M[l] / (float)Math.sqrt(numerator / (float)(b - a));
+
+                    for(int x = 2 * start; x < 2 * end; x++)
+                    {
+                        Uw[x] *= scalor;
+                    }
+                }
+                else
+                {
+                    Arrays.fill(Uw, 2 * start, 2 * end, 0.0f);
+                }
+
+                a = b;
+            }
+
+            Arrays.fill(Uw, 2 * Math.min(a, maximumBin), mDFTSize, 0.0f);
+
+            //Alg #125
+            mFFT.realInverse(Uw, true);
+        }
+        else
+        {
+            Arrays.fill(Uw, 0.0f);
+        }
+
+        //Alg #126 - weighted overlap-add of the previous and current inverse DFT results, where the previous results
+        //are centered on sample 0 and the current results on sample N of the frame
+        float[] previousUw = mPreviousUw;
+        float[] unvoiced = mUnvoiced;
+        int previousEnd = Math.min(mSamplesPerFrame, center);
+        int currentStart = Math.max(0, mSamplesPerFrame - center);
+
+        for(int n = 0; n < previousEnd; n++)
+        {
+            unvoiced[n] = mPreviousWeight[n] * previousUw[n + center];
+        }
+
+        Arrays.fill(unvoiced, previousEnd, mSamplesPerFrame, 0.0f);
+
+        for(int n = currentStart; n < mSamplesPerFrame; n++)
+        {
+            unvoiced[n] += mCurrentWeight[n] * Uw[n - mSamplesPerFrame + center];
+        }
+
+        mCurrentUw = previousUw;
+        mPreviousUw = Uw;
+        mPreviousUwSilent = !hasUnvoicedBands;
+
+        return true;
+    }
+
+    /**
+     * Generates the voiced component into the voiced buffer
+     *
+     * @return true if generated, or false when the voiced component is silent because neither the current nor the
+     * previous frame contain voiced bands
+     */
+    private boolean synthesizeVoiced(MBEModelParameters currentFrame, MBEModelParameters previousFrame, float[] u)
+    {
+        float currentFrequency = currentFrame.getFundamentalFrequency();
+        float previousFrequency = previousFrame.getFundamentalFrequency();
+        float averageFrequency = (previousFrequency + currentFrequency) / 2.0f;
+
+        //Alg #139 - the phase advance per frame in radians does not depend on the sample rate, and is proportional to
+        //the frame length for time-scaled playback
+        float phaseOffsetPerFrame = averageFrequency * (float)(mSamplesPerFrame / mFactor);
+
+        //Alg #139 - calculate current phase angle for each harmonic
+        float[] currentPhaseV = mCurrentPhaseV;
+
+        for(int l = 1; l <= 56; l++)
+        {
+            mPreviousPhaseV[l] %= MBESynthesizer.TWO_PI;
+            currentPhaseV[l] = mPreviousPhaseV[l] + (phaseOffsetPerFrame * (float)l);
+        }
+
+        if(!previousFrame.hasVoicedBands() && !currentFrame.hasVoicedBands())
+        {
+            swapPhaseV();
+            return false;
+        }
+
+        float[] voiced = mVoiced;
+        Arrays.fill(voiced, 0.0f);
+
+        int currentL = currentFrame.getL();
+        int previousL = previousFrame.getL();
+        int maxL = Math.max(currentL, previousL);
+        long currentVoicing = currentFrame.getVoicingMask();
+        long previousVoicing = previousFrame.getVoicingMask();
+
+        //Alg #140 - calculate current phase o values
+        int unvoicedBandCount = currentFrame.getUnvoicedBandCount();
+        float[] currentPhaseO = mCurrentPhaseO;
+        Arrays.fill(currentPhaseO, maxL + 1, currentPhaseO.length, 0.0f);
+        int threshold = (int)Math.floor((float)currentL / 4.0f);
+
+        for(int l = 1; l <= 56; l++)
+        {
+            if(l <= threshold)
+            {
+                currentPhaseO[l] = currentPhaseV[l];
+            }
+            else if(l <= maxL)
+            {
+                float pl = MBESynthesizer.WHITE_NOISE_SCALAR * u[l] - (float)Math.PI;
+                currentPhaseO[l] = currentPhaseV[l] + (((float)unvoicedBandCount * pl) / (float)currentL);
+            }
+        }
+
+        float[] currentM = currentFrame.getEnhancedSpectralAmplitudes();
+        float[] previousM = previousFrame.getEnhancedSpectralAmplitudes();
+        FundamentalFrequencyTables currentTables = currentFrame.getTables();
+        FundamentalFrequencyTables previousTables = previousFrame.getTables();
+        float[] previousW = previousTables.getHarmonicFrequencies();
+        float factor = (float)mFactor;
+        int N = mSamplesPerFrame;
+
+        //Alg #127 - harmonic frequencies in radians per sample at the output rate
+        boolean exceedsThreshold = Math.abs(currentFrequency - previousFrequency) >= (0.1 * currentFrequency);
+
+        for(int l = 1; l <= maxL; l++)
+        {
+            boolean currentVoiced = ((currentVoicing >>> l) & 1L) != 0;
+            boolean previousVoiced = ((previousVoicing >>> l) & 1L) != 0;
+
+            if(currentVoiced && previousVoiced)
+            {
+                if(l >= 8 || exceedsThreshold)
+                {
+                    //Alg #133
+                    addWindowedHarmonic(previousM[l], mPreviousPhaseO[l], previousTables, l, 0);
+                    addWindowedHarmonic(currentM[l], currentPhaseO[l], currentTables, l, -N);
+                }
+                else
+                {
+                    //Alg #137
+                    float ol = (currentPhaseO[l] - mPreviousPhaseO[l] - (phaseOffsetPerFrame * (float)l));
+
+                    //Alg #138 - the phase correction is spread over the N samples of the frame
+                    float wl = (ol - (MBESynthesizer.TWO_PI * (float)Math.floor((ol + (float)Math.PI) /
+                        MBESynthesizer.TWO_PI))) / (float)N;
+
+                    //Alg #134, #135 & #136
+                    HarmonicOscillatorBank.addInterpolatedHarmonic(voiced, N, previousM[l], currentM[l],
+                        mPreviousPhaseO[l], (previousW[l] / factor) + wl,
+                        (currentFrequency - previousFrequency) * (float)l / (2.0f * (float)N * factor));
+                }
+            }
+            else if(!currentVoiced && previousVoiced)
+            {
+                //Alg #131
+                addWindowedHarmonic(previousM[l], mPreviousPhaseO[l], previousTables, l, 0);
+            }
+            else if(currentVoiced && !previousVoiced)
+            {
+                //Alg #132
+                addWindowedHarmonic(currentM[l], currentPhaseO[l], currentTables, l, -N);
+            }
+
+            //Alg #130 - harmonics that are unvoiced in both the current and previous frames contribute nothing
+        }
+
+        swapPhaseV();
+        swapPhaseO();
+
+        return true;
+    }
+
+    /**
+     * Adds harmonic l as a constant frequency harmonic weighted by the stretched synthesis window to the voiced
+     * buffer.  At 8 kHz (time-scaled playback) the harmonic frequency is unchanged and the rotation phasor is taken
+     * from the fundamental frequency tables.
+     */
+    private void addWindowedHarmonic(float amplitude, float phase, FundamentalFrequencyTables tables, int l,
+                                     int windowOffset)
+    {
+        float frequency = tables.getHarmonicFrequencies()[l] / (float)mFactor;
+        float rotationInphase;
+        float rotationQuadrature;
+
+        if(mFactor == 1)
+        {
+            rotationInphase = (float)tables.getHarmonicCosines()[l];
+            rotationQuadrature = (float)tables.getHarmonicSines()[l];
+        }
+        else
+        {
+            rotationInphase = (float)Math.cos(frequency);
+            rotationQuadrature = (float)Math.sin(frequency);
+        }
+
+        HarmonicOscillatorBank.addWindowedHarmonic(mVoiced, mSamplesPerFrame, amplitude, phase, frequency,
+            rotationInphase, rotationQuadrature, windowOffset, mWindow);
+    }
+
+    /**
+     * Swaps the current and previous phase V buffers so that the current phase values become the previous values
+     */
+    private void swapPhaseV()
+    {
+        float[] previous = mPreviousPhaseV;
+        mPreviousPhaseV = mCurrentPhaseV;
+        mCurrentPhaseV = previous;
+    }
+
+    /**
+     * Swaps the current and previous phase O buffers so that the current phase values become the previous values
+     */
+    private void swapPhaseO()
+    {
+        float[] previous = mPreviousPhaseO;
+        mPreviousPhaseO = mCurrentPhaseO;
+        mCurrentPhaseO = previous;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Shared cache of the 256-point DFT of each windowed white noise buffer produced by the MBE noise sequence generator.
+ *
+ * The noise sequence is deterministic and every synthesizer starts from the same seed, so the windowed buffer at each
+ * position of the 10625 buffer period, and therefore its forward DFT, is identical for all synthesizers.  Spectra are
+ * added lazily as they are first computed, or all at once with precompute().  A full cache holds 10625 x 256 floats
+ * (about 11 MB).
+ */
+public class NoiseSpectrumCache
+{
+    private static final AtomicReferenceArray<float[]> SPECTRA =
+        new AtomicReferenceArray<>(MBENoiseSequenceGenerator.BUFFER_PERIOD);
+
+    private NoiseSpectrumCache()
+    {
+    }
+
+    /**
+     * Cached spectrum for the noise buffer index, or null if the spectrum has not been computed
+     *
+     * @param index of the buffer in the noise sequence period.  See MBENoiseSequenceGenerator.getBufferIndex()
+     * @return cached 256 element spectrum in the RealFFT256 format, or null.  Do not modify.
+     */
+    public static float[] get(int index)
+    {
+        return SPECTRA.get(index);
+    }
+
+    /**
+     * Adds a copy of the spectrum for the noise buffer index, unless it is already cached
+     *
+     * @param index of the buffer in the noise sequence period
+     * @param spectrum 256 element forward DFT of the windowed noise buffer
+     */
+    public static void put(int index, float[] spectrum)
+    {
+        if(SPECTRA.get(index) == null)
+        {
+            SPECTRA.compareAndSet(index, null, spectrum.clone());
+        }
+    }
+
+    /**
+     * Computes and caches the spectrum for every buffer in the noise sequence period, so that no synthesizer needs to
+     * compute a forward DFT of the noise.
+     */
+    public static void precompute()
+    {
+        MBENoiseSequenceGenerator generator = new MBENoiseSequenceGenerator();
+        float[] noise = new float[256];
+        float[] spectrum = new float[256];
+
+        //Skip the two start-up buffers that are outside of the period
+        generator.nextBuffer(noise);
+        generator.nextBuffer(noise);
+
+        for(int x = 0; x < MBENoiseSequenceGenerator.BUFFER_PERIOD; x++)
+        {
+            generator.nextBuffer(noise);
+
+            if(get(generator.getBufferIndex()) == null)
+            {
+                MBESynthesizer.applyWindow(noise, spectrum);
+                RealFFT256.realForward(spectrum);
+                put(generator.getBufferIndex(), spectrum);
+            }
+        }
+    }
+
+    /**
+     * Number of cached spectra
+     */
+    public static int size()
+    {
+        int count = 0;
+
+        for(int x = 0; x < SPECTRA.length(); x++)
+        {
+            if(SPECTRA.get(x) != null)
+            {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+import java.util.Arrays;
+
+/**
+ * Polyphase FIR interpolator that resamples the 8 kHz synthesizer output by an integer factor, e.g. 2 for 16 kHz or 6
+ * for 48 kHz.  The low pass filter is a Kaiser windowed sinc with a 4 kHz cutoff and 80 dB stop band attenuation, split
+ * into one precomputed coefficient bank per output phase, so that each output sample costs one 32 tap dot product.  The
+ * pass band is flat (within 0.01 dB) to 3.4 kHz.  The filter delay line is carried across frames, so that frames
+ * resample as a continuous stream with a fixed group delay of (32 * factor - 1) / 2 output samples.
+ *
+ * Output samples are clipped to the synthesizer's maximum amplitude, since the filter can overshoot.
+ */
+public class PolyphaseResampler
+{
+    /**
+     * Filter taps per coefficient bank (output phase)
+     */
+    public static final int TAPS_PER_PHASE = 32;
+
+    /**
+     * Maximum interpolation factor (48 kHz output)
+     */
+    public static final int MAXIMUM_FACTOR = 6;
+
+    private static final double KAISER_BETA = 7.857;
+    private static final float LIMIT = MBESynthesizer.MAXIMUM_AUDIO_AMPLITUDE;
+
+    private final int mFactor;
+
+    //Coefficient banks, one per output phase
+    private final float[][] mBanks;
+
+    //Delay line of the most recent input samples, written twice so that the newest TAPS_PER_PHASE samples are always
+    //contiguous from the write pointer, oldest first
+    private final float[] mDelay = new float[2 * TAPS_PER_PHASE];
+    private int mPointer;
+
+    /**
+     * Constructs an instance
+     *
+     * @param factor interpolation factor in the range 2 - 6
+     * @throws IllegalArgumentException if the factor is not supported
+     */
+    public PolyphaseResampler(int factor)
+    {
+        if(factor < 2 || factor > MAXIMUM_FACTOR)
+        {
+            throw new IllegalArgumentException("Interpolation factor [" + factor + "] must be in range 2 - " +
+                MAXIMUM_FACTOR);
+        }
+
+        mFactor = factor;
+        mBanks = createBanks(factor);
+    }
+
+    /**
+     * Interpolation factor
+     */
+    public int getFactor()
+    {
+        return mFactor;
+    }
+
+    /**
+     * Clears the filter delay line, for a new call
+     */
+    public void reset()
+    {
+        Arrays.fill(mDelay, 0.0f);
+        mPointer = 0;
+    }
+
+    /**
+     * Resamples the input samples and writes (count * factor) output samples to the output array
+     *
+     * @param input samples at 8 kHz
+     * @param inputOffset to the first input sample
+     * @param count of input samples
+     * @param output array to receive the samples at the output rate
+     * @param outputOffset to the first output sample
+     */
+    public void resample(float[] input, int inputOffset, int count, float[] output, int outputOffset)
+    {
+        int pointer = outputOffset;
+
+        for(int x = 0; x < count; x++)
+        {
+            push(input[inputOffset + x]);
+            pointer = interpolate(output, pointer);
+        }
+    }
+
+    /**
+     * Alg #142 fused with the resampler: combines the voiced and unvoiced samples, scales and clips each combined
+     * sample and resamples it directly into the output array, without an intermediate 8 kHz buffer.
+     *
+     * @param voiced samples at 8 kHz
+     * @param unvoiced samples at 8 kHz
+     * @param gain applied to the combined samples
+     * @param limit for the absolute value of the combined samples
+     * @param output array to receive (count * factor) samples at the output rate
+     * @param outputOffset to the first output sample
+     * @param count of voiced and unvoiced samples
+     */
+    public void mix(float[] voiced, float[] unvoiced, float gain, float limit, float[] output, int outputOffset,
+                    int count)
+    {
+        int pointer = outputOffset;
+
+        for(int x = 0; x < count; x++)
+        {
+            float sample = (voiced[x] + unvoiced[x]) * gain;
+
+            if(sample > limit)
+            {
+                sample = limit;
+            }
+            else if(sample < -limit)
+            {
+                sample = -limit;
+            }
+
+            push(sample);
+            pointer = interpolate(output, pointer);
+        }
+    }
+
+    /**
+     * Adds the sample to the delay line
+     */
+    private void push(float sample)
+    {
+        mDelay[mPointer] = sample;
+        mDelay[mPointer + TAPS_PER_PHASE] = sample;
+        mPointer++;
+
+        if(mPointer == TAPS_PER_PHASE)
+        {
+            mPointer = 0;
+        }
+    }
+
+    /**
+     * Calculates one output sample per coefficient bank from the delay line.  Each dot product is accumulated in four
+     * interleaved partial sums to shorten the floating point addition dependency chain.
+     *
+     * @return output pointer following the written samples
+     */
+    private int interpolate(float[] output, int pointer)
+    {
+        float[] delay = mDelay;
+        int start = mPointer;
+
+        for(float[] bank : mBanks)
+        {
+            float sum0 = 0.0f;
+            float sum1 = 0.0f;
+            float sum2 = 0.0f;
+            float sum3 = 0.0f;
+
+            for(int k = 0; k < TAPS_PER_PHASE; k += 4)
+            {
+                sum0 += bank[k] * delay[start + k];
+                sum1 += bank[k + 1] * delay[start + k + 1];
+                sum2 += bank[k + 2] * delay[start + k + 2];
+                sum3 += bank[k + 3] * delay[start + k + 3];
+            }
+
+            float sample = (sum0 + sum1) + (sum2 + sum3);
+
+            if(sample > LIMIT)
+            {
+                sample = LIMIT;
+            }
+            else if(sample < -LIMIT)
+            {
+                sample = -LIMIT;
+            }
+
+            output[pointer++] = sample;
+        }
+
+        return pointer;
+    }
+
+    /**
+     * Designs the Kaiser windowed sinc low pass filter at the output rate and splits it into one coefficient bank per
+     * output phase.  Bank p holds the taps h[p + (k * factor)] in reverse order, to match the oldest-first delay line,
+     * and the filter is scaled for unity pass band gain at the output rate.
+     */
+    private static float[][] createBanks(int factor)
+    {
+        int length = TAPS_PER_PHASE * factor;
+        double center = (length - 1) / 2.0;
+        double cutoff = 0.5 / factor;
+        double[] h = new double[length];
+        double sum = 0.0;
+
+        for(int n = 0; n < length; n++)
+        {
+            double t = n - center;
+            double sinc = (t == 0.0) ? 2.0 * cutoff : Math.sin(2.0 * Math.PI * cutoff * t) / (Math.PI * t);
+            double ratio = t / center;
+            double window = besselI0(KAISER_BETA * Math.sqrt(1.0 - (ratio * ratio))) / besselI0(KAISER_BETA);
+            h[n] = sinc * window;
+            sum += h[n];
+        }
+
+        float[][] banks = new float[factor][TAPS_PER_PHASE];
+
+        for(int p = 0; p < factor; p++)
+        {
+            for(int k = 0; k < TAPS_PER_PHASE; k++)
+            {
+                banks[p][TAPS_PER_PHASE - 1 - k] = (float)(h[p + (k * factor)] * factor / sum);
+            }
+        }
+
+        return banks;
+    }
+
+    /**
+     * Zeroth order modified Bessel function of the first kind, for the Kaiser window
+     */
+    private static double besselI0(double x)
+    {
+        double sum = 1.0;
+        double term = 1.0;
+        double halfX = x / 2.0;
+
+        for(int k = 1; k < 50; k++)
+        {
+            term *= (halfX / k) * (halfX / k);
+            sum += term;
+
+            if(term < sum * 1e-12)
+            {
+                break;
+            }
+        }
+
+        return sum;
+    }
+}
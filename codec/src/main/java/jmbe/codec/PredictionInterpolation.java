@@ -0,0 +1,107 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Shared interpolation weights for predicting the current frame's log2 spectral amplitudes from the previous frame's
+ * log2 spectral amplitudes when the number of harmonics changes between frames (IMBE Alg #75 & #76, AMBE Alg #40 &
+ * #41).
+ *
+ * For each harmonic l of the current frame, kl = l * previousL / L, the floor of kl selects the previous frame's
+ * harmonic and the fractional part of kl is the interpolation weight applied between that harmonic and the next.  The
+ * weights depend only on the previous and current L values, so they are created on first use of each of the 57 x 57
+ * (previous L, current L) pairs and are shared by all codec instances.
+ */
+public final class PredictionInterpolation
+{
+    private static final int SIZE = MBEModelParameters.MAX_L + 1;
+    private static final AtomicReferenceArray<PredictionInterpolation> INTERPOLATIONS =
+        new AtomicReferenceArray<>(SIZE * SIZE);
+
+    private final int[] mFloors;
+    private final float[] mWeights;
+
+    /**
+     * Constructs the weights for the previous and current L values
+     */
+    private PredictionInterpolation(int previousL, int L)
+    {
+        mFloors = new int[L + 1];
+        mWeights = new float[L + 1];
+
+        float scale = (float)previousL / (float)L;
+
+        for(int l = 1; l <= L; l++)
+        {
+            float kl = (float)l * scale;
+            mFloors[l] = (int)Math.floor(kl);
+            mWeights[l] = kl - (float)mFloors[l];
+        }
+    }
+
+    /**
+     * Interpolation weights for the previous frame L and current frame L.
+     *
+     * @param previousL number of harmonics in the previous frame, in range 0 - 56
+     * @param L number of harmonics in the current frame, in range 0 - 56
+     * @return shared interpolation weights
+     */
+    public static PredictionInterpolation get(int previousL, int L)
+    {
+        if(previousL < 0 || previousL >= SIZE || L < 0 || L >= SIZE)
+        {
+            throw new IllegalArgumentException("Previous L [" + previousL + "] and L [" + L +
+                "] must be in range 0 - " + (SIZE - 1));
+        }
+
+        int index = (previousL * SIZE) + L;
+        PredictionInterpolation interpolation = INTERPOLATIONS.get(index);
+
+        if(interpolation == null)
+        {
+            interpolation = new PredictionInterpolation(previousL, L);
+
+            if(!INTERPOLATIONS.compareAndSet(index, null, interpolation))
+            {
+                interpolation = INTERPOLATIONS.get(index);
+            }
+        }
+
+        return interpolation;
+    }
+
+    /**
+     * Floor of kl for each harmonic l at array indexes 1 - L.  Do not modify.
+     */
+    public int[] getFloors()
+    {
+        return mFloors;
+    }
+
+    /**
+     * Interpolation weight (sl), the fractional part of kl, for each harmonic l at array indexes 1 - L.  Do not modify.
+     */
+    public float[] getWeights()
+    {
+        return mWeights;
+    }
+}
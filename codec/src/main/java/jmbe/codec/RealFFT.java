@@ -0,0 +1,274 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+/**
+ * Real FFT and inverse FFT for any power of two size of 8 or more.
+ *
+ * The real sequence of N samples is transformed as an N/2-point complex sequence of (even, odd) sample pairs using an
+ * iterative radix-2 FFT, followed by a split step that separates the even and odd sample spectra.  The twiddle and bit
+ * reversal tables are created for the size by the constructor.  The butterfly loops are not unrolled, so that the
+ * methods stay under the JIT compiler's huge method limit.
+ *
+ * Spectrum format (same as JTransforms FloatFFT_1D.realForward): a[0] = Re[0], a[1] = Re[N/2], a[2k] = Re[k] and
+ * a[2k + 1] = Im[k] for k = 1 - (N/2 - 1).
+ *
+ * @see RealFFT256
+ */
+public class RealFFT
+{
+    private final int mSize;
+    private final int mComplexSize;
+
+    //Complex twiddles: cos and sin of 2 * PI * j / complex size for j = 0 - (complex size / 2 - 1)
+    private final float[] mComplexCos;
+    private final float[] mComplexSin;
+
+    //Real split twiddles: cos and sin of 2 * PI * k / size for k = 0 - complex size / 2
+    private final float[] mSplitCos;
+    private final float[] mSplitSin;
+
+    //Bit reversed index swap pairs for the complex sequence
+    private final int[] mBitReverseSwaps;
+
+    /**
+     * Constructs an instance
+     *
+     * @param size of the real sequence, a power of two of 8 or more
+     * @throws IllegalArgumentException if the size is not supported
+     */
+    public RealFFT(int size)
+    {
+        if(size < 8 || Integer.bitCount(size) != 1)
+        {
+            throw new IllegalArgumentException("FFT size [" + size + "] must be a power of two of 8 or more");
+        }
+
+        mSize = size;
+        mComplexSize = size / 2;
+
+        mComplexCos = new float[mComplexSize / 2];
+        mComplexSin = new float[mComplexSize / 2];
+
+        for(int j = 0; j < mComplexCos.length; j++)
+        {
+            mComplexCos[j] = (float)Math.cos(2.0 * Math.PI * j / mComplexSize);
+            mComplexSin[j] = (float)Math.sin(2.0 * Math.PI * j / mComplexSize);
+        }
+
+        mSplitCos = new float[mComplexSize / 2 + 1];
+        mSplitSin = new float[mComplexSize / 2 + 1];
+
+        for(int k = 0; k < mSplitCos.length; k++)
+        {
+            mSplitCos[k] = (float)Math.cos(2.0 * Math.PI * k / size);
+            mSplitSin[k] = (float)Math.sin(2.0 * Math.PI * k / size);
+        }
+
+        int shift = Integer.numberOfLeadingZeros(mComplexSize) + 1;
+        int[] swaps = new int[mComplexSize];
+        int count = 0;
+
+        for(int x = 0; x < mComplexSize; x++)
+        {
+            int reversed = Integer.reverse(x) >>> shift;
+
+            if(x < reversed)
+            {
+                swaps[count++] = x;
+                swaps[count++] = reversed;
+            }
+        }
+
+        mBitReverseSwaps = new int[count];
+        System.arraycopy(swaps, 0, mBitReverseSwaps, 0, count);
+    }
+
+    /**
+     * Size of the real sequence
+     */
+    public int getSize()
+    {
+        return mSize;
+    }
+
+    /**
+     * Calculates the forward DFT of the real samples in place.
+     *
+     * @param a array of real samples, replaced by the spectrum in the format described in the class comment
+     */
+    public void realForward(float[] a)
+    {
+        //The (even, odd) sample pairs are the interleaved real and imaginary values of an N/2-point complex sequence
+        complex(a, -1.0f);
+
+        //Split the complex spectrum Z into the even (E) and odd (O) sample spectra to form X[k] = E[k] + W^k * O[k]
+        float r0 = a[0];
+        float i0 = a[1];
+        a[0] = r0 + i0;
+        a[1] = r0 - i0;
+
+        for(int k = 1; k < mComplexSize / 2; k++)
+        {
+            int k2 = 2 * k;
+            int m2 = 2 * (mComplexSize - k);
+
+            float zkr = a[k2];
+            float zki = a[k2 + 1];
+            float zmr = a[m2];
+            float zmi = a[m2 + 1];
+
+            //E[k] = (Z[k] + conj(Z[N/2 - k])) / 2 and O[k] = (Z[k] - conj(Z[N/2 - k])) / 2i
+            float er = 0.5f * (zkr + zmr);
+            float ei = 0.5f * (zki - zmi);
+            float or = 0.5f * (zki + zmi);
+            float oi = -0.5f * (zkr - zmr);
+
+            //W^k * O[k] where W = e^(-i * 2 * PI / N)
+            float cos = mSplitCos[k];
+            float sin = mSplitSin[k];
+            float wor = (or * cos) + (oi * sin);
+            float woi = (oi * cos) - (or * sin);
+
+            //X[k] = E[k] + W^k * O[k] and X[N/2 - k] = conj(E[k] - W^k * O[k])
+            a[k2] = er + wor;
+            a[k2 + 1] = ei + woi;
+            a[m2] = er - wor;
+            a[m2 + 1] = woi - ei;
+        }
+
+        //X[N/4] = conj(Z[N/4])
+        a[mComplexSize + 1] = -a[mComplexSize + 1];
+    }
+
+    /**
+     * Calculates the inverse DFT of the spectrum in place.
+     *
+     * @param a array containing the spectrum in the format described in the class comment, replaced by the real
+     * samples
+     * @param scale true to scale the samples by 1 / N so that the inverse reverses the forward transform
+     */
+    public void realInverse(float[] a, boolean scale)
+    {
+        //Merge the spectrum into the complex spectrum Z[k] = E[k] + i * O[k] of the (even, odd) sample pairs
+        float x0 = a[0];
+        float xn = a[1];
+        a[0] = 0.5f * (x0 + xn);
+        a[1] = 0.5f * (x0 - xn);
+
+        for(int k = 1; k < mComplexSize / 2; k++)
+        {
+            int k2 = 2 * k;
+            int m2 = 2 * (mComplexSize - k);
+
+            float xkr = a[k2];
+            float xki = a[k2 + 1];
+            float xmr = a[m2];
+            float xmi = a[m2 + 1];
+
+            //E[k] = (X[k] + conj(X[N/2 - k])) / 2
+            float er = 0.5f * (xkr + xmr);
+            float ei = 0.5f * (xki - xmi);
+
+            //O[k] = (X[k] - conj(X[N/2 - k])) * W^-k / 2
+            float dr = 0.5f * (xkr - xmr);
+            float di = 0.5f * (xki + xmi);
+            float cos = mSplitCos[k];
+            float sin = mSplitSin[k];
+            float or = (dr * cos) - (di * sin);
+            float oi = (di * cos) + (dr * sin);
+
+            //Z[k] = E[k] + i * O[k] and Z[N/2 - k] = conj(E[k]) + i * conj(O[k])
+            a[k2] = er - oi;
+            a[k2 + 1] = ei + or;
+            a[m2] = er + oi;
+            a[m2 + 1] = or - ei;
+        }
+
+        //Z[N/4] = conj(X[N/4])
+        a[mComplexSize + 1] = -a[mComplexSize + 1];
+
+        complex(a, 1.0f);
+
+        float scalor = scale ? 1.0f / mComplexSize : 2.0f;
+
+        for(int x = 0; x < mSize; x++)
+        {
+            a[x] *= scalor;
+        }
+    }
+
+    /**
+     * Unscaled in-place complex FFT of interleaved real and imaginary values
+     *
+     * @param a array of interleaved complex values
+     * @param sign of the exponent: -1 for the forward transform and 1 for the inverse transform
+     */
+    private void complex(float[] a, float sign)
+    {
+        for(int x = 0; x < mBitReverseSwaps.length; x += 2)
+        {
+            int i = 2 * mBitReverseSwaps[x];
+            int j = 2 * mBitReverseSwaps[x + 1];
+            float tr = a[i];
+            float ti = a[i + 1];
+            a[i] = a[j];
+            a[i + 1] = a[j + 1];
+            a[j] = tr;
+            a[j + 1] = ti;
+        }
+
+        //First stage - trivial twiddles
+        for(int i = 0; i < mSize; i += 4)
+        {
+            float tr = a[i + 2];
+            float ti = a[i + 3];
+            a[i + 2] = a[i] - tr;
+            a[i + 3] = a[i + 1] - ti;
+            a[i] += tr;
+            a[i + 1] += ti;
+        }
+
+        for(int size = 4; size <= mComplexSize; size *= 2)
+        {
+            int half = size / 2;
+            int step = mComplexSize / size;
+
+            for(int j = 0; j < half; j++)
+            {
+                float wr = mComplexCos[j * step];
+                float wi = sign * mComplexSin[j * step];
+
+                for(int start = 0; start < mComplexSize; start += size)
+                {
+                    int p = 2 * (start + j);
+                    int q = p + size;
+
+                    float tr = (a[q] * wr) - (a[q + 1] * wi);
+                    float ti = (a[q] * wi) + (a[q + 1] * wr);
+                    a[q] = a[p] - tr;
+                    a[q + 1] = a[p + 1] - ti;
+                    a[p] += tr;
+                    a[p + 1] += ti;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+/**
+ * Fixed size 256-point real FFT and inverse FFT, through a RealFFT instance that is shared by all callers.
+ *
+ * Spectrum format (same as JTransforms FloatFFT_1D.realForward): a[0] = Re[0], a[1] = Re[128], a[2k] = Re[k] and
+ * a[2k + 1] = Im[k] for k = 1 - 127.
+ *
+ * @see RealFFT
+ */
+public class RealFFT256
+{
+    public static final int SIZE = 256;
+    private static final RealFFT FFT = new RealFFT(SIZE);
+
+    private RealFFT256()
+    {
+    }
+
+    /**
+     * Calculates the forward DFT of the 256 real samples in place.
+     *
+     * @param a array of 256 real samples, replaced by the spectrum in the format described in the class comment
+     */
+    public static void realForward(float[] a)
+    {
+        FFT.realForward(a);
+    }
+
+    /**
+     * Calculates the inverse DFT of the spectrum in place.
+     *
+     * @param a array containing the spectrum in the format described in the class comment, replaced by the 256 real
+     * samples
+     * @param scale true to scale the samples by 1 / 256 so that the inverse reverses the forward transform
+     */
+    public static void realInverse(float[] a, boolean scale)
+    {
+        FFT.realInverse(a, scale);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+/**
+ * Scalar implementations of the synthesis kernels.  @see SynthesisKernels
+ */
+final class ScalarSynthesisKernels
+{
+    private static final int SAMPLES_PER_FRAME = MBESynthesizer.SAMPLES_PER_FRAME;
+
+    /**
+     * Static kernels only
+     */
+    private ScalarSynthesisKernels()
+    {
+    }
+
+    static float sumOfSquares(float[] values, int from, int to)
+    {
+        float sum = 0.0f;
+
+        for(int x = from; x < to; x++)
+        {
+            sum += (values[x] * values[x]);
+        }
+
+        return sum;
+    }
+
+    static void scaleBins(float[] bins, float[] bandScalors, int[] interleavedBinBands)
+    {
+        for(int x = 0; x < interleavedBinBands.length; x++)
+        {
+            bins[x] *= bandScalors[interleavedBinBands[x]];
+        }
+    }
+
+    static void overlapAdd(float[] previousUw, float[] currentUw, float[] unvoiced)
+    {
+        for(int n = 0; n < SAMPLES_PER_FRAME; n++)
+        {
+            float previousWindow = MBESynthesizer.synthesisWindow(n);
+            float currentWindow = MBESynthesizer.synthesisWindow(n - SAMPLES_PER_FRAME);
+
+            //Uw samples index is in range 0<>255 and must be translated to -128 <> 127 for this algorithm, recognizing
+            //that previousUw needs samples for indexes 0<>159 and currentUw needs samples -160<>-1
+            float previous = (n < 128 ? previousUw[n + 128] : 0.0f); //n
+            float current = (n >= 32 ? currentUw[n - 32] : 0.0f);  //n - N
+
+            unvoiced[n] = ((previousWindow * previous) + (currentWindow * current)) /
+                ((previousWindow * previousWindow) + (currentWindow * currentWindow));
+        }
+    }
+
+    static void mix(float[] voiced, float[] unvoiced, float gain, float limit, float[] output, int offset, int count)
+    {
+        for(int x = 0; x < count; x++)
+        {
+            float sample = (voiced[x] + unvoiced[x]) * gain;
+
+            if(sample > limit)
+            {
+                sample = limit;
+            }
+            else if(sample < -limit)
+            {
+                sample = -limit;
+            }
+
+            output[offset + x] = sample;
+        }
+    }
+}
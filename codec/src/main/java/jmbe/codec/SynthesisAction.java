@@ -0,0 +1,52 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+/**
+ * Synthesis action for a decoded audio frame.  The action is determined while decoding the frame so that the
+ * synthesizer can apply the frame repeat and muting procedures without access to the encoded frame.
+ */
+public enum SynthesisAction
+{
+    /**
+     * Synthesizes voice audio from the decoded model parameters
+     */
+    VOICE,
+
+    /**
+     * Writes comfort noise and retains the decoded model parameters as the previous frame (e.g. erasure frames)
+     */
+    NOISE,
+
+    /**
+     * Frame muting procedure: resets the previous frame's model parameters and writes comfort noise
+     */
+    MUTE,
+
+    /**
+     * Synthesizes voice audio from the previous frame's model parameters (e.g. AMBE invalid tone frames)
+     */
+    REPEAT,
+
+    /**
+     * Generates the decoded tone
+     */
+    TONE;
+}
@@ -0,0 +1,102 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * White noise source using the xorshift64* pseudo-random number generator.
+ *
+ * Unlike java.util.Random, the generator state is not shared or synchronized, so generating a sample is a few shift,
+ * xor and multiply operations.  Seeds are mixed with the SplitMix64 finalizer so that similar seeds (e.g. channel
+ * numbers) produce unrelated sequences.
+ */
+public class XorShiftNoiseSource implements INoiseSource
+{
+    private static final AtomicLong SEED_UNIQUIFIER = new AtomicLong(0x2545F4914F6CDD1DL);
+    private static final float UNIT = 0x1.0p-24f;
+
+    private long mState;
+
+    /**
+     * Constructs an instance with an unpredictable seed
+     */
+    public XorShiftNoiseSource()
+    {
+        this(System.nanoTime() ^ SEED_UNIQUIFIER.getAndAdd(0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * Constructs an instance with the seed value, for a reproducible sequence
+     *
+     * @param seed value
+     */
+    public XorShiftNoiseSource(long seed)
+    {
+        setSeed(seed);
+    }
+
+    @Override
+    public void setSeed(long seed)
+    {
+        //SplitMix64 finalizer - the xorshift state must be non-zero
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        mState = (z != 0 ? z : 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Next 64-bit pseudo-random value
+     */
+    private long next()
+    {
+        long x = mState;
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        mState = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+
+    @Override
+    public float nextSample()
+    {
+        //Upper 24 bits of the value as a float in range 0.0 <> 1.0, translated to -1.0 <> 1.0
+        return ((next() >>> 40) * UNIT) * 2.0f - 1.0f;
+    }
+
+    @Override
+    public void getSamples(float[] samples, int offset, int length, float gain)
+    {
+        long x = mState;
+
+        for(int i = offset; i < offset + length; i++)
+        {
+            x ^= x >>> 12;
+            x ^= x << 25;
+            x ^= x >>> 27;
+            samples[i] = ((((x * 0x2545F4914F6CDD1DL) >>> 40) * UNIT) * 2.0f - 1.0f) * gain;
+        }
+
+        mState = x;
+    }
+}
@@ -20,38 +20,296 @@
 package jmbe.codec.ambe;
 
 import jmbe.audio.AudioWithMetadata;
-import jmbe.codec.FrameType;
-import jmbe.iface.IAudioCodec;
+import jmbe.codec.DecodedFrame;
+import jmbe.codec.INoiseSource;
+import jmbe.codec.IPipelinedAudioCodec;
+import jmbe.codec.SynthesisAction;
+import jmbe.codec.VoicedSynthesisMode;
+import jmbe.iface.AudioFrameType;
+import jmbe.iface.DecodeResult;
 import jmbe.iface.IAudioWithMetadata;
+import jmbe.iface.ToneType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteOrder;
+
 /**
  * Audio converter for AMBE frames encoded at 3600 bps with 2450 bps data and 1250 bps FEC
  */
-public class AMBEAudioCodec implements IAudioCodec
+public class AMBEAudioCodec implements IPipelinedAudioCodec
 {
     private final static Logger mLog = LoggerFactory.getLogger(AMBEAudioCodec.class);
 
     public static final String CODEC_NAME = "AMBE 3600 x 2450";
+    public static final int FRAME_LENGTH = 9;
     private AMBESynthesizer mSynthesizer = new AMBESynthesizer();
+    private AMBEFrame mFrame = new AMBEFrame();
+
+    //Decode stage state for pipelined decoding
+    private AMBEFrame mDecodeFrame = new AMBEFrame();
+    private AMBEModelParameters mDecodePreviousFrame = new AMBEModelParameters();
+    private AMBEModelParameters mDecodeCurrentFrame = new AMBEModelParameters();
 
     public AMBEAudioCodec()
     {
     }
 
     /**
-     * Converts the AMBE frame data into PCM audio samples at 8kHz 16-bit rate.
+     * Constructs an instance that uses the voiced audio synthesis engine.  Use FIXED_POINT_OSCILLATORS for
+     * fixed-point voiced oscillators and spectral amplitude enhancement on hardware with costly floating point
+     * arithmetic.
+     *
+     * @param mode for synthesizing the voiced audio component
+     */
+    public AMBEAudioCodec(VoicedSynthesisMode mode)
+    {
+        setVoicedSynthesisMode(mode);
+    }
+
+    /**
+     * Converts the AMBE frame data into 16-bit PCM audio samples at the output sample rate.
      *
      * @param frameData byte array of AMBE frame data
      */
     public float[] getAudio(byte[] frameData)
     {
-        return getAudio(new AMBEFrame(frameData));
+        float[] audio = new float[mSynthesizer.getSamplesPerFrame()];
+        decode(frameData, 0, audio, 0);
+        return audio;
+    }
+
+    /**
+     * Converts the 9-byte AMBE frame that starts at the offset into one frame of 16-bit PCM audio samples at the output
+     * sample rate, without allocating.
+     */
+    @Override
+    public int decode(byte[] frame, int offset, float[] out, int outOffset)
+    {
+        mFrame.decode(frame, offset);
+        mSynthesizer.getAudio(mFrame, out, outOffset);
+        return mSynthesizer.getSamplesPerFrame();
+    }
+
+    /**
+     * Converts the 9-byte AMBE frame that starts at the offset into one frame of 16-bit PCM audio samples at the output
+     * sample rate and fills the result with the tone, codeword error counts, error rate and frame repeat and muting
+     * decisions of the frame, without allocating.
+     */
+    @Override
+    public int decode(byte[] frame, int offset, float[] out, int outOffset, DecodeResult result)
+    {
+        int samples = decode(frame, offset, out, outOffset);
+        SynthesisAction action = mSynthesizer.getAction();
+
+        result.reset();
+        result.setAudio(out, outOffset, samples);
+        result.setFrameType(getFrameType(mFrame));
+        result.setCodewordErrors(mFrame.getErrors(), mFrame.getErrors().length);
+        result.setErrorRate(mSynthesizer.getErrorRate());
+        result.setMute(action == SynthesisAction.MUTE);
+
+        if(action == SynthesisAction.TONE)
+        {
+            Tone tone = mFrame.getTone();
+            result.setTone(getToneType(tone), tone.getValue(), tone.toString(), mFrame.getToneAmplitude());
+        }
+        else if(action == SynthesisAction.REPEAT)
+        {
+            result.setRepeat(true);
+        }
+        else if(action != SynthesisAction.MUTE)
+        {
+            result.setRepeat(mSynthesizer.getPreviousFrame().isRepeatFrame());
+        }
+
+        return samples;
+    }
+
+    /**
+     * Converts the 9-byte AMBE frame that starts at the offset into one frame of 16-bit PCM audio samples at the output
+     * sample rate, written directly by the synthesizer without an intermediate float buffer.
+     */
+    @Override
+    public int decode(byte[] frame, int offset, short[] pcm, int pcmOffset)
+    {
+        mFrame.decode(frame, offset);
+        mSynthesizer.getAudio(mFrame, pcm, pcmOffset);
+        return mSynthesizer.getSamplesPerFrame();
+    }
+
+    /**
+     * Converts the 9-byte AMBE frame that starts at the offset into one frame of 16-bit PCM audio samples at the output
+     * sample rate in the specified byte order, written directly by the synthesizer without an intermediate float
+     * buffer.
+     */
+    @Override
+    public int decode(byte[] frame, int offset, byte[] pcm, int pcmOffset, ByteOrder byteOrder)
+    {
+        mFrame.decode(frame, offset);
+        mSynthesizer.getAudio(mFrame, pcm, pcmOffset, byteOrder);
+        return mSynthesizer.getSamplesPerFrame() * 2;
+    }
+
+    /**
+     * Creates a reusable decoded frame for pipelined decoding
+     */
+    @Override
+    public DecodedFrame createDecodedFrame()
+    {
+        return new AMBEDecodedFrame();
+    }
+
+    /**
+     * Decode stage: decodes the 9-byte AMBE frame that starts at the offset and reconstructs the tone or voice model
+     * parameters into the decoded frame.  Applies the same frame repeat and muting decisions as the synthesizer, to
+     * the decode stage's previous frame parameters.
+     */
+    @Override
+    public void decode(byte[] frame, int offset, DecodedFrame decoded)
+    {
+        mDecodeFrame.decode(frame, offset);
+        SynthesisAction action;
+
+        if(mDecodeFrame.isToneFrame())
+        {
+            if(mDecodeFrame.getTone() != Tone.INVALID)
+            {
+                ((AMBEDecodedFrame)decoded).setTone(mDecodeFrame.getTone(), mDecodeFrame.getToneAmplitude());
+                action = SynthesisAction.TONE;
+            }
+            else if(!mDecodePreviousFrame.isMaxFrameRepeat())
+            {
+                action = SynthesisAction.REPEAT;
+            }
+            else
+            {
+                mDecodePreviousFrame.reset();
+                action = SynthesisAction.MUTE;
+            }
+        }
+        else
+        {
+            AMBEModelParameters parameters = mDecodeFrame.getVoiceParameters(mDecodePreviousFrame,
+                mDecodeCurrentFrame);
+
+            if(!parameters.isMaxFrameRepeat())
+            {
+                action = parameters.isErasureFrame() ? SynthesisAction.NOISE : SynthesisAction.VOICE;
+                decoded.getParameters().copyParameters(parameters);
+                decoded.setPreviousVoicingMask(mDecodePreviousFrame.getVoicingMask());
+                mDecodeCurrentFrame = mDecodePreviousFrame;
+                mDecodePreviousFrame = parameters;
+            }
+            else
+            {
+                mDecodePreviousFrame.reset();
+                action = SynthesisAction.MUTE;
+            }
+        }
+
+        decoded.set(action, getFrameType(mDecodeFrame), getErrorCount(mDecodeFrame));
+    }
+
+    /**
+     * Synthesis stage: synthesizes one frame of 16-bit PCM audio samples at the output sample rate from the decoded
+     * frame
+     */
+    @Override
+    public int synthesize(DecodedFrame decoded, float[] out, int outOffset)
+    {
+        mSynthesizer.getAudio((AMBEDecodedFrame)decoded, out, outOffset);
+        return mSynthesizer.getSamplesPerFrame();
     }
 
     /**
-     * Converts the AMBE frame into PCM audio samples at 8kHz 16-bit rate
+     * Sets the output sample rate: 8000 (default), or 16000 or 48000 to enable the polyphase resampler output stage of
+     * the synthesizer.  The decode methods then produce 320 or 960 samples per frame.
+     *
+     * @param sampleRate in Hertz, a multiple of 8000 up to 48000
+     * @throws IllegalArgumentException if the sample rate is not supported
+     */
+    @Override
+    public void setOutputSampleRate(int sampleRate)
+    {
+        mSynthesizer.setOutputSampleRate(sampleRate);
+    }
+
+    /**
+     * Output sample rate in Hertz
+     */
+    @Override
+    public int getOutputSampleRate()
+    {
+        return mSynthesizer.getOutputSampleRate();
+    }
+
+    /**
+     * Number of audio samples that each decoded frame produces with the current output sample rate and time scale
+     */
+    @Override
+    public int getSamplesPerFrame()
+    {
+        return mSynthesizer.getSamplesPerFrame();
+    }
+
+    /**
+     * Enables or disables synthesis of voice frames directly at output sample rates above 8 kHz, instead of through
+     * the polyphase resampler output stage.  Disabled by default.  Voice frames at the output rate use floating point
+     * oscillators for any voiced synthesis mode.
+     *
+     * @throws IllegalArgumentException if enabled for a codec constructed with FIXED_POINT_OSCILLATORS
+     */
+    @Override
+    public void setNativeRateSynthesis(boolean enabled)
+    {
+        mSynthesizer.setNativeRateSynthesis(enabled);
+    }
+
+    /**
+     * Indicates if native rate synthesis is enabled
+     */
+    @Override
+    public boolean isNativeRateSynthesis()
+    {
+        return mSynthesizer.isNativeRateSynthesis();
+    }
+
+    /**
+     * Sets the playback speed for time-scaled playback: 1.0 (default) to 4.0.  The decode methods then produce
+     * round(160 / speed) samples per frame at 8 kHz, or that number times the rate factor at higher output rates.
+     * Time-scaled voice frames use floating point oscillators for any voiced synthesis mode.
+     *
+     * @param speed relative to real time
+     * @throws IllegalArgumentException if the speed is not supported, or is not 1.0 for a codec constructed with
+     * FIXED_POINT_OSCILLATORS
+     */
+    @Override
+    public void setTimeScale(float speed)
+    {
+        mSynthesizer.setTimeScale(speed);
+    }
+
+    /**
+     * Playback speed relative to real time
+     */
+    @Override
+    public float getTimeScale()
+    {
+        return mSynthesizer.getTimeScale();
+    }
+
+    /**
+     * Enables or disables TPDF dither for 16-bit PCM output.  Disabled by default.
+     */
+    @Override
+    public void setDither(boolean dither)
+    {
+        mSynthesizer.setDither(dither);
+    }
+
+    /**
+     * Converts the AMBE frame into 16-bit PCM audio samples at the output sample rate
      */
     public float[] getAudio(AMBEFrame ambeFrame)
     {
@@ -59,8 +317,11 @@ public class AMBEAudioCodec implements IAudioCodec
     }
 
     /**
-     * Converts the AMBE frame data into PCM audio samples at 8kHz 16-bit rate and includes metadata about any
-     * tone(s) contained in the frame.
+     * Converts the AMBE frame data into 16-bit PCM audio samples at the output sample rate and includes metadata about
+     * any tone(s) contained in the frame.
+     *
+     * The frame is decoded once and the tone is read from the decoded frame.  This method only uses the original api
+     * types, so that hosts with an api jar that predates DecodeResult and ToneType can still use it.
      *
      * @param frameData byte array for an audio frame
      * @return decoded audio and any associated metadata such as tones or dtmf/knox codes
@@ -68,12 +329,13 @@ public class AMBEAudioCodec implements IAudioCodec
     @Override
     public IAudioWithMetadata getAudioWithMetadata(byte[] frameData)
     {
-        AMBEFrame frame = new AMBEFrame(frameData);
-        AudioWithMetadata audioWithMetadata = AudioWithMetadata.create(getAudio(frameData));
+        float[] audio = new float[mSynthesizer.getSamplesPerFrame()];
+        decode(frameData, 0, audio, 0);
+        AudioWithMetadata audioWithMetadata = AudioWithMetadata.create(audio);
 
-        if(frame.getFrameType() == FrameType.TONE)
+        if(mSynthesizer.getAction() == SynthesisAction.TONE)
         {
-            Tone tone = frame.getToneParameters().getTone();
+            Tone tone = mFrame.getTone();
 
             if(Tone.CALL_PROGRESS_TONES.contains(tone))
             {
@@ -103,6 +365,137 @@ public class AMBEAudioCodec implements IAudioCodec
     public void reset()
     {
         mSynthesizer.reset();
+        mDecodePreviousFrame.reset();
+    }
+
+    /**
+     * Sets or changes the voiced audio synthesis engine used by this codec
+     *
+     * @param mode for synthesizing the voiced audio component
+     * @throws IllegalArgumentException if the mode is FIXED_POINT_OSCILLATORS and native rate synthesis is enabled or
+     * the time scale is not 1.0
+     */
+    public void setVoicedSynthesisMode(VoicedSynthesisMode mode)
+    {
+        mSynthesizer.setVoicedSynthesisMode(mode);
+        mDecodePreviousFrame.setFixedPointEnhancement(mode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS);
+        mDecodeCurrentFrame.setFixedPointEnhancement(mode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS);
+    }
+
+    /**
+     * Enables or disables use of the shared noise spectrum cache for unvoiced audio synthesis.  The cache is static,
+     * grows to about 11 MB and is never released.  Disabled by default.
+     *
+     * @param enabled true to use cached noise spectra
+     */
+    public void setCachedNoiseSpectra(boolean enabled)
+    {
+        mSynthesizer.setCachedNoiseSpectra(enabled);
+    }
+
+    /**
+     * Seeds the comfort noise and dither sequences, for reproducible audio output.
+     */
+    @Override
+    public void setNoiseSeed(long seed)
+    {
+        mSynthesizer.setNoiseSeed(seed);
+    }
+
+    /**
+     * Sets the noise source for the comfort noise of muted frames.  The default is the shared comfort noise table.
+     *
+     * @param noiseSource to use
+     */
+    public void setNoiseSource(INoiseSource noiseSource)
+    {
+        mSynthesizer.setNoiseSource(noiseSource);
+    }
+
+    /**
+     * AMBE frame length in bytes
+     */
+    @Override
+    public int getFrameLength()
+    {
+        return FRAME_LENGTH;
+    }
+
+    /**
+     * Frame type of the most recently decoded frame
+     */
+    @Override
+    public AudioFrameType getFrameType()
+    {
+        return getFrameType(mFrame);
+    }
+
+    /**
+     * Frame type of the decoded frame
+     */
+    private static AudioFrameType getFrameType(AMBEFrame frame)
+    {
+        if(frame.getFrameType() == null)
+        {
+            return AudioFrameType.UNKNOWN;
+        }
+
+        switch(frame.getFrameType())
+        {
+            case VOICE:
+                return AudioFrameType.VOICE;
+            case ERASURE:
+                return AudioFrameType.ERASURE;
+            case SILENCE:
+                return AudioFrameType.SILENCE;
+            case TONE:
+                return AudioFrameType.TONE;
+            default:
+                return AudioFrameType.UNKNOWN;
+        }
+    }
+
+    /**
+     * Tone category of the tone
+     */
+    private static ToneType getToneType(Tone tone)
+    {
+        if(Tone.CALL_PROGRESS_TONES.contains(tone))
+        {
+            return ToneType.CALL_PROGRESS;
+        }
+        else if(Tone.DISCRETE_TONES.contains(tone))
+        {
+            return ToneType.DISCRETE;
+        }
+        else if(Tone.DTMF_TONES.contains(tone))
+        {
+            return ToneType.DTMF;
+        }
+        else if(Tone.KNOX_TONES.contains(tone))
+        {
+            return ToneType.KNOX;
+        }
+
+        return ToneType.NONE;
+    }
+
+    /**
+     * Number of bit errors detected and corrected in the golay protected vectors of the most recently decoded frame
+     */
+    @Override
+    public int getErrorCount()
+    {
+        return getErrorCount(mFrame);
+    }
+
+    /**
+     * Number of bit errors detected and corrected in the golay protected vectors of the decoded frame
+     */
+    private static int getErrorCount(AMBEFrame frame)
+    {
+        int[] errors = frame.getErrors();
+        return errors[0] + errors[1];
     }
 
     /**
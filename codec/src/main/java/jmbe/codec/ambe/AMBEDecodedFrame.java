@@ -0,0 +1,67 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec.ambe;
+
+import jmbe.codec.DecodedFrame;
+
+/**
+ * Decoded AMBE frame that also carries the tone and tone amplitude of a tone frame
+ */
+public class AMBEDecodedFrame extends DecodedFrame
+{
+    private Tone mTone = Tone.INVALID;
+    private int mToneAmplitude;
+
+    /**
+     * Constructs an instance
+     */
+    public AMBEDecodedFrame()
+    {
+        super(new AMBEModelParameters());
+    }
+
+    /**
+     * Tone for the tone action
+     */
+    public Tone getTone()
+    {
+        return mTone;
+    }
+
+    /**
+     * Tone amplitude for the tone action
+     */
+    public int getToneAmplitude()
+    {
+        return mToneAmplitude;
+    }
+
+    /**
+     * Sets the tone and amplitude for the tone action
+     *
+     * @param tone to generate
+     * @param amplitude of the tone
+     */
+    public void setTone(Tone tone, int amplitude)
+    {
+        mTone = tone;
+        mToneAmplitude = amplitude;
+    }
+}
@@ -19,14 +19,13 @@
 
 package jmbe.codec.ambe;
 
-import jmbe.binary.BinaryFrame;
+import jmbe.binary.PackedFrame;
 import jmbe.codec.FrameType;
 import jmbe.edac.Golay23;
 import jmbe.edac.Golay24;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteOrder;
 import java.util.Arrays;
 
 /**
@@ -42,42 +41,98 @@ public class AMBEFrame
         30, 34, 38, 42};
     private static final int[] VECTOR_C2 = {46, 50, 54, 58, 62, 66, 70, 3, 7, 11, 15};
     private static final int[] VECTOR_C3 = {19, 23, 27, 31, 35, 39, 43, 47, 51, 55, 59, 63, 67, 71};
-    private static final int[] VECTOR_U0 = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
-    private static final int[] VECTOR_U0_TONE_CHECK = {0, 1, 2, 3, 4, 5};
-    private static final int[] VECTOR_U3_TONE_CHECK = {10, 11, 12, 13};
-    private static final int[] VECTOR_U0_B0_HIGH = {0, 1, 2, 3};
-    private static final int[] VECTOR_U0_B1_HIGH = {4, 5, 6, 7};
-    private static final int[] VECTOR_U0_B2_HIGH = {8, 9, 10, 11};
-    private static final int[] VECTOR_U1_B3_HIGH = {0, 1, 2, 3, 4, 5, 6, 7};
-    private static final int[] VECTOR_U1_HIGH_TONE_VERIFY = {0, 1, 2, 3};
-    private static final int[] VECTOR_U1_B4_HIGH = {8, 9, 10, 11};
-    private static final int[] VECTOR_U1_LOW_TONE_VERIFY = {8, 9, 10, 11};
-    private static final int[] VECTOR_U2_B5_HIGH = {0, 1, 2, 3};
-    private static final int[] VECTOR_U2_B6_HIGH = {4, 5, 6};
-    private static final int[] VECTOR_U2_B7_HIGH = {7, 8, 9};
-    private static final int[] VECTOR_U2_B8_HIGH = {10};
-    private static final int[] VECTOR_U3_B1_LOW = {0};
-    private static final int[] VECTOR_U3_B2_LOW = {1};
-    private static final int[] VECTOR_U3_B0_LOW = {2, 3, 4};
-    private static final int[] VECTOR_U3_B3_LOW = {5};
-    private static final int[] VECTOR_U3_B4_LOW = {6, 7, 8};
-    private static final int[] VECTOR_U3_B5_LOW = {9};
-    private static final int[] VECTOR_U3_B6_LOW = {10};
-    private static final int[] VECTOR_U3_B7_LOW = {11};
+
+    //Vector field bit ranges as {first, last} bit indexes within the vector
+    private static final int[] VECTOR_U0 = {0, 11};
+    private static final int[] VECTOR_U0_TONE_CHECK = {0, 5};
+    private static final int[] VECTOR_U3_TONE_CHECK = {10, 13};
+    private static final int[] VECTOR_U0_B0_HIGH = {0, 3};
+    private static final int[] VECTOR_U0_B1_HIGH = {4, 7};
+    private static final int[] VECTOR_U0_B2_HIGH = {8, 11};
+    private static final int[] VECTOR_U1_B3_HIGH = {0, 7};
+    private static final int[] VECTOR_U1_HIGH_TONE_VERIFY = {0, 3};
+    private static final int[] VECTOR_U1_B4_HIGH = {8, 11};
+    private static final int[] VECTOR_U1_LOW_TONE_VERIFY = {8, 11};
+    private static final int[] VECTOR_U2_B5_HIGH = {0, 3};
+    private static final int[] VECTOR_U2_B6_HIGH = {4, 6};
+    private static final int[] VECTOR_U2_B7_HIGH = {7, 9};
+    private static final int[] VECTOR_U2_B8_HIGH = {10, 10};
+    private static final int[] VECTOR_U3_B1_LOW = {0, 0};
+    private static final int[] VECTOR_U3_B2_LOW = {1, 1};
+    private static final int[] VECTOR_U3_B0_LOW = {2, 4};
+    private static final int[] VECTOR_U3_B3_LOW = {5, 5};
+    private static final int[] VECTOR_U3_B4_LOW = {6, 8};
+    private static final int[] VECTOR_U3_B5_LOW = {9, 9};
+    private static final int[] VECTOR_U3_B6_LOW = {10, 10};
+    private static final int[] VECTOR_U3_B7_LOW = {11, 11};
     private static final int[] VECTOR_U3_B8_LOW = {12, 13};
-    private static final int[] VECTOR_U0_AD_HIGH = {6, 7, 8, 9, 10, 11};
-    private static final int[] VECTOR_U3_AD_LOW = {8};
-    private static final int[] VECTOR_U1_ID = {0, 1, 2, 3, 4, 5, 6, 7};
+    private static final int[] VECTOR_U0_AD_HIGH = {6, 11};
+    private static final int[] VECTOR_U3_AD_LOW = {8, 8};
+    private static final int[] VECTOR_U1_ID = {0, 7};
     private static final int U0_TONE_FRAME_VALUE = 63;
     private static final int U3_TONE_FRAME_VALUE = 0;
 
-    private BinaryFrame mFrame;
+    /**
+     * Vector gather masks for each of the 18 nibbles of the 72-bit frame.  Each nibble value (0 - 15) has a mask for
+     * each of the vectors C0 - C3 containing the vector bit positions of the set bits of that nibble value.
+     */
+    private static final int[][] VECTOR_MASKS = new int[4][18 * 16];
+
+    /**
+     * Modulation vectors (Alg 52 - 54) for each of the 4096 U0 seed values, aligned to vector C1
+     */
+    private static final int[] MODULATION_VECTORS = new int[4096];
+
+    static
+    {
+        int[][] vectors = {VECTOR_C0, VECTOR_C1, VECTOR_C2, VECTOR_C3};
+
+        for(int vector = 0; vector < vectors.length; vector++)
+        {
+            int[] indexes = vectors[vector];
+
+            for(int pointer = 0; pointer < indexes.length; pointer++)
+            {
+                int nibble = indexes[pointer] / 4;
+                int nibbleBit = 0x8 >>> (indexes[pointer] % 4);
+                int vectorBit = 1 << (indexes.length - 1 - pointer);
+
+                for(int value = 0; value < 16; value++)
+                {
+                    if((value & nibbleBit) != 0)
+                    {
+                        VECTOR_MASKS[vector][nibble * 16 + value] |= vectorBit;
+                    }
+                }
+            }
+        }
+
+        for(int seed = 0; seed < 4096; seed++)
+        {
+            //alg 52
+            int prX = 16 * seed;
+
+            for(int x = 0; x < 23; x++)
+            {
+                //alg 53 - simplified [... - 65536 * floor((173 * pr(n-1) + 13849) / 65536)] to modulus operation
+                prX = (173 * prX + 13849) % 65536;
+
+                //alg 54 - values 32768 and above are a 1 and below is a 0 (default)
+                if(prX >= 32768)
+                {
+                    MODULATION_VECTORS[seed] |= (0x400000 >>> x);
+                }
+            }
+        }
+    }
+
+    private PackedFrame mFrame = new PackedFrame(72);
     private AMBEFundamentalFrequency mFundamentalFrequency;
     private FrameType mFrameType;
     private int[] mErrors = new int[2];
     private Tone mTone;
     private int mToneAmplitude;
-    private int[] mB;
+    private int[] mB = new int[9];
 
     /**
      * Constructs an AMBE voice or tone frame
@@ -86,8 +141,14 @@ public class AMBEFrame
      */
     public AMBEFrame(byte[] frame)
     {
-        mFrame = BinaryFrame.fromBytes(frame, ByteOrder.LITTLE_ENDIAN);
-        decode();
+        decode(frame, 0);
+    }
+
+    /**
+     * Constructs an empty AMBE frame that can be reused to decode a sequence of frames via the decode() method.
+     */
+    public AMBEFrame()
+    {
     }
 
     /**
@@ -103,7 +164,19 @@ public class AMBEFrame
             data[x / 2] = (byte)(0xFF & Integer.parseInt(hexString.substring(x, x + 2), 16));
         }
 
-        mFrame = BinaryFrame.fromBytes(data, ByteOrder.LITTLE_ENDIAN);
+        decode(data, 0);
+    }
+
+    /**
+     * Decodes the 9-byte or 72-bit frame that starts at the offset in the data array, replacing the current contents
+     * of this frame.
+     *
+     * @param data array containing the frame
+     * @param offset to the first byte of the frame
+     */
+    public void decode(byte[] data, int offset)
+    {
+        mFrame.load(data, offset);
         decode();
     }
 
@@ -112,26 +185,38 @@ public class AMBEFrame
      */
     private void decode()
     {
-        BinaryFrame vectorC0 = getVector(VECTOR_C0);
-        BinaryFrame vectorC1 = getVector(VECTOR_C1);
-        BinaryFrame vectorC2 = getVector(VECTOR_C2);
-        BinaryFrame vectorC3 = getVector(VECTOR_C3);
+        int vectorC0 = 0;
+        int vectorC1 = 0;
+        int vectorC2 = 0;
+        int vectorC3 = 0;
+
+        for(int nibble = 0; nibble < 18; nibble++)
+        {
+            int index = nibble * 16 + mFrame.getInt(nibble * 4, nibble * 4 + 3);
+            vectorC0 |= VECTOR_MASKS[0][index];
+            vectorC1 |= VECTOR_MASKS[1][index];
+            vectorC2 |= VECTOR_MASKS[2][index];
+            vectorC3 |= VECTOR_MASKS[3][index];
+        }
 
         //Error check C0, then descramble and error check C1
-        mErrors[0] = Golay24.checkAndCorrect(vectorC0, 0);
-        BinaryFrame modulationVector = getModulationVector(vectorC0.getInt(VECTOR_U0));
-        vectorC1.xor(modulationVector);
-        mErrors[1] = Golay23.checkAndCorrect(vectorC1, 0);
-        int b0 = (vectorC0.getInt(VECTOR_U0_B0_HIGH) << 3) + vectorC3.getInt(VECTOR_U3_B0_LOW);
+        int correctedC0 = Golay24.correct(vectorC0);
+        mErrors[0] = Integer.bitCount(vectorC0 ^ correctedC0);
+        vectorC0 = correctedC0;
+        vectorC1 ^= MODULATION_VECTORS[getInt(vectorC0, 24, VECTOR_U0)];
+        int correctedC1 = Golay23.correct(vectorC1);
+        mErrors[1] = Integer.bitCount(vectorC1 ^ correctedC1);
+        vectorC1 = correctedC1;
+        int b0 = (getInt(vectorC0, 24, VECTOR_U0_B0_HIGH) << 3) + getInt(vectorC3, 14, VECTOR_U3_B0_LOW);
         int errorCount = mErrors[0] + mErrors[1];
 
         mFundamentalFrequency = AMBEFundamentalFrequency.fromValue(b0);
 
         //Process as either a tone frame or a voice frame.
         if(errorCount < 6 &&
-           vectorC0.getInt(VECTOR_U0_TONE_CHECK) == U0_TONE_FRAME_VALUE &&
-          (vectorC3.getInt(VECTOR_U3_TONE_CHECK) == U3_TONE_FRAME_VALUE ||
-           vectorC1.getInt(VECTOR_U1_HIGH_TONE_VERIFY) == vectorC1.getInt(VECTOR_U1_LOW_TONE_VERIFY)))
+           getInt(vectorC0, 24, VECTOR_U0_TONE_CHECK) == U0_TONE_FRAME_VALUE &&
+          (getInt(vectorC3, 14, VECTOR_U3_TONE_CHECK) == U3_TONE_FRAME_VALUE ||
+           getInt(vectorC1, 23, VECTOR_U1_HIGH_TONE_VERIFY) == getInt(vectorC1, 23, VECTOR_U1_LOW_TONE_VERIFY)))
         {
             mFrameType = FrameType.TONE;
         }
@@ -148,23 +233,22 @@ public class AMBEFrame
                 mFrameType = mFundamentalFrequency.getFrameType();
             }
 
-            mB = new int[9];
             mB[0] = b0;
-            mB[1] = (vectorC0.getInt(VECTOR_U0_B1_HIGH) << 1) + vectorC3.getInt(VECTOR_U3_B1_LOW);
-            mB[2] = (vectorC0.getInt(VECTOR_U0_B2_HIGH) << 1) + vectorC3.getInt(VECTOR_U3_B2_LOW);
-            mB[3] = (vectorC1.getInt(VECTOR_U1_B3_HIGH) << 1) + vectorC3.getInt(VECTOR_U3_B3_LOW);
-            mB[4] = (vectorC1.getInt(VECTOR_U1_B4_HIGH) << 3) + vectorC3.getInt(VECTOR_U3_B4_LOW);
-            mB[5] = (vectorC2.getInt(VECTOR_U2_B5_HIGH) << 1) + vectorC3.getInt(VECTOR_U3_B5_LOW);
-            mB[6] = (vectorC2.getInt(VECTOR_U2_B6_HIGH) << 1) + vectorC3.getInt(VECTOR_U3_B6_LOW);
-            mB[7] = (vectorC2.getInt(VECTOR_U2_B7_HIGH) << 1) + vectorC3.getInt(VECTOR_U3_B7_LOW);
-            mB[8] = (vectorC2.getInt(VECTOR_U2_B8_HIGH) << 2) + vectorC3.getInt(VECTOR_U3_B8_LOW);
+            mB[1] = (getInt(vectorC0, 24, VECTOR_U0_B1_HIGH) << 1) + getInt(vectorC3, 14, VECTOR_U3_B1_LOW);
+            mB[2] = (getInt(vectorC0, 24, VECTOR_U0_B2_HIGH) << 1) + getInt(vectorC3, 14, VECTOR_U3_B2_LOW);
+            mB[3] = (getInt(vectorC1, 23, VECTOR_U1_B3_HIGH) << 1) + getInt(vectorC3, 14, VECTOR_U3_B3_LOW);
+            mB[4] = (getInt(vectorC1, 23, VECTOR_U1_B4_HIGH) << 3) + getInt(vectorC3, 14, VECTOR_U3_B4_LOW);
+            mB[5] = (getInt(vectorC2, 11, VECTOR_U2_B5_HIGH) << 1) + getInt(vectorC3, 14, VECTOR_U3_B5_LOW);
+            mB[6] = (getInt(vectorC2, 11, VECTOR_U2_B6_HIGH) << 1) + getInt(vectorC3, 14, VECTOR_U3_B6_LOW);
+            mB[7] = (getInt(vectorC2, 11, VECTOR_U2_B7_HIGH) << 1) + getInt(vectorC3, 14, VECTOR_U3_B7_LOW);
+            mB[8] = (getInt(vectorC2, 11, VECTOR_U2_B8_HIGH) << 2) + getInt(vectorC3, 14, VECTOR_U3_B8_LOW);
 
         }
 
         if(mFrameType == FrameType.TONE)
         {
-            mTone = Tone.fromValue(vectorC1.getInt(VECTOR_U1_ID));
-            mToneAmplitude = (vectorC0.getInt(VECTOR_U0_AD_HIGH) << 1) + vectorC3.getInt(VECTOR_U3_AD_LOW);
+            mTone = Tone.fromValue(getInt(vectorC1, 23, VECTOR_U1_ID));
+            mToneAmplitude = (getInt(vectorC0, 24, VECTOR_U0_AD_HIGH) << 1) + getInt(vectorC3, 14, VECTOR_U3_AD_LOW);
         }
     }
 
@@ -218,72 +302,84 @@ public class AMBEFrame
     }
 
     /**
-     * AMBE frame tone model parameters.  @see getFrameType()
+     * AMBE frame model parameters for non-TONE frames, reusing the parameters argument instance.
      *
-     * @return tone parameters
-     * @throws IllegalStateException if this is not a TONE frame type
+     * @param previous non-TONE voice parameters.
+     * @param parameters instance to reset and load with this frame's model parameters.  This must be a different
+     * instance than the previous parameters.
+     * @return the parameters argument
+     * @throws IllegalStateException on accessing this method for a TONE frame
      */
-    public ToneParameters getToneParameters()
+    public AMBEModelParameters getVoiceParameters(AMBEModelParameters previous, AMBEModelParameters parameters)
     {
-        if(getFrameType() == FrameType.TONE)
+        if(getFrameType() != FrameType.TONE)
         {
-            return new ToneParameters(mTone, mToneAmplitude);
+            parameters.update(mFundamentalFrequency, mB, mErrors, previous);
+            return parameters;
         }
 
-        throw new IllegalStateException("Frame type [" + getFrameType() + "] does not provide tone model parameters");
+        throw new IllegalStateException("Frame type TONE does not provide model parameters");
     }
 
     /**
-     * Extracts a bit vector from the underlying voice frame byte array
+     * Tone for a TONE frame.  @see getFrameType()
      *
-     * @param indexes to extract for the vector
-     * @return binary frame vector
+     * @return tone
+     * @throws IllegalStateException if this is not a TONE frame type
      */
-    private BinaryFrame getVector(int[] indexes)
+    public Tone getTone()
     {
-        BinaryFrame vector = new BinaryFrame(indexes.length);
-
-        int pointer = 0;
-
-        for(int bit : indexes)
+        if(getFrameType() == FrameType.TONE)
         {
-            if(mFrame.get(bit))
-            {
-                vector.set(pointer);
-            }
-
-            pointer++;
+            return mTone;
         }
 
-        return vector;
+        throw new IllegalStateException("Frame type [" + getFrameType() + "] does not provide a tone");
     }
 
     /**
-     * Generates the bit modulation vector that is xor'd to vector C1 using U0 as the seed.
+     * Tone amplitude (0 - 127) for a TONE frame.  @see getFrameType()
      *
-     * @param seed for the modulation vector
-     * @return modulation vector bit sequence to descramble vector C1
+     * @return tone amplitude
+     * @throws IllegalStateException if this is not a TONE frame type
      */
-    private static BinaryFrame getModulationVector(int seed)
+    public int getToneAmplitude()
     {
-        BinaryFrame modulationVector = new BinaryFrame(23);
+        if(getFrameType() == FrameType.TONE)
+        {
+            return mToneAmplitude;
+        }
 
-        //alg 52
-        int prX = 16 * seed;
+        throw new IllegalStateException("Frame type [" + getFrameType() + "] does not provide a tone amplitude");
+    }
 
-        for(int x = 0; x < 23; x++)
+    /**
+     * AMBE frame tone model parameters.  @see getFrameType()
+     *
+     * @return tone parameters
+     * @throws IllegalStateException if this is not a TONE frame type
+     */
+    public ToneParameters getToneParameters()
+    {
+        if(getFrameType() == FrameType.TONE)
         {
-            //alg 53 - simplified [... - 65536 * floor((173 * pr(n-1) + 13849) / 65536)] to modulus operation
-            prX = (173 * prX + 13849) % 65536;
-
-            //alg 54 - values 32768 and above are a 1 and below is a 0 (default)
-            if(prX >= 32768)
-            {
-                modulationVector.set(x);
-            }
+            return new ToneParameters(mTone, mToneAmplitude);
         }
 
-        return modulationVector;
+        throw new IllegalStateException("Frame type [" + getFrameType() + "] does not provide tone model parameters");
+    }
+
+    /**
+     * Extracts a field from a vector
+     *
+     * @param vector containing the field
+     * @param vectorLength in bits
+     * @param range of the field as {first, last} vector bit indexes where the first index is the MSB of the field
+     * @return field value
+     */
+    private static int getInt(int vector, int vectorLength, int[] range)
+    {
+        return (vector >>> (vectorLength - 1 - range[1])) & ((1 << (range[1] - range[0] + 1)) - 1);
     }
 
     @Override
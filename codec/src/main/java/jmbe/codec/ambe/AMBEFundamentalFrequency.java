@@ -20,6 +20,7 @@
 package jmbe.codec.ambe;
 
 import jmbe.codec.FrameType;
+import jmbe.codec.FundamentalFrequencyTables;
 import jmbe.codec.IFundamentalFrequency;
 
 import java.util.Map;
@@ -163,6 +164,7 @@ public enum AMBEFundamentalFrequency implements IFundamentalFrequency
     private float mFrequency;
     private int mL;
     private FrameType mFrameType;
+    private FundamentalFrequencyTables mTables;
     private static Map<Integer,AMBEFundamentalFrequency> LOOKUP_MAP = new TreeMap<>();
 
     AMBEFundamentalFrequency(int index, double frequency, int l, FrameType frameType)
@@ -196,6 +198,24 @@ public enum AMBEFundamentalFrequency implements IFundamentalFrequency
         return mFrameType;
     }
 
+    /**
+     * Synthesis tables for this fundamental frequency.  Tables are created on first access.  Concurrent first access
+     * may create more than one instance, but each is identical and immutable, so any one of them can be used.
+     */
+    @Override
+    public FundamentalFrequencyTables getTables()
+    {
+        FundamentalFrequencyTables tables = mTables;
+
+        if(tables == null)
+        {
+            tables = new FundamentalFrequencyTables(mFrequency, mL);
+            mTables = tables;
+        }
+
+        return tables;
+    }
+
     public static AMBEFundamentalFrequency fromValue(int value)
     {
         AMBEFundamentalFrequency frequency = LOOKUP_MAP.get(value);
@@ -20,10 +20,14 @@
 package jmbe.codec.ambe;
 
 import jmbe.codec.FrameType;
+import jmbe.codec.InverseDCT;
 import jmbe.codec.MBEModelParameters;
+import jmbe.codec.PredictionInterpolation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 /**
  * AMBE frame voice model parameters
  */
@@ -34,7 +38,13 @@ public class AMBEModelParameters extends MBEModelParameters
     private static final float ONE_OVER_TWO_SQR_TWO = 1.0f / (2.0f * (float)Math.sqrt(2.0f));
     private static final float TWO_PI = 2.0f * (float)Math.PI;
     private float mGain;
-    public int[] mB;
+    public final int[] mB = new int[9];
+
+    //Reusable working buffers for decoding the PRBA vectors
+    private float[] mG = new float[9];
+    private float[] mR = new float[9];
+    private float[][] mC = new float[5][18];
+    private float[] mT = new float[MAX_L + 1];
 
     /**
      * Creates a default set of model parameters to be used as an initial frame
@@ -51,8 +61,32 @@ public class AMBEModelParameters extends MBEModelParameters
     public AMBEModelParameters(AMBEFundamentalFrequency fundamental, int[] b, int[] errors, AMBEModelParameters previous)
     {
         super(fundamental);
+        update(fundamental, b, errors, previous);
+    }
+
+    /**
+     * Resets this instance to the default set of model parameters used as an initial frame
+     */
+    public void reset()
+    {
+        resetParameters(AMBEFundamentalFrequency.W124);
+        setDefaults(FrameType.VOICE);
+    }
+
+    /**
+     * Resets and loads this instance with the model parameters for frame type VOICE or SILENCE.
+     *
+     * @param fundamental frequency for the frame
+     * @param b parameters b0 - b8 decoded from the frame
+     * @param errors array with error counts for blocks b0 and b1
+     * @param previous frame's model parameters.  This must be a different instance than this instance.
+     */
+    public void update(AMBEFundamentalFrequency fundamental, int[] b, int[] errors, AMBEModelParameters previous)
+    {
+        resetParameters(fundamental);
+        mGain = 0.0f;
 
-        mB = b;
+        System.arraycopy(b, 0, mB, 0, mB.length);
 
         //Alg 55 & 56
         setErrorCountTotal(errors[0] + errors[1]);
@@ -69,21 +103,22 @@ public class AMBEModelParameters extends MBEModelParameters
             setRepeatCount(previous.getRepeatCount() + 1);
             setMBEFundamentalFrequency(previous.getAMBEFundamentalFrequency());
             mGain = previous.getGain();
-            setVoicingDecisions(previous.getVoicingDecisions());
+            setVoicingMask(previous.getVoicingMask());
             setLog2SpectralAmplitudes(previous.getLog2SpectralAmplitudes());
             setSpectralAmplitudes(previous.getSpectralAmplitudes(), previous.getLocalEnergy(), previous.getAmplitudeThreshold());
+
+            //The previous frame's voicing decisions are subject to the adaptive smoothing (Alg #113) applied while
+            //enhancing the repeated spectral amplitudes
+            previous.setVoicingMask(getVoicingMask());
             setLocalEnergy(previous.getLocalEnergy());
         }
         else
         {
+            //Silence frames retain the all unvoiced decisions from the reset
             if(fundamental.getFrameType() == FrameType.VOICE)
             {
                 setVoicingDecisions(b[1]);
             }
-            else //Silence frame
-            {
-                setVoicingDecisions(new boolean[getL() + 1]);
-            }
 
             setGain(b[2], previous);
             decodePRBAVector(b[3], b[4], b[5], b[6], b[7], b[8], previous);
@@ -98,18 +133,17 @@ public class AMBEModelParameters extends MBEModelParameters
     {
         setFrameType(frameType);
 
-        setVoicingDecisions(new boolean[getL() + 1]);
-        float[] log2SpectralAmplitudes = new float[getL() + 1];
-        setLog2SpectralAmplitudes(log2SpectralAmplitudes);
-        mSpectralAmplitudes = new float[getL() + 1];
+        setVoicingMask(0L);
+        Arrays.fill(getLog2SpectralAmplitudes(), 0.0f);
+        Arrays.fill(mSpectralAmplitudes, 0.0f);
+        Arrays.fill(mEnhancedSpectralAmplitudes, 0.0f);
 
-        for(int l = 0; l < mSpectralAmplitudes.length; l++)
+        for(int l = 0; l <= getL(); l++)
         {
             mSpectralAmplitudes[l] = 1.0f;
+            mEnhancedSpectralAmplitudes[l] = 1.0f;
         }
 
-        mEnhancedSpectralAmplitudes = mSpectralAmplitudes;
-
         mGain = 0.0f;
     }
 
@@ -147,15 +181,19 @@ public class AMBEModelParameters extends MBEModelParameters
     {
         AMBEVoicingDecision voicingDecision = AMBEVoicingDecision.fromValue(b1);
 
-        boolean[] voicingDecisions = new boolean[getL() + 1];
+        long voicingMask = 0L;
 
         for(int l = 1; l <= getL(); l++)
         {
             int voiceIndex = (int)(l * getFundamentalFrequency() * 16 / TWO_PI);
-            voicingDecisions[l] = voicingDecision.isVoiced(voiceIndex);
+
+            if(voicingDecision.isVoiced(voiceIndex))
+            {
+                voicingMask |= (1L << l);
+            }
         }
 
-        setVoicingDecisions(voicingDecisions);
+        setVoicingMask(voicingMask);
     }
 
     /**
@@ -182,8 +220,8 @@ public class AMBEModelParameters extends MBEModelParameters
      */
     private void decodePRBAVector(int b3, int b4, int b5, int b6, int b7, int b8, AMBEModelParameters previousParameters)
     {
-        float[] G = new float[9];
-        G[1] = 0.0f;
+        float[] G = mG;
+        Arrays.fill(G, 0.0f);
 
         try
         {
@@ -210,20 +248,27 @@ public class AMBEModelParameters extends MBEModelParameters
             mLog.error("Unable to getAudio PRBA 5-8 vector from value B4[" + b4 + "]");
         }
 
-        float[] R = new float[9];
+        float[] R = mR;
 
         //Alg 27 & 28. Inverse DCT of G[]
+        float[][] gainBasis = InverseDCT.getBasis(8);
+
         for(int i = 1; i <= 8; i++)
         {
             R[i] = G[1];
 
             for(int m = 2; m <= 8; m++)
             {
-                R[i] += (2.0 * G[m] * (float)Math.cos(((float)Math.PI * (float)(m - 1) * ((float)i - 0.5f)) / 8.0f));
+                R[i] += (2.0 * G[m] * gainBasis[i][m]);
             }
         }
 
-        float C[][] = new float[5][18];
+        float[][] C = mC;
+
+        for(float[] row : C)
+        {
+            Arrays.fill(row, 0.0f);
+        }
 
         //Alg 29,31,33,35
         C[1][1] = 0.5f * (R[1] + R[2]);
@@ -287,20 +332,21 @@ public class AMBEModelParameters extends MBEModelParameters
         }
 
         //Alg 38, 39. Inverse DCT of C to produce c(i,k) which is rearranged as T
-        float[] T = new float[getL() + 1];
+        float[] T = mT;
 
         int lPointer = 1;
 
         for(int i = 1; i <= 4; i++)
         {
+            float[][] basis = InverseDCT.getBasis(J[i]);
+
             for(int j = 1; j <= J[i]; j++)
             {
                 float acc = C[i][1];
 
                 for(int k = 2; k <= J[i]; k++)
                 {
-                    acc += 2.0f * C[i][k] *
-                        (float)Math.cos(((float)Math.PI * (float)(k - 1) * ((float)j - 0.5f)) / (float)J[i]);
+                    acc += 2.0f * C[i][k] * basis[j][k];
                 }
 
                 T[lPointer++] = acc;
@@ -310,24 +356,15 @@ public class AMBEModelParameters extends MBEModelParameters
         int previousL = previousParameters.getL();
 
         //Alg 40 & 41
-        float kappa = (float)previousL / (float)getL();
-
-        float[] k = new float[getL() + 1];
-        int[] kFloor = new int[getL() + 1];
-        float[] s = new float[getL() + 1];
+        PredictionInterpolation interpolation = PredictionInterpolation.get(previousL, getL());
+        int[] kFloor = interpolation.getFloors();
+        float[] s = interpolation.getWeights();
 
         float[] previousA = previousParameters.getLog2SpectralAmplitudes();
 
         //Alg 44
         previousA[0] = previousA[1];
 
-        for(int l = 1; l <= getL(); l++)
-        {
-            k[l] = kappa * (float)l;
-            kFloor[l] = (int)Math.floor(k[l]);
-            s[l] = k[l] - kFloor[l];
-        }
-
         //Alg 42 & 43 - pre-compute sum
         float summation43 = 0.0f;
         float lambdaSum = 0.0f;
@@ -349,13 +386,11 @@ public class AMBEModelParameters extends MBEModelParameters
         float gain = mGain - (0.5f * (float)(Math.log(getL()) / Math.log(2.0))) - lambdaSum;
 
         //Log Spectral Amplitudes
-        float[] logSpectralAmplitudes = new float[getL() + 1];
+        float[] logSpectralAmplitudes = getLog2SpectralAmplitudes();
         logSpectralAmplitudes[0] = 1.0f;
 
         //Spectral Amplitudes
-        float[] spectralAmplitudes = new float[getL() + 1];
-
-        boolean[] voicingDecisions = getVoicingDecisions();
+        float[] spectralAmplitudes = getSpectralAmplitudes();
 
         float aklPrevious;
         int lPlus1;
@@ -379,7 +414,7 @@ public class AMBEModelParameters extends MBEModelParameters
                 + gain;
 
             //Alg 46 - spectral magnitude is based on the (l) band's voicing decision
-            if(voicingDecisions[l])
+            if(isVoiced(l))
             {
                 spectralAmplitudes[l] = (float)Math.exp(0.693f * logSpectralAmplitudes[l]);
             }
@@ -389,7 +424,6 @@ public class AMBEModelParameters extends MBEModelParameters
             }
         }
 
-        setLog2SpectralAmplitudes(logSpectralAmplitudes);
         setSpectralAmplitudes(spectralAmplitudes, previousParameters.getLocalEnergy(),
             previousParameters.getAmplitudeThreshold());
     }
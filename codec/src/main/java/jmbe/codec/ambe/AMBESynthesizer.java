@@ -21,6 +21,8 @@ package jmbe.codec.ambe;
 
 import jmbe.codec.MBEModelParameters;
 import jmbe.codec.MBESynthesizer;
+import jmbe.codec.SynthesisAction;
+import jmbe.codec.VoicedSynthesisMode;
 import jmbe.codec.imbe.IMBEAudioCodec;
 import jmbe.iface.IAudioCodec;
 import org.slf4j.Logger;
@@ -49,6 +51,9 @@ public class AMBESynthesizer extends MBESynthesizer
 
     private ToneGenerator mToneGenerator = new ToneGenerator();
     private AMBEModelParameters mPreviousFrame = new AMBEModelParameters();
+    private AMBEModelParameters mCurrentFrame = new AMBEModelParameters();
+    private SynthesisAction mAction = SynthesisAction.MUTE;
+    private float mErrorRate;
 
     /**
      * AMBE synthesizer producing 8 kHz 16-bit audio from AMBE audio (voice/tone) frames
@@ -68,9 +73,40 @@ public class AMBESynthesizer extends MBESynthesizer
         return mPreviousFrame;
     }
 
+    @Override
     public void reset()
     {
-        mPreviousFrame = new AMBEModelParameters();
+        super.reset();
+        mPreviousFrame.reset();
+    }
+
+    /**
+     * Sets or changes the voiced audio synthesis engine.  FIXED_POINT_OSCILLATORS also generates the enhanced
+     * spectral amplitudes of each frame with integer arithmetic.
+     */
+    @Override
+    public void setVoicedSynthesisMode(VoicedSynthesisMode mode)
+    {
+        super.setVoicedSynthesisMode(mode);
+        mPreviousFrame.setFixedPointEnhancement(mode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS);
+        mCurrentFrame.setFixedPointEnhancement(mode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS);
+    }
+
+    /**
+     * Synthesis action applied to the most recently synthesized frame
+     */
+    public SynthesisAction getAction()
+    {
+        return mAction;
+    }
+
+    /**
+     * Running error rate as of the most recently synthesized frame, including muted frames where the previous frame
+     * parameters are reset.
+     */
+    public float getErrorRate()
+    {
+        return mErrorRate;
     }
 
     /**
@@ -85,69 +121,184 @@ public class AMBESynthesizer extends MBESynthesizer
     }
 
     /**
-     * Generates 160 samples (20 ms) of audio from the ambe frame.  Can decode both audio and tone frames and handles
-     * frame repeats and white noise generation when error rate exceeds thresholds.
+     * Generates getSamplesPerFrame() samples (160 samples or 20 ms by default) of audio from the ambe frame.  Can
+     * decode both audio and tone frames and handles frame repeats and white noise generation when error rate exceeds
+     * thresholds.
      *
      * @param frame of audio
      * @return decoded audio samples
      */
     public float[] getAudio(AMBEFrame frame)
     {
-        float[] audio = null;
+        float[] audio = new float[getSamplesPerFrame()];
+        getAudio(frame, audio, 0);
+        return audio;
+    }
 
-        if(frame.isToneFrame())
-        {
-            if(frame.getToneParameters().isValidTone())
-            {
-                audio = getTone(frame.getToneParameters());
-            }
-            else
-            {
-                mPreviousFrame.setRepeatCount(mPreviousFrame.getRepeatCount());
+    /**
+     * Generates 160 samples (20 ms) of audio from the ambe frame into the audio array.  Can decode both audio and tone
+     * frames and handles frame repeats and white noise generation when error rate exceeds thresholds.
+     *
+     * The model parameters for the current and previous frames are held in two reusable instances that alternate
+     * roles after each voice frame, so that synthesis does not allocate.
+     *
+     * @param frame of audio
+     * @param audio array to receive the samples
+     * @param offset into the audio array for the first sample
+     */
+    public void getAudio(AMBEFrame frame, float[] audio, int offset)
+    {
+        setOutput(audio, offset);
+        synthesize(frame);
+    }
+
+    /**
+     * Generates 160 samples (20 ms) of 8 kHz 16-bit PCM audio from the ambe frame directly into the pcm array.
+     *
+     * @param frame of audio
+     * @param pcm array to receive the samples
+     * @param offset into the pcm array for the first sample
+     */
+    public void getAudio(AMBEFrame frame, short[] pcm, int offset)
+    {
+        setOutput(pcm, offset);
+        synthesize(frame);
+    }
+
+    /**
+     * Generates 160 samples (20 ms, 320 bytes) of 8 kHz 16-bit PCM audio from the ambe frame directly into the pcm
+     * byte array.
+     *
+     * @param frame of audio
+     * @param pcm array to receive the sample bytes
+     * @param offset into the pcm array for the first byte
+     * @param byteOrder of the 16-bit samples
+     */
+    public void getAudio(AMBEFrame frame, byte[] pcm, int offset, ByteOrder byteOrder)
+    {
+        setOutput(pcm, offset, byteOrder);
+        synthesize(frame);
+    }
 
-                if(!mPreviousFrame.isMaxFrameRepeat())
+    /**
+     * Generates 160 samples (20 ms) of audio from a frame decoded by the decode stage of a pipelined codec into the
+     * audio array.  The frame repeat and muting decisions were made by the decode stage and are applied here to the
+     * synthesizer's copy of the previous frame parameters, so that both stages follow the same parameter sequence.
+     *
+     * @param decoded frame to synthesize
+     * @param audio array to receive the samples
+     * @param offset into the audio array for the first sample
+     */
+    public void getAudio(AMBEDecodedFrame decoded, float[] audio, int offset)
+    {
+        setOutput(audio, offset);
+        mAction = decoded.getAction();
+        mErrorRate = mPreviousFrame.getErrorRate();
+
+        switch(decoded.getAction())
+        {
+            case TONE:
+                float[] samples = getOutputSamples();
+                mToneGenerator.generate(decoded.getTone(), decoded.getToneAmplitude(), samples, 0,
+                    getFrameSampleCount());
+                writeSamples(samples);
+                break;
+            case REPEAT:
+                writeVoice(mPreviousFrame);
+                break;
+            case MUTE:
+                //Frame muting procedure
+                mPreviousFrame.reset();
+                writeWhiteNoise();
+                break;
+            default:
+                mCurrentFrame.copyParameters(decoded.getParameters());
+                mPreviousFrame.setVoicingMask(decoded.getPreviousVoicingMask());
+
+                if(decoded.getAction() == SynthesisAction.VOICE)
                 {
-                    audio = getVoice(mPreviousFrame);
+                    writeVoice(mCurrentFrame);
                 }
                 else
                 {
-                    //Frame muting procedure
-                    mPreviousFrame = new AMBEModelParameters();
-                    audio = getWhiteNoise();
+                    writeWhiteNoise();
                 }
+
+                AMBEModelParameters parameters = mCurrentFrame;
+                mCurrentFrame = mPreviousFrame;
+                mPreviousFrame = parameters;
+                break;
+        }
+
+        if(mAction != SynthesisAction.MUTE)
+        {
+            mErrorRate = mPreviousFrame.getErrorRate();
+        }
+    }
+
+    /**
+     * Synthesizes the ambe frame to the current output target
+     */
+    private void synthesize(AMBEFrame frame)
+    {
+        if(frame.isToneFrame())
+        {
+            if(frame.getTone() != Tone.INVALID)
+            {
+                mAction = SynthesisAction.TONE;
+                float[] samples = getOutputSamples();
+                mToneGenerator.generate(frame.getTone(), frame.getToneAmplitude(), samples, 0,
+                    getFrameSampleCount());
+                writeSamples(samples);
+            }
+            else if(!mPreviousFrame.isMaxFrameRepeat())
+            {
+                mAction = SynthesisAction.REPEAT;
+                writeVoice(mPreviousFrame);
+            }
+            else
+            {
+                //Frame muting procedure
+                mAction = SynthesisAction.MUTE;
+                mErrorRate = mPreviousFrame.getErrorRate();
+                mPreviousFrame.reset();
+                writeWhiteNoise();
             }
         }
         else
         {
-            AMBEModelParameters parameters = frame.getVoiceParameters(mPreviousFrame);
+            AMBEModelParameters parameters = frame.getVoiceParameters(mPreviousFrame, mCurrentFrame);
 
             if(!parameters.isMaxFrameRepeat())
             {
                 if(parameters.isErasureFrame())
                 {
-                    audio = getWhiteNoise();
+                    mAction = SynthesisAction.NOISE;
+                    writeWhiteNoise();
                 }
                 else
                 {
-                    audio = getVoice(parameters);
+                    mAction = SynthesisAction.VOICE;
+                    writeVoice(parameters);
                 }
 
+                mCurrentFrame = mPreviousFrame;
                 mPreviousFrame = parameters;
             }
             else
             {
                 //Frame muting procedure
-                mPreviousFrame = new AMBEModelParameters();
-                audio = getWhiteNoise();
+                mAction = SynthesisAction.MUTE;
+                mErrorRate = parameters.getErrorRate();
+                mPreviousFrame.reset();
+                writeWhiteNoise();
             }
         }
 
-        if(audio == null)
+        if(mAction != SynthesisAction.MUTE)
         {
-            audio = new float[SAMPLES_PER_FRAME];
+            mErrorRate = mPreviousFrame.getErrorRate();
         }
-
-        return audio;
     }
 
     /**
@@ -163,25 +314,11 @@ public class AMBESynthesizer extends MBESynthesizer
         AudioFormat audioFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED,
             8000.0f, 16, 1, 2, 8000.0f, false);
         ByteBuffer byteBuffer = ByteBuffer.allocate(frames.size() * 320);
-
-        int frameCounter = 0;
+        int pointer = 0;
 
         for(byte[] frame : frames)
         {
-            frameCounter++;
-
-            float[] samples = audioCodec.getAudio(frame);
-
-            ByteBuffer converted = ByteBuffer.allocate(samples.length * 2);
-            converted = converted.order(ByteOrder.LITTLE_ENDIAN);
-
-            for(float sample : samples)
-            {
-                converted.putShort((short)(sample * Short.MAX_VALUE));
-            }
-
-            byte[] bytes = converted.array();
-            byteBuffer.put(bytes);
+            pointer += audioCodec.decode(frame, 0, byteBuffer.array(), pointer, ByteOrder.LITTLE_ENDIAN);
         }
 
         AudioInputStream ais = new AudioInputStream(new ByteArrayInputStream(byteBuffer.array()), audioFormat, byteBuffer.array().length);
@@ -207,23 +344,11 @@ public class AMBESynthesizer extends MBESynthesizer
         AudioFormat audioFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED,
             8000.0f, 16, 1, 2, 8000.0f, false);
         ByteBuffer byteBuffer = ByteBuffer.allocate(frames.size() * 320);
-
-        int frameCounter = 0;
+        int pointer = 0;
 
         for(byte[] frame : frames)
         {
-            float[] samples = audioCodec.getAudio(frame);
-
-            ByteBuffer converted = ByteBuffer.allocate(samples.length * 2);
-            converted = converted.order(ByteOrder.LITTLE_ENDIAN);
-
-            for(float sample : samples)
-            {
-                converted.putShort((short)(sample * Short.MAX_VALUE));
-            }
-
-            byte[] bytes = converted.array();
-            byteBuffer.put(bytes);
+            pointer += audioCodec.decode(frame, 0, byteBuffer.array(), pointer, ByteOrder.LITTLE_ENDIAN);
         }
 
         AudioInputStream ais = new AudioInputStream(new ByteArrayInputStream(byteBuffer.array()), audioFormat, byteBuffer.array().length);
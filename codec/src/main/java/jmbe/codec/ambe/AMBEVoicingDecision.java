@@ -55,11 +55,13 @@ public enum AMBEVoicingDecision
         throw new IllegalArgumentException("Voice decision index must be in range 0-7.  Unsupported index: " + index);
     }
 
+    private static final AMBEVoicingDecision[] VALUES = AMBEVoicingDecision.values();
+
     public static AMBEVoicingDecision fromValue(int value)
     {
         if(0 <= value && value <= 31)
         {
-            return AMBEVoicingDecision.values()[value];
+            return VALUES[value];
         }
 
         throw new IllegalArgumentException("Quantization vector values must be in range 0-31.  Unsupported value: " + value);
@@ -55,11 +55,13 @@ public enum DifferentialGain
         return mGain + mAdjustment;
     }
 
+    private static final DifferentialGain[] VALUES = DifferentialGain.values();
+
     public static DifferentialGain fromValue(int value)
     {
         if(0 <= value && value <= 31)
         {
-            return DifferentialGain.values()[value];
+            return VALUES[value];
         }
 
         throw new IllegalArgumentException("Value must be in range 0-31.  Unsupported value: " + value);
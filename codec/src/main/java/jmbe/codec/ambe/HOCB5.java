@@ -51,11 +51,13 @@ public enum HOCB5
         return mCoefficients;
     }
 
+    private static final HOCB5[] VALUES = HOCB5.values();
+
     public static HOCB5 fromValue(int value)
     {
         if(0 <= value && value <= 31)
         {
-            return HOCB5.values()[value];
+            return VALUES[value];
         }
 
         throw new IllegalArgumentException("Value must be in range 0-31.  Unsupported value: " + value);
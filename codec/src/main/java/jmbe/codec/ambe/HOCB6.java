@@ -34,11 +34,13 @@ public enum HOCB6
         return mCoefficients;
     }
 
+    private static final HOCB6[] VALUES = HOCB6.values();
+
     public static HOCB6 fromValue(int value)
     {
         if(0 <= value && value <= 15)
         {
-            return HOCB6.values()[value];
+            return VALUES[value];
         }
 
         throw new IllegalArgumentException("Value must be in range 0-15.  Unsupported value: " + value);
@@ -34,11 +34,13 @@ public enum HOCB7
         return mCoefficients;
     }
 
+    private static final HOCB7[] VALUES = HOCB7.values();
+
     public static HOCB7 fromValue(int value)
     {
         if(0 <= value && value <= 15)
         {
-            return HOCB7.values()[value];
+            return VALUES[value];
         }
 
         throw new IllegalArgumentException("Value must be in range 0-15.  Unsupported value: " + value);
@@ -26,11 +26,13 @@ public enum HOCB8
         return mCoefficients;
     }
 
+    private static final HOCB8[] VALUES = HOCB8.values();
+
     public static HOCB8 fromValue(int value)
     {
         if(0 <= value && value <= 7)
         {
-            return HOCB8.values()[value];
+            return VALUES[value];
         }
 
         throw new IllegalArgumentException("Value must be in range 0-7.  Unsupported value: " + value);
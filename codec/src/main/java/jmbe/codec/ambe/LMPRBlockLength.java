@@ -75,11 +75,13 @@ public enum LMPRBlockLength
         return mBlockLengths;
     }
 
+    private static final LMPRBlockLength[] VALUES = LMPRBlockLength.values();
+
     public static LMPRBlockLength fromValue(int value)
     {
         if(0 <= value && value <= 56)
         {
-            return LMPRBlockLength.values()[value];
+            return VALUES[value];
         }
 
         throw new IllegalArgumentException("Value must be in range 0-56.  Unrecognized value: " + value);
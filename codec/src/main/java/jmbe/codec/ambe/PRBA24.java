@@ -544,11 +544,13 @@ public enum PRBA24
         return mG4;
     }
 
+    private static final PRBA24[] VALUES = PRBA24.values();
+
     public static PRBA24 fromValue(int value)
     {
         if(0 <= value && value <= 511)
         {
-            return PRBA24.values()[value];
+            return VALUES[value];
         }
 
         throw new IllegalArgumentException("Value must be in range 0-511.  Unsupported value: " + value);
@@ -167,11 +167,13 @@ public enum PRBA58
         return mG8;
     }
 
+    private static final PRBA58[] VALUES = PRBA58.values();
+
     public static PRBA58 fromValue(int value)
     {
         if(0 <= value && value <= 127)
         {
-            return PRBA58.values()[value];
+            return VALUES[value];
         }
 
         throw new IllegalArgumentException("Value must be in range 0-127.  Unsupported value: " + value);
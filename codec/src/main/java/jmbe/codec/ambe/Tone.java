@@ -1,8 +1,7 @@
 package jmbe.codec.ambe;
 
+import java.util.Arrays;
 import java.util.EnumSet;
-import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * AMBE tones enumeration
@@ -170,13 +169,18 @@ public enum Tone
     private double mFrequency1;
     private double mFrequency2;
 
-    private static Map<Integer,Tone> sLOOKUP_MAP = new TreeMap<>();
+    private static final Tone[] LOOKUP = new Tone[256];
 
     static
     {
+        Arrays.fill(LOOKUP, INVALID);
+
         for(Tone tone: Tone.values())
         {
-            sLOOKUP_MAP.put(tone.mValue, tone);
+            if(tone != INVALID)
+            {
+                LOOKUP[tone.mValue] = tone;
+            }
         }
     }
 
@@ -205,6 +209,14 @@ public enum Tone
         return mLabel;
     }
 
+    /**
+     * Tone value in the range 5 - 163, or -1 for an invalid tone
+     */
+    public int getValue()
+    {
+        return mValue;
+    }
+
     /**
      * Frequency 1 in Hertz
      */
@@ -234,13 +246,11 @@ public enum Tone
      */
     public static Tone fromValue(int value)
     {
-        Tone tone = sLOOKUP_MAP.get(value);
-
-        if(tone == null)
+        if(0 <= value && value < LOOKUP.length)
         {
-            tone = Tone.INVALID;
+            return LOOKUP[value];
         }
 
-        return tone;
+        return Tone.INVALID;
     }
 }
@@ -19,8 +19,6 @@
 
 package jmbe.codec.ambe;
 
-import jmbe.codec.oscillator.Oscillator;
-
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.DataLine;
@@ -30,15 +28,46 @@ import java.nio.ByteOrder;
 
 /**
  * Tone Generator
+ *
+ * Every AMBE tone frequency is a multiple of a quarter hertz, so each tone is generated by stepping through a single
+ * shared sine wavetable with a quarter hertz resolution using a fixed, per-tone integer phase increment.  Table
+ * lookups are exact (no interpolation or accumulated rotation error), the phase of each tone generator carries over
+ * from one frame to the next, and the amplitude is applied as a single gain value in the same pass that writes the
+ * output samples.
  */
 public class ToneGenerator
 {
     private static final double SAMPLE_RATE = 8000.0;
     private static final int SAMPLE_COUNT = 160;  //20ms of samples at 8000 Hz
     private static final float TWO_CHANNEL_GAIN_REDUCTION = 0.5f;
+    private static final int PHASE_STEPS_PER_HERTZ = 4;
+    private static final int TABLE_LENGTH = (int)SAMPLE_RATE * PHASE_STEPS_PER_HERTZ;
+    private static final float[] SINE_TABLE = new float[TABLE_LENGTH];
+    private static final int[] FREQUENCY_1_INCREMENTS = new int[Tone.values().length];
+    private static final int[] FREQUENCY_2_INCREMENTS = new int[Tone.values().length];
+
+    /**
+     * Starting phase of 3/4 cycle, so that a tone begins from a sample value of -1.0 like the oscillator that it
+     * replaces.
+     */
+    private static final int INITIAL_PHASE = TABLE_LENGTH * 3 / 4;
+
+    static
+    {
+        for(int x = 0; x < TABLE_LENGTH; x++)
+        {
+            SINE_TABLE[x] = (float)Math.sin(2.0 * Math.PI * x / TABLE_LENGTH);
+        }
+
+        for(Tone tone: Tone.values())
+        {
+            FREQUENCY_1_INCREMENTS[tone.ordinal()] = getPhaseIncrement(tone.getFrequency1());
+            FREQUENCY_2_INCREMENTS[tone.ordinal()] = getPhaseIncrement(tone.getFrequency2());
+        }
+    }
 
-    private Oscillator mOscillator1 = new Oscillator(0.0, SAMPLE_RATE);
-    private Oscillator mOscillator2 = new Oscillator(0.0, SAMPLE_RATE);
+    private int mPhase1 = INITIAL_PHASE;
+    private int mPhase2 = INITIAL_PHASE;
 
     /**
      * Constructs an instance
@@ -47,6 +76,17 @@ public class ToneGenerator
     {
     }
 
+    /**
+     * Wavetable phase increment per sample for the frequency.
+     *
+     * @param frequency in hertz, a multiple of 0.25 Hz
+     * @return phase increment in the range 0 to TABLE_LENGTH
+     */
+    private static int getPhaseIncrement(double frequency)
+    {
+        return (int)Math.round(frequency * PHASE_STEPS_PER_HERTZ) % TABLE_LENGTH;
+    }
+
     /**
      * Generates 20 ms of PCM audio samples at 8000Hz sample rate using the specified frequency and gain parameters
      *
@@ -55,36 +95,91 @@ public class ToneGenerator
      */
     public float[] generate(ToneParameters toneParameters)
     {
-        if(!toneParameters.isValidTone())
+        float[] samples = new float[SAMPLE_COUNT];
+        generate(toneParameters.getTone(), toneParameters.getAmplitude(), samples, 0);
+        return samples;
+    }
+
+    /**
+     * Generates 20 ms of PCM audio samples at 8000Hz sample rate using the specified tone and amplitude into the
+     * samples array.
+     *
+     * @param tone to generate
+     * @param amplitude of the tone, 0 - 127
+     * @param samples array to receive the 160 generated samples
+     * @param offset into the samples array for the first sample
+     */
+    public void generate(Tone tone, int amplitude, float[] samples, int offset)
+    {
+        generate(tone, amplitude, samples, offset, SAMPLE_COUNT);
+    }
+
+    /**
+     * Generates the number of PCM audio samples at 8000Hz sample rate using the specified tone and amplitude into the
+     * samples array, continuing the phase of the previous samples.  Used for frames that are shorter than 20 ms for
+     * time-scaled playback.
+     *
+     * @param tone to generate
+     * @param amplitude of the tone, 0 - 127
+     * @param samples array to receive the generated samples
+     * @param offset into the samples array for the first sample
+     * @param count of samples to generate
+     */
+    public void generate(Tone tone, int amplitude, float[] samples, int offset, int count)
+    {
+        if(tone == Tone.INVALID)
         {
             throw new IllegalArgumentException("Cannot generate tone audio - INVALID tone");
         }
 
-        Tone tone = toneParameters.getTone();
-        float gain = ((float)toneParameters.getAmplitude() / 127.0f);
+        float gain = ((float)amplitude / 127.0f);
+        int increment1 = FREQUENCY_1_INCREMENTS[tone.ordinal()];
+        int phase1 = mPhase1;
 
         if(tone.hasFrequency2())
         {
             gain *= TWO_CHANNEL_GAIN_REDUCTION;
 
-            mOscillator1.setFrequency(tone.getFrequency1());
-            mOscillator2.setFrequency(tone.getFrequency2());
-
-            float[] samples = mOscillator1.generate(SAMPLE_COUNT, gain);
-            float[] samples2 = mOscillator2.generate(SAMPLE_COUNT, gain);
+            int increment2 = FREQUENCY_2_INCREMENTS[tone.ordinal()];
+            int phase2 = mPhase2;
 
-            for(int x = 0; x < SAMPLE_COUNT; x++)
+            for(int x = offset; x < offset + count; x++)
             {
-                samples[x] += samples2[x];
+                phase1 += increment1;
+
+                if(phase1 >= TABLE_LENGTH)
+                {
+                    phase1 -= TABLE_LENGTH;
+                }
+
+                phase2 += increment2;
+
+                if(phase2 >= TABLE_LENGTH)
+                {
+                    phase2 -= TABLE_LENGTH;
+                }
+
+                samples[x] = (SINE_TABLE[phase1] + SINE_TABLE[phase2]) * gain;
             }
 
-            return samples;
+            mPhase2 = phase2;
         }
         else
         {
-            mOscillator1.setFrequency(tone.getFrequency1());
-            return mOscillator1.generate(SAMPLE_COUNT, gain);
+            for(int x = offset; x < offset + count; x++)
+            {
+                phase1 += increment1;
+
+                if(phase1 >= TABLE_LENGTH)
+                {
+                    phase1 -= TABLE_LENGTH;
+                }
+
+                samples[x] = SINE_TABLE[phase1] * gain;
+            }
         }
+
+        mPhase1 = phase1;
     }
 
     /**
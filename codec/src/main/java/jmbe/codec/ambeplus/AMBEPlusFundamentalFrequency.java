@@ -20,6 +20,7 @@
 package jmbe.codec.ambeplus;
 
 import jmbe.codec.FrameType;
+import jmbe.codec.FundamentalFrequencyTables;
 import jmbe.codec.IFundamentalFrequency;
 
 /**
@@ -159,6 +160,7 @@ public enum AMBEPlusFundamentalFrequency implements IFundamentalFrequency
     private float mFrequency;
     private int mL;
     private FrameType mFrameType;
+    private FundamentalFrequencyTables mTables;
 
     AMBEPlusFundamentalFrequency(double frequency, int l, FrameType frameType)
     {
@@ -182,6 +184,24 @@ public enum AMBEPlusFundamentalFrequency implements IFundamentalFrequency
         return mFrameType;
     }
 
+    /**
+     * Synthesis tables for this fundamental frequency.  Tables are created on first access.  Concurrent first access
+     * may create more than one instance, but each is identical and immutable, so any one of them can be used.
+     */
+    @Override
+    public FundamentalFrequencyTables getTables()
+    {
+        FundamentalFrequencyTables tables = mTables;
+
+        if(tables == null)
+        {
+            tables = new FundamentalFrequencyTables(mFrequency, mL);
+            mTables = tables;
+        }
+
+        return tables;
+    }
+
     public static AMBEPlusFundamentalFrequency fromValue(int value)
     {
         if(0 <= value && value <= 127)
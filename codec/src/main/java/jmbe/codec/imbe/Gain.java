@@ -101,11 +101,13 @@ public enum Gain
         return mGain;
     }
 
+    private static final Gain[] VALUES = Gain.values();
+
     public static Gain fromValue(int value)
     {
         if(0 <= value && value <= 63)
         {
-            return Gain.values()[value];
+            return VALUES[value];
         }
 
         throw new IllegalArgumentException("Value must be in range 0-63.  Unsupported value: " + value);
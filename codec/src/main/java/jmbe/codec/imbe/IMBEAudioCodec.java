@@ -19,41 +19,255 @@ package jmbe.codec.imbe;
  ******************************************************************************/
 
 import jmbe.audio.AudioWithoutMetadata;
-import jmbe.iface.IAudioCodec;
+import jmbe.codec.DecodedFrame;
+import jmbe.codec.INoiseSource;
+import jmbe.codec.IPipelinedAudioCodec;
+import jmbe.codec.SynthesisAction;
+import jmbe.codec.VoicedSynthesisMode;
+import jmbe.iface.AudioFrameType;
+import jmbe.iface.DecodeResult;
 import jmbe.iface.IAudioWithMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class IMBEAudioCodec implements IAudioCodec
+import java.nio.ByteOrder;
+
+public class IMBEAudioCodec implements IPipelinedAudioCodec
 {
     private final static Logger mLog = LoggerFactory.getLogger(IMBEAudioCodec.class);
 
     public static final String CODEC_NAME = "IMBE";
+    public static final int FRAME_LENGTH = 18;
 
     private IMBESynthesizer mSynthesizer;
+    private IMBEFrame mFrame = new IMBEFrame();
+
+    //Decode stage state for pipelined decoding
+    private IMBEFrame mDecodeFrame = new IMBEFrame();
+    private IMBEModelParameters mDecodePreviousParameters = new IMBEModelParameters();
+    private IMBEModelParameters mDecodeCurrentParameters = new IMBEModelParameters();
 
     public IMBEAudioCodec()
     {
         mSynthesizer = new IMBESynthesizer();
     }
 
+    /**
+     * Constructs an instance that uses the voiced audio synthesis engine.  Use FIXED_POINT_OSCILLATORS for
+     * fixed-point voiced oscillators and spectral amplitude enhancement on hardware with costly floating point
+     * arithmetic.
+     *
+     * @param mode for synthesizing the voiced audio component
+     */
+    public IMBEAudioCodec(VoicedSynthesisMode mode)
+    {
+        this();
+        setVoicedSynthesisMode(mode);
+    }
+
     @Override
     public void reset()
     {
         mSynthesizer.reset();
+        mDecodePreviousParameters.reset();
     }
 
     /**
-     * Converts imbe frame data into PCM audio samples at 8kHz 16-bit rate
+     * Converts imbe frame data into 16-bit PCM audio samples at the output sample rate
      */
     public float[] getAudio(byte[] frameData)
     {
-        IMBEFrame frame = new IMBEFrame(frameData);
-        return mSynthesizer.getAudio(frame);
+        float[] audio = new float[mSynthesizer.getSamplesPerFrame()];
+        decode(frameData, 0, audio, 0);
+        return audio;
+    }
+
+    /**
+     * Converts the 18-byte imbe frame that starts at the offset into one frame of 16-bit PCM audio samples at the
+     * output sample rate, without allocating.
+     */
+    @Override
+    public int decode(byte[] frame, int offset, float[] out, int outOffset)
+    {
+        mFrame.decode(frame, offset);
+        mSynthesizer.getAudio(mFrame, out, outOffset);
+        return mSynthesizer.getSamplesPerFrame();
+    }
+
+    /**
+     * Converts the 18-byte imbe frame that starts at the offset into one frame of 16-bit PCM audio samples at the
+     * output sample rate and fills the result with the codeword error counts, error rate and frame repeat and muting
+     * decisions of the frame, without allocating.
+     */
+    @Override
+    public int decode(byte[] frame, int offset, float[] out, int outOffset, DecodeResult result)
+    {
+        int samples = decode(frame, offset, out, outOffset);
+        IMBEModelParameters parameters = mSynthesizer.getPreviousFrame();
+        int[] errors = mFrame.getErrors();
+
+        result.reset();
+        result.setAudio(out, outOffset, samples);
+        result.setFrameType(AudioFrameType.VOICE);
+        result.setCodewordErrors(errors, errors.length);
+        result.setErrorRate(parameters.getErrorRate());
+        result.setRepeat(parameters.isRepeatFrame());
+        result.setMute(parameters.isMaxFrameRepeat() || parameters.requiresMuting());
+        return samples;
+    }
+
+    /**
+     * Converts the 18-byte imbe frame that starts at the offset into one frame of 16-bit PCM audio samples at the
+     * output sample rate, written directly by the synthesizer without an intermediate float buffer.
+     */
+    @Override
+    public int decode(byte[] frame, int offset, short[] pcm, int pcmOffset)
+    {
+        mFrame.decode(frame, offset);
+        mSynthesizer.getAudio(mFrame, pcm, pcmOffset);
+        return mSynthesizer.getSamplesPerFrame();
+    }
+
+    /**
+     * Converts the 18-byte imbe frame that starts at the offset into one frame of 16-bit PCM audio samples at the
+     * output sample rate in the specified byte order, written directly by the synthesizer without an intermediate float
+     * buffer.
+     */
+    @Override
+    public int decode(byte[] frame, int offset, byte[] pcm, int pcmOffset, ByteOrder byteOrder)
+    {
+        mFrame.decode(frame, offset);
+        mSynthesizer.getAudio(mFrame, pcm, pcmOffset, byteOrder);
+        return mSynthesizer.getSamplesPerFrame() * 2;
+    }
+
+    /**
+     * Creates a reusable decoded frame for pipelined decoding
+     */
+    @Override
+    public DecodedFrame createDecodedFrame()
+    {
+        return new DecodedFrame(new IMBEModelParameters());
+    }
+
+    /**
+     * Decode stage: decodes the 18-byte imbe frame that starts at the offset and reconstructs the model parameters
+     * into the decoded frame, using the decode stage's previous frame parameters.
+     */
+    @Override
+    public void decode(byte[] frame, int offset, DecodedFrame decoded)
+    {
+        mDecodeFrame.decode(frame, offset);
+        IMBEModelParameters parameters = mDecodeFrame.getModelParameters(mDecodePreviousParameters,
+            mDecodeCurrentParameters);
+        SynthesisAction action = (parameters.isMaxFrameRepeat() || parameters.requiresMuting()) ?
+            SynthesisAction.NOISE : SynthesisAction.VOICE;
+        decoded.set(action, AudioFrameType.VOICE, mDecodeFrame.getErrorCountTotal());
+        decoded.getParameters().copyParameters(parameters);
+        decoded.setPreviousVoicingMask(mDecodePreviousParameters.getVoicingMask());
+        mDecodeCurrentParameters = mDecodePreviousParameters;
+        mDecodePreviousParameters = parameters;
+    }
+
+    /**
+     * Synthesis stage: synthesizes one frame of 16-bit PCM audio samples at the output sample rate from the decoded
+     * frame
+     */
+    @Override
+    public int synthesize(DecodedFrame decoded, float[] out, int outOffset)
+    {
+        mSynthesizer.getAudio(decoded, out, outOffset);
+        return mSynthesizer.getSamplesPerFrame();
+    }
+
+    /**
+     * Sets the output sample rate: 8000 (default), or 16000 or 48000 to enable the polyphase resampler output stage of
+     * the synthesizer.  The decode methods then produce 320 or 960 samples per frame.
+     *
+     * @param sampleRate in Hertz, a multiple of 8000 up to 48000
+     * @throws IllegalArgumentException if the sample rate is not supported
+     */
+    @Override
+    public void setOutputSampleRate(int sampleRate)
+    {
+        mSynthesizer.setOutputSampleRate(sampleRate);
+    }
+
+    /**
+     * Output sample rate in Hertz
+     */
+    @Override
+    public int getOutputSampleRate()
+    {
+        return mSynthesizer.getOutputSampleRate();
+    }
+
+    /**
+     * Number of audio samples that each decoded frame produces with the current output sample rate and time scale
+     */
+    @Override
+    public int getSamplesPerFrame()
+    {
+        return mSynthesizer.getSamplesPerFrame();
+    }
+
+    /**
+     * Enables or disables synthesis of voice frames directly at output sample rates above 8 kHz, instead of through
+     * the polyphase resampler output stage.  Disabled by default.  Voice frames at the output rate use floating point
+     * oscillators for any voiced synthesis mode.
+     *
+     * @throws IllegalArgumentException if enabled for a codec constructed with FIXED_POINT_OSCILLATORS
+     */
+    @Override
+    public void setNativeRateSynthesis(boolean enabled)
+    {
+        mSynthesizer.setNativeRateSynthesis(enabled);
+    }
+
+    /**
+     * Indicates if native rate synthesis is enabled
+     */
+    @Override
+    public boolean isNativeRateSynthesis()
+    {
+        return mSynthesizer.isNativeRateSynthesis();
+    }
+
+    /**
+     * Sets the playback speed for time-scaled playback: 1.0 (default) to 4.0.  The decode methods then produce
+     * round(160 / speed) samples per frame at 8 kHz, or that number times the rate factor at higher output rates.
+     * Time-scaled voice frames use floating point oscillators for any voiced synthesis mode.
+     *
+     * @param speed relative to real time
+     * @throws IllegalArgumentException if the speed is not supported, or is not 1.0 for a codec constructed with
+     * FIXED_POINT_OSCILLATORS
+     */
+    @Override
+    public void setTimeScale(float speed)
+    {
+        mSynthesizer.setTimeScale(speed);
     }
 
     /**
-     * Converts imbe frame data into PCM audio samples at 8kHz 16-bit rate
+     * Playback speed relative to real time
+     */
+    @Override
+    public float getTimeScale()
+    {
+        return mSynthesizer.getTimeScale();
+    }
+
+    /**
+     * Enables or disables TPDF dither for 16-bit PCM output.  Disabled by default.
+     */
+    @Override
+    public void setDither(boolean dither)
+    {
+        mSynthesizer.setDither(dither);
+    }
+
+    /**
+     * Converts imbe frame data into 16-bit PCM audio samples at the output sample rate
      *
      * Note: this method is for compatibility with the AMBE synthesizer and does not return any metadata.
      *
@@ -63,8 +277,78 @@ public class IMBEAudioCodec implements IAudioCodec
     @Override
     public IAudioWithMetadata getAudioWithMetadata(byte[] frameData)
     {
-        IMBEFrame frame = new IMBEFrame(frameData);
-        return AudioWithoutMetadata.create(mSynthesizer.getAudio(frame));
+        return AudioWithoutMetadata.create(getAudio(frameData));
+    }
+
+    /**
+     * Sets or changes the voiced audio synthesis engine used by this codec
+     *
+     * @param mode for synthesizing the voiced audio component
+     * @throws IllegalArgumentException if the mode is FIXED_POINT_OSCILLATORS and native rate synthesis is enabled or
+     * the time scale is not 1.0
+     */
+    public void setVoicedSynthesisMode(VoicedSynthesisMode mode)
+    {
+        mSynthesizer.setVoicedSynthesisMode(mode);
+        mDecodePreviousParameters.setFixedPointEnhancement(mode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS);
+        mDecodeCurrentParameters.setFixedPointEnhancement(mode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS);
+    }
+
+    /**
+     * Enables or disables use of the shared noise spectrum cache for unvoiced audio synthesis.  The cache is static,
+     * grows to about 11 MB and is never released.  Disabled by default.
+     *
+     * @param enabled true to use cached noise spectra
+     */
+    public void setCachedNoiseSpectra(boolean enabled)
+    {
+        mSynthesizer.setCachedNoiseSpectra(enabled);
+    }
+
+    /**
+     * Seeds the comfort noise and dither sequences, for reproducible audio output.
+     */
+    @Override
+    public void setNoiseSeed(long seed)
+    {
+        mSynthesizer.setNoiseSeed(seed);
+    }
+
+    /**
+     * Sets the noise source for the comfort noise of muted frames.  The default is the shared comfort noise table.
+     *
+     * @param noiseSource to use
+     */
+    public void setNoiseSource(INoiseSource noiseSource)
+    {
+        mSynthesizer.setNoiseSource(noiseSource);
+    }
+
+    /**
+     * IMBE frame length in bytes
+     */
+    @Override
+    public int getFrameLength()
+    {
+        return FRAME_LENGTH;
+    }
+
+    /**
+     * Frame type of the most recently decoded frame.  IMBE frames are always voice frames.
+     */
+    @Override
+    public AudioFrameType getFrameType()
+    {
+        return AudioFrameType.VOICE;
+    }
+
+    /**
+     * Number of bit errors detected and corrected in the most recently decoded frame
+     */
+    @Override
+    public int getErrorCount()
+    {
+        return mFrame.getErrorCountTotal();
     }
 
     /**
@@ -19,13 +19,15 @@
 
 package jmbe.codec.imbe;
 
-import jmbe.binary.BinaryFrame;
+import jmbe.binary.PackedFrame;
+import jmbe.codec.InverseDCT;
+import jmbe.codec.MBEModelParameters;
+import jmbe.codec.PredictionInterpolation;
 import jmbe.edac.Golay23;
 import jmbe.edac.Hamming15;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteOrder;
 import java.util.Arrays;
 
 
@@ -55,11 +57,45 @@ public class IMBEFrame
     public static final float[] COEFFICIENT_OFFSET = new float[] {0.0f, 0.5f, 1.5f, 3.5f, 7.5f, 15.5f, 31.5f, 63.5f,
         127.5f, 255.5f, 511.5f};
 
-    private BinaryFrame mFrame;
+    /**
+     * Derandomizer masks (Alg 52 - 54) for each of the 4096 seed values.  Each mask is 3 words long and aligned to the
+     * frame so that it can be applied directly (xor) against coset words c1 through c6 (bits 23 - 136).
+     */
+    private static final long[] DERANDOMIZER_MASKS = new long[4096 * 3];
+
+    static
+    {
+        for(int seed = 0; seed < 4096; seed++)
+        {
+            //alg 52
+            int prX = 16 * seed;
+
+            for(int x = 0; x < 114; x++)
+            {
+                //Alg 53 - simplified [... - 65536 * floor((173 * pr(n-1) + 13849) / 65536)] to modulus operation
+                prX = (173 * prX + 13849) % 65536;
+
+                //Alg 54 - values 32768 and above are a 1 and below is a 0 (default)
+                if(prX >= 32768)
+                {
+                    int index = x + 23;
+                    DERANDOMIZER_MASKS[seed * 3 + (index >>> 6)] |= (Long.MIN_VALUE >>> index);
+                }
+            }
+        }
+    }
+
+    private PackedFrame mFrame = new PackedFrame(144);
     private IMBEFundamentalFrequency mFundamentalFrequency;
     private int[] mErrors = new int[7];
     private int mErrorCountTotal;
 
+    //Reusable working buffers for decoding the model parameters
+    private float[] mGainVector = new float[7];
+    private float[][] mCoefficients = new float[7][MBEModelParameters.MAX_L + 1];
+    private float[] mResiduals = new float[MBEModelParameters.MAX_L + 1];
+    private float[] mPreviousLog2M = new float[MBEModelParameters.MAX_L + 2];
+
     /**
      * Constructs an IMBE frame from a binary message containing an 18-byte or
      * 144-bit message frame, and a previous IMBE frame.  Performs error detection
@@ -76,14 +112,32 @@ public class IMBEFrame
      */
     public IMBEFrame(byte[] data)
     {
-        mFrame = BinaryFrame.fromBytes(data, ByteOrder.LITTLE_ENDIAN);
+        decode(data, 0);
+    }
+
+    /**
+     * Constructs an empty IMBE frame that can be reused to decode a sequence of frames via the decode() method.
+     */
+    public IMBEFrame()
+    {
+    }
+
+    /**
+     * Decodes the 18-byte or 144-bit message frame that starts at the offset in the data array, replacing the current
+     * contents of this frame.  Performs error detection and correction.
+     *
+     * @param data array containing the message frame
+     * @param offset to the first byte of the message frame
+     */
+    public void decode(byte[] data, int offset)
+    {
+        IMBEInterleave.deinterleave(data, offset, mFrame);
+        mErrorCountTotal = 0;
         decode();
     }
 
     private void decode()
     {
-        IMBEInterleave.deinterleave(mFrame);
-
         mErrors[0] = Golay23.checkAndCorrect(mFrame, 0);
         mErrorCountTotal += mErrors[0];
 
@@ -111,12 +165,42 @@ public class IMBEFrame
         return mFundamentalFrequency;
     }
 
+    /**
+     * Error array with the bit error counts for the golay protected vectors c0 - c3 and the hamming protected vectors
+     * c4 - c6
+     */
+    public int[] getErrors()
+    {
+        return mErrors;
+    }
+
+    /**
+     * Total number of bit errors detected and corrected across the golay and hamming protected vectors of this frame
+     */
+    public int getErrorCountTotal()
+    {
+        return mErrorCountTotal;
+    }
+
     /**
      * Model parameters calculated for this frame.
      */
     public IMBEModelParameters getModelParameters(IMBEModelParameters previous)
     {
-        IMBEModelParameters parameters = new IMBEModelParameters(getFundamentalFrequency());
+        return getModelParameters(previous, new IMBEModelParameters(getFundamentalFrequency()));
+    }
+
+    /**
+     * Model parameters calculated for this frame, reusing the parameters argument instance.
+     *
+     * @param previous frame's model parameters
+     * @param parameters instance to reset and load with this frame's model parameters.  This must be a different
+     * instance than the previous parameters.
+     * @return the parameters argument
+     */
+    public IMBEModelParameters getModelParameters(IMBEModelParameters previous, IMBEModelParameters parameters)
+    {
+        parameters.reset(getFundamentalFrequency());
         parameters.setErrors(previous.getErrorRate(), mErrors[0], mErrors[4], mErrorCountTotal);
 
         /* If we have too many errors and/or the fundamental frequency is invalid
@@ -127,10 +211,12 @@ public class IMBEFrame
         }
         else
         {
-            parameters.setVoicingDecisions(getVoicingDecisions());
-            float[] log2SpectralAmplitudes = getLog2SpectralAmplitudes(previous);
-            parameters.setLog2SpectralAmplitudes(log2SpectralAmplitudes);
-            parameters.setSpectralAmplitudes(getSpectralAmplitudes(log2SpectralAmplitudes), previous.getLocalEnergy(),
+            parameters.setVoicingMask(getVoicingMask());
+            float[] log2SpectralAmplitudes = parameters.getLog2SpectralAmplitudes();
+            getLog2SpectralAmplitudes(previous, log2SpectralAmplitudes);
+            float[] spectralAmplitudes = parameters.getSpectralAmplitudes();
+            getSpectralAmplitudes(log2SpectralAmplitudes, spectralAmplitudes);
+            parameters.setSpectralAmplitudes(spectralAmplitudes, previous.getLocalEnergy(),
                 previous.getAmplitudeThreshold());
         }
 
@@ -140,44 +226,39 @@ public class IMBEFrame
     /**
      * Raw binary message source for this frame
      */
-    public BinaryFrame getFrame()
+    public PackedFrame getFrame()
     {
         return mFrame;
     }
 
     /**
-     * Removes randomizer by generating a pseudo-random noise sequence from the first 12 bits of coset word c0 and
-     * applies (xor) that sequence against message coset words c1 through c6.
+     * Removes randomizer by selecting the precomputed pseudo-random noise sequence for the seed contained in the first
+     * 12 bits of coset word c0 and applies (xor) that sequence against message coset words c1 through c6.
      */
     private void derandomize()
     {
-        /* Set the offset to the first seed bit plus 23 to point to coset c1 */
-        int offset = 23;
-
         /* Get seed value from first 12 bits of coset c0 */
         int seed = mFrame.getInt(RANDOMIZER_SEED);
 
-        //alg 52
-        int prX = 16 * seed;
-
-        for(int x = 0; x < 114; x++)
-        {
-            //Alg 53 - simplified [... - 65536 * floor((173 * pr(n-1) + 13849) / 65536)] to modulus operation
-            prX = (173 * prX + 13849) % 65536;
-
-            //Alg 54 - values 32768 and above are a 1 and below is a 0 (default)
-            if(prX >= 32768)
-            {
-                //This is the same as xor
-                mFrame.flip(x + offset);
-            }
-        }
+        mFrame.xor(DERANDOMIZER_MASKS, seed * 3);
     }
 
     /**
      * Reconstructs the spectral amplitude prediction residual set (T) for all values of L
      */
     public float[] getSpectralAmplitudePredictionResiduals()
+    {
+        float[] T = new float[getFundamentalFrequency().getL() + 1];
+        getSpectralAmplitudePredictionResiduals(T);
+        return T;
+    }
+
+    /**
+     * Reconstructs the spectral amplitude prediction residual set (T) for all values of L into the T array argument
+     *
+     * @param T array to receive the residuals in indexes 1 - L, minimum length L + 1
+     */
+    public void getSpectralAmplitudePredictionResiduals(float[] T)
     {
         int L = getFundamentalFrequency().getL();
 
@@ -185,7 +266,8 @@ public class IMBEFrame
         int gainIndex = mFrame.getInt(gainIndexes.getIndexes());
         Gain gain = Gain.fromValue(gainIndex);
 
-        float[] G = new float[7];
+        float[] G = mGainVector;
+        Arrays.fill(G, 0.0f);
         G[1] = gain.getGain();
 
         StepSizes stepSizes = StepSizes.fromL(L);
@@ -206,18 +288,24 @@ public class IMBEFrame
         }
 
         int[][] harmonicAllocations = HarmonicAllocation.fromL(L).getAllocations();
-        //Harmonic allocation for i = 6 (index 5) will always have the largest allocation - use it to dimension C array
 
-        float[][] C = new float[7][harmonicAllocations[5].length + 1];
+        float[][] C = mCoefficients;
+
+        for(float[] row : C)
+        {
+            Arrays.fill(row, 0.0f);
+        }
 
         //Alg 69 & 70 - Construct gain vector R as inverse DCT of G and transfer Ri to C[i][1]
+        float[][] gainBasis = InverseDCT.getBasis(6);
+
         for(int i = 1; i <= 6; i++)
         {
             C[i][1] = G[1];
 
             for(int m = 2; m <= 6; m++)
             {
-                C[i][1] += (2.0f * G[m] * (float)Math.cos((Math.PI * (float)(m - 1) * ((float)i - 0.5f)) / 6.0f));
+                C[i][1] += (2.0f * G[m] * gainBasis[i][m]);
             }
         }
 
@@ -246,13 +334,12 @@ public class IMBEFrame
         }
 
         //Alg 73 & 74 - inverse DCT of C to produce c and transfer results to Tl
-        float[] T = new float[L + 1];
-
         int l = 1;
 
         for(int i = 1; i <= 6; i++) /* J-Block index */
         {
             int Ji = harmonicAllocations[i - 1].length;
+            float[][] basis = InverseDCT.getBasis(Ji);
 
             for(int j = 1; j <= Ji; j++)
             {
@@ -262,15 +349,13 @@ public class IMBEFrame
                 {
                     for(int k = 2; k <= Ji; k++)
                     {
-                        T[l] += 2.0f * C[i][k] * (float)Math.cos((Math.PI * (float)(k - 1) * ((float)j - 0.5f)) / (float)Ji);
+                        T[l] += 2.0f * C[i][k] * basis[j][k];
                     }
                 }
 
                 l++;
             }
         }
-
-        return T;
     }
 
     /**
@@ -324,36 +409,40 @@ public class IMBEFrame
      * @param previousParameters - previous imbe audio frame
      */
     public float[] getLog2SpectralAmplitudes(IMBEModelParameters previousParameters)
+    {
+        float[] log2M = new float[getFundamentalFrequency().getL() + 1];
+        getLog2SpectralAmplitudes(previousParameters, log2M);
+        return log2M;
+    }
+
+    /**
+     * Algorithms 75, 76, 77, 78, and 79 - calculates the current frame's log2M spectral amplitudes into the log2M
+     * array argument.
+     *
+     * @param previousParameters - previous imbe audio frame
+     * @param log2M array to receive the log2 spectral amplitudes in indexes 1 - L, minimum length L + 1
+     */
+    public void getLog2SpectralAmplitudes(IMBEModelParameters previousParameters, float[] log2M)
     {
         float L = (float)getFundamentalFrequency().getL();
         int Lplus1 = getFundamentalFrequency().getL() + 1;
 
         int previousL = previousParameters.getL();
 
-        //Get previous frame's log2M entries and resize them to 1 greater than the max of the current L, or the
-        //previous L.  Set any newly expanded indexes to the value of the previously highest numbered index
-        float[] previousLog2M = resize(previousParameters.getLog2SpectralAmplitudes(),
-            Math.max(getFundamentalFrequency().getL(), previousL) + 1);
+        //Copy the previous frame's log2M entries and extend them to 1 greater than the max of the current L, or the
+        //previous L.  Algorithm #79 - set the extended indexes to the value of the previously highest numbered index
+        float[] previousLog2M = mPreviousLog2M;
+        System.arraycopy(previousParameters.getLog2SpectralAmplitudes(), 0, previousLog2M, 0, previousL + 1);
+        Arrays.fill(previousLog2M, previousL + 1, Math.max(Lplus1, previousL + 1) + 1, previousLog2M[previousL]);
 
         //Current frame spectral amplitude prediction residuals
-        float[] T = getSpectralAmplitudePredictionResiduals();
-
-        float scale = (float)previousL / L;
+        float[] T = mResiduals;
+        getSpectralAmplitudePredictionResiduals(T);
 
-        float[] kl = new float[Lplus1];
-        int[] klFloor = new int[Lplus1];
-        float[] sl = new float[Lplus1];
-
-        for(int l = 1; l < Lplus1; l++)
-        {
-            /* Algorithm #75 - calculate kl */
-            kl[l] = (float)l * scale;
-
-            klFloor[l] = (int)Math.floor(kl[l]);
-
-            /* Algorithm #76 - calculate sl */
-            sl[l] = kl[l] - (float)klFloor[l];
-        }
+        /* Algorithm #75 & #76 - floor of kl and sl for each harmonic */
+        PredictionInterpolation interpolation = PredictionInterpolation.get(previousL, Lplus1 - 1);
+        int[] klFloor = interpolation.getFloors();
+        float[] sl = interpolation.getWeights();
 
         float sum = 0.0f;
 
@@ -363,9 +452,6 @@ public class IMBEFrame
             sum += ((1.0f - sl[l]) * previousLog2M[klFloor[l]]) + (sl[l] * previousLog2M[klFloor[l] + 1]);
         }
 
-        /* Algorithm #77 - log2M spectral amplitudes of current frame */
-        float[] log2M = new float[Lplus1];
-
         //Alg 55 - Prediction coefficient
         float p;
 
@@ -386,7 +472,9 @@ public class IMBEFrame
         //prediction coefficient.
         float plSum = p / L * sum;
 
-        //Algorithm #77
+        /* Algorithm #77 - log2M spectral amplitudes of current frame */
+        log2M[0] = 0.0f;
+
         for(int l = 1; l <= L; l++)
         {
             log2M[l] = T[l]
@@ -394,23 +482,17 @@ public class IMBEFrame
                 + (p * sl[l] * previousLog2M[klFloor[l] + 1])
                 - plSum;
         }
-
-        return log2M;
     }
 
     /**
      * Creates (M) spectral amplitudes by applying the inverse log2 (ie 2 to the power of value) to each log2M
      */
-    private float[] getSpectralAmplitudes(float[] log2SpectralAmplitudes)
+    private void getSpectralAmplitudes(float[] log2SpectralAmplitudes, float[] spectralAmplitudes)
     {
-        float[] spectralAmplitudes = new float[log2SpectralAmplitudes.length];
-
-        for(int l = 0; l < log2SpectralAmplitudes.length; l++)
+        for(int l = 0; l <= getFundamentalFrequency().getL(); l++)
         {
             spectralAmplitudes[l] = (float)Math.pow(2.0f, log2SpectralAmplitudes[l]);
         }
-
-        return spectralAmplitudes;
     }
 
     /**
@@ -436,16 +518,46 @@ public class IMBEFrame
      */
     public boolean[] getVoicingDecisions()
     {
-        int L = getFundamentalFrequency().getL();
+        boolean[] decisions = new boolean[getFundamentalFrequency().getL() + 1];
+        getVoicingDecisions(decisions);
+        return decisions;
+    }
 
-        boolean[] decisions = new boolean[L + 1];
+    /**
+     * Loads the voiced (true) / unvoiced (false) status for each of the L harmonics into array indexes 1 through L of
+     * the decisions array argument.
+     *
+     * @param decisions array to receive the voicing decisions, minimum length L + 1
+     */
+    public void getVoicingDecisions(boolean[] decisions)
+    {
+        int L = getFundamentalFrequency().getL();
 
         for(int x = 1; x <= L; x++)
         {
             decisions[x] = mFrame.get(VOICE_DECISION_INDEX[x]);
         }
+    }
 
-        return decisions;
+    /**
+     * Voiced / unvoiced status for each of the L harmonics as a bit mask where bit l is set when harmonic l is voiced.
+     *
+     * @return voicing mask with bits 1 through L
+     */
+    public long getVoicingMask()
+    {
+        int L = getFundamentalFrequency().getL();
+        long mask = 0L;
+
+        for(int x = 1; x <= L; x++)
+        {
+            if(mFrame.get(VOICE_DECISION_INDEX[x]))
+            {
+                mask |= (1L << x);
+            }
+        }
+
+        return mask;
     }
 
     public String toString()
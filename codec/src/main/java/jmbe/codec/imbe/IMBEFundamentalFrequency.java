@@ -20,11 +20,11 @@
 package jmbe.codec.imbe;
 
 import jmbe.codec.FrameType;
+import jmbe.codec.FundamentalFrequencyTables;
 import jmbe.codec.IFundamentalFrequency;
 
+import java.util.Arrays;
 import java.util.EnumSet;
-import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * Fundamental frequency enumeration used for decoding the value of the information vector b0 using the formulas
@@ -252,7 +252,8 @@ public enum IMBEFundamentalFrequency implements IFundamentalFrequency
     private int mIndex;
     private int mL;
     private float mFrequency;
-    private static Map<Integer,IMBEFundamentalFrequency> LOOKUP_MAP = new TreeMap<>();
+    private FundamentalFrequencyTables mTables;
+    private static final IMBEFundamentalFrequency[] LOOKUP = new IMBEFundamentalFrequency[256];
     private static final EnumSet<IMBEFundamentalFrequency> VALID_VALUES = EnumSet.range(W0, W207);
 
     IMBEFundamentalFrequency(int index)
@@ -264,9 +265,11 @@ public enum IMBEFundamentalFrequency implements IFundamentalFrequency
 
     static
     {
+        Arrays.fill(LOOKUP, INVALID);
+
         for(IMBEFundamentalFrequency frequency:VALID_VALUES)
         {
-            LOOKUP_MAP.put(frequency.mIndex, frequency);
+            LOOKUP[frequency.mIndex] = frequency;
         }
     }
 
@@ -286,13 +289,29 @@ public enum IMBEFundamentalFrequency implements IFundamentalFrequency
         return mFrequency;
     }
 
-    public static IMBEFundamentalFrequency fromValue(int value)
+    /**
+     * Synthesis tables for this fundamental frequency.  Tables are created on first access.  Concurrent first access
+     * may create more than one instance, but each is identical and immutable, so any one of them can be used.
+     */
+    @Override
+    public FundamentalFrequencyTables getTables()
     {
-        IMBEFundamentalFrequency frequency = LOOKUP_MAP.get(value);
+        FundamentalFrequencyTables tables = mTables;
+
+        if(tables == null)
+        {
+            tables = new FundamentalFrequencyTables(mFrequency, mL);
+            mTables = tables;
+        }
+
+        return tables;
+    }
 
-        if(frequency != null)
+    public static IMBEFundamentalFrequency fromValue(int value)
+    {
+        if(0 <= value && value < LOOKUP.length)
         {
-            return frequency;
+            return LOOKUP[value];
         }
 
         return IMBEFundamentalFrequency.INVALID;
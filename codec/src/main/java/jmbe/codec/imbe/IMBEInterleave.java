@@ -1,8 +1,6 @@
 package jmbe.codec.imbe;
 
-import jmbe.binary.BinaryFrame;
-
-import java.util.BitSet;
+import jmbe.binary.PackedFrame;
 
 /*******************************************************************************
  *     jmbe - Java MBE Library
@@ -37,19 +35,68 @@ public class IMBEInterleave
 		67,139,115,20,44,68,92,116,140,45,21,93,69,141,117,22,46,70,94,118,142,
 		47,23,95,71,143,119 };
 
-	public static void deinterleave( BinaryFrame frame )
+	/**
+	 * Deinterleave masks for each of the 36 nibbles of the 144-bit interleaved
+	 * message.  Each nibble value (0 - 15) has a 3-word mask containing the
+	 * deinterleaved bit positions of the set bits of that nibble value.
+	 */
+	private static final long[] DEINTERLEAVE_MASKS = new long[ 36 * 16 * 3 ];
+
+	static
 	{
-		BitSet original = frame.get( 0, 144 );
+		for( int nibble = 0; nibble < 36; nibble++ )
+		{
+			for( int value = 0; value < 16; value++ )
+			{
+				int offset = ( nibble * 16 + value ) * 3;
 
-		/* Clear block bits in source message */
-		frame.clear( 0, 144 );
+				for( int bit = 0; bit < 4; bit++ )
+				{
+					if( ( value & ( 0x8 >>> bit ) ) != 0 )
+					{
+						int index = DEINTERLEAVE[ nibble * 4 + bit ];
 
-		/* Iterate set bits of original message and transfer back to imbe frame */
-		for (int i = original.nextSetBit( 0 ); 
-				 i >= 0 && i < DEINTERLEAVE.length; 
-				 i = original.nextSetBit( i + 1 ) ) 
+						DEINTERLEAVE_MASKS[ offset + ( index >>> 6 ) ] |= 
+							( Long.MIN_VALUE >>> index );
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deinterleaves the 18-byte interleaved message into the 144-bit frame, 
+	 * replacing the current contents of the frame.
+	 * 
+	 * @param data - 18-byte interleaved message
+	 * @param frame - 144-bit frame to receive the deinterleaved message
+	 */
+	public static void deinterleave( byte[] data, PackedFrame frame )
+	{
+		deinterleave( data, 0, frame );
+	}
+
+	/**
+	 * Deinterleaves the 18-byte interleaved message that starts at the offset 
+	 * into the 144-bit frame, replacing the current contents of the frame.
+	 * 
+	 * @param data - array containing the 18-byte interleaved message
+	 * @param offset - to the first byte of the interleaved message
+	 * @param frame - 144-bit frame to receive the deinterleaved message
+	 */
+	public static void deinterleave( byte[] data, int offset, PackedFrame frame )
+	{
+		frame.clear();
+
+		int length = Math.min( data.length - offset, 18 );
+
+		for( int x = 0; x < length; x++ )
 		{
-			frame.set( DEINTERLEAVE[ i ] );
+			int nibble = x * 2;
+			int value = data[ offset + x ];
+
+			frame.xor( DEINTERLEAVE_MASKS, ( nibble * 16 + ( ( value >>> 4 ) & 0xF ) ) * 3 );
+			frame.xor( DEINTERLEAVE_MASKS, ( ( nibble + 1 ) * 16 + ( value & 0xF ) ) * 3 );
 		}
 	}
 }
@@ -39,26 +39,42 @@ public class IMBEModelParameters extends MBEModelParameters
     public IMBEModelParameters(IMBEFundamentalFrequency frequency)
     {
         super(frequency);
+        setDefaultSpectralAmplitudes();
+    }
 
-        int lplus1 = getL() + 1;
-
-        setVoicingDecisions(new boolean[lplus1]);
-        setLog2SpectralAmplitudes(new float[lplus1]);
-
-        float[] spectralAmplitudes = new float[lplus1];
+    public IMBEModelParameters()
+    {
+        this(IMBEFundamentalFrequency.DEFAULT);
+    }
 
-        for(int x = 0; x < lplus1; x++)
-        {
-            spectralAmplitudes[x] = 1.0f;
-        }
+    /**
+     * Resets this instance to the constructed (default) state for reuse with the specified fundamental frequency.
+     */
+    public void reset(IMBEFundamentalFrequency frequency)
+    {
+        resetParameters(frequency);
+        mErrorCountCoset0 = 0;
+        setDefaultSpectralAmplitudes();
+    }
 
-        mSpectralAmplitudes = spectralAmplitudes;
-        mEnhancedSpectralAmplitudes = spectralAmplitudes;
+    /**
+     * Resets this instance to the constructed (default) state using the default fundamental frequency.
+     */
+    public void reset()
+    {
+        reset(IMBEFundamentalFrequency.DEFAULT);
     }
 
-    public IMBEModelParameters()
+    /**
+     * Sets the spectral and enhanced spectral amplitudes to 1.0 for indexes 0 - L
+     */
+    private void setDefaultSpectralAmplitudes()
     {
-        this(IMBEFundamentalFrequency.DEFAULT);
+        for(int x = 0; x <= getL(); x++)
+        {
+            mSpectralAmplitudes[x] = 1.0f;
+            mEnhancedSpectralAmplitudes[x] = 1.0f;
+        }
     }
 
     /**
@@ -110,25 +126,29 @@ public class IMBEModelParameters extends MBEModelParameters
         if(previous.getRepeatCount() > MAX_HEADROOM_THRESHOLD)
         {
             setMBEFundamentalFrequency(IMBEFundamentalFrequency.DEFAULT);
-            int lplus1 = getL() + 1;
 
-            setVoicingDecisions(new boolean[lplus1]);
-            setLog2SpectralAmplitudes(new float[lplus1]);
+            setVoicingMask(0L);
+            Arrays.fill(getLog2SpectralAmplitudes(), 0.0f);
+            Arrays.fill(mSpectralAmplitudes, 0.0f);
 
-            float[] spectralAmplitudes = new float[lplus1];
-            for(int x = 0; x < lplus1; x++)
+            for(int x = 0; x <= getL(); x++)
             {
-                spectralAmplitudes[x] = 1.0f;
+                mSpectralAmplitudes[x] = 1.0f;
             }
 
-            setSpectralAmplitudes(spectralAmplitudes, getLocalEnergy(), getAmplitudeThreshold());
+            setSpectralAmplitudes(mSpectralAmplitudes, getLocalEnergy(), getAmplitudeThreshold());
         }
         else
         {
             setMBEFundamentalFrequency(previous.getIMBEFundamentalFrequency());
-            setVoicingDecisions(previous.getVoicingDecisions());
+            setVoicingMask(previous.getVoicingMask());
             setLog2SpectralAmplitudes(previous.getLog2SpectralAmplitudes());
             setSpectralAmplitudes(previous.getSpectralAmplitudes(), previous.getLocalEnergy(), previous.getAmplitudeThreshold());
+
+            //The previous frame's voicing decisions are subject to the adaptive smoothing (Alg #113) applied while
+            //enhancing the repeated spectral amplitudes
+            previous.setVoicingMask(getVoicingMask());
+
             setAmplitudeThreshold(previous.getAmplitudeThreshold());
             setLocalEnergy(previous.getLocalEnergy());
             mErrorCountCoset0 = previous.getErrorCountCoset0();
@@ -19,8 +19,10 @@
 
 package jmbe.codec.imbe;
 
-import jmbe.codec.MBEModelParameters;
+import jmbe.codec.DecodedFrame;
 import jmbe.codec.MBESynthesizer;
+import jmbe.codec.SynthesisAction;
+import jmbe.codec.VoicedSynthesisMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +44,7 @@ public class IMBESynthesizer extends MBESynthesizer
 {
     private final static Logger mLog = LoggerFactory.getLogger(IMBESynthesizer.class);
     private IMBEModelParameters mPreviousParameters = new IMBEModelParameters();
+    private IMBEModelParameters mCurrentParameters = new IMBEModelParameters();
 
     /**
      * Synthesizes 8 kHz 16-bit audio from IMBE audio frames
@@ -51,45 +54,140 @@ public class IMBESynthesizer extends MBESynthesizer
     }
 
     @Override
-    public MBEModelParameters getPreviousFrame()
+    public IMBEModelParameters getPreviousFrame()
     {
         return mPreviousParameters;
     }
 
+    @Override
     public void reset()
     {
-        mPreviousParameters = new IMBEModelParameters();
+        super.reset();
+        mPreviousParameters.reset();
+    }
+
+    /**
+     * Sets or changes the voiced audio synthesis engine.  FIXED_POINT_OSCILLATORS also generates the enhanced
+     * spectral amplitudes of each frame with integer arithmetic.
+     */
+    @Override
+    public void setVoicedSynthesisMode(VoicedSynthesisMode mode)
+    {
+        super.setVoicedSynthesisMode(mode);
+        mPreviousParameters.setFixedPointEnhancement(mode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS);
+        mCurrentParameters.setFixedPointEnhancement(mode == VoicedSynthesisMode.FIXED_POINT_OSCILLATORS);
     }
 
     /**
      * Synthesizes 20 milliseconds of audio from the imbe frame parameters in
      * the following format:
      *
-     * Sample Rate: 8 kHz
+     * Sample Rate: output sample rate (8 kHz by default)
      * Sample Size: 16-bits
-     * Frame Size: 160 samples
+     * Frame Size: getSamplesPerFrame() samples (160 by default)
      * Bit Format: Little Endian
      *
      * @return ByteBuffer containing the audio sample bytes
      */
     public float[] getAudio(IMBEFrame frame)
     {
-        IMBEModelParameters parameters = frame.getModelParameters(mPreviousParameters);
+        float[] audio = new float[getSamplesPerFrame()];
+        getAudio(frame, audio, 0);
+        return audio;
+    }
 
-        float[] audio = null;
+    /**
+     * Synthesizes 20 milliseconds (160 samples) of 8 kHz audio from the imbe frame parameters into the audio array.
+     *
+     * The model parameters for the current and previous frames are held in two reusable instances that alternate
+     * roles after each frame, so that synthesis does not allocate.
+     *
+     * @param frame to synthesize
+     * @param audio array to receive the samples
+     * @param offset into the audio array for the first sample
+     */
+    public void getAudio(IMBEFrame frame, float[] audio, int offset)
+    {
+        setOutput(audio, offset);
+        synthesize(frame);
+    }
 
-        if(parameters.isMaxFrameRepeat() || parameters.requiresMuting())
+    /**
+     * Synthesizes 20 milliseconds (160 samples) of 8 kHz 16-bit PCM audio from the imbe frame parameters directly
+     * into the pcm array.
+     *
+     * @param frame to synthesize
+     * @param pcm array to receive the samples
+     * @param offset into the pcm array for the first sample
+     */
+    public void getAudio(IMBEFrame frame, short[] pcm, int offset)
+    {
+        setOutput(pcm, offset);
+        synthesize(frame);
+    }
+
+    /**
+     * Synthesizes 20 milliseconds (160 samples, 320 bytes) of 8 kHz 16-bit PCM audio from the imbe frame parameters
+     * directly into the pcm byte array.
+     *
+     * @param frame to synthesize
+     * @param pcm array to receive the sample bytes
+     * @param offset into the pcm array for the first byte
+     * @param byteOrder of the 16-bit samples
+     */
+    public void getAudio(IMBEFrame frame, byte[] pcm, int offset, ByteOrder byteOrder)
+    {
+        setOutput(pcm, offset, byteOrder);
+        synthesize(frame);
+    }
+
+    /**
+     * Synthesizes 20 milliseconds (160 samples) of 8 kHz audio from a frame decoded by the decode stage of a
+     * pipelined codec into the audio array.  The decoded model parameters are copied so that the decoded frame can be
+     * reused by the decode stage.
+     *
+     * @param decoded frame to synthesize
+     * @param audio array to receive the samples
+     * @param offset into the audio array for the first sample
+     */
+    public void getAudio(DecodedFrame decoded, float[] audio, int offset)
+    {
+        setOutput(audio, offset);
+        mCurrentParameters.copyParameters(decoded.getParameters());
+        mPreviousParameters.setVoicingMask(decoded.getPreviousVoicingMask());
+
+        if(decoded.getAction() == SynthesisAction.VOICE)
         {
-            audio = getWhiteNoise();
+            writeVoice(mCurrentParameters);
         }
         else
         {
-            audio = getVoice(parameters);
+            writeWhiteNoise();
         }
 
+        IMBEModelParameters parameters = mCurrentParameters;
+        mCurrentParameters = mPreviousParameters;
         mPreviousParameters = parameters;
+    }
 
-        return audio;
+    /**
+     * Synthesizes the imbe frame to the current output target
+     */
+    private void synthesize(IMBEFrame frame)
+    {
+        IMBEModelParameters parameters = frame.getModelParameters(mPreviousParameters, mCurrentParameters);
+
+        if(parameters.isMaxFrameRepeat() || parameters.requiresMuting())
+        {
+            writeWhiteNoise();
+        }
+        else
+        {
+            writeVoice(parameters);
+        }
+
+        mCurrentParameters = mPreviousParameters;
+        mPreviousParameters = parameters;
     }
 
     public static void main(String[] args)
@@ -116,9 +214,8 @@ public class IMBESynthesizer extends MBESynthesizer
                 boolean started = false;
 
                 IMBEModelParameters current = new IMBEModelParameters();
-
-                float[] allSamples = new float[frames.length * 160];
-                int allSamplesPointer = 0;
+                byte[] bytes = buffer.array();
+                int pointer = 0;
 
                 for(String frame : frames)
                 {
@@ -130,21 +227,9 @@ public class IMBESynthesizer extends MBESynthesizer
 
                     IMBEFrame imbe = new IMBEFrame(data);
                     current = imbe.getModelParameters(current);
-                    float[] samples = synthesizer.getAudio(imbe);
-                    System.arraycopy(samples, 0, allSamples, allSamplesPointer, samples.length);
-                    allSamplesPointer += 160;
-                    ByteBuffer converted = ByteBuffer.allocate(samples.length * 2);
-                    converted = converted.order(ByteOrder.LITTLE_ENDIAN);
-
-                    for(float sample : samples)
-                    {
-                        converted.putShort((short)(sample * Short.MAX_VALUE));
-                    }
-
-                    byte[] bytes = converted.array();
-                    sourceDataLine.write(bytes, 0, bytes.length);
-
-                    buffer.put(bytes);
+                    synthesizer.getAudio(imbe, bytes, pointer, ByteOrder.LITTLE_ENDIAN);
+                    sourceDataLine.write(bytes, pointer, 320);
+                    pointer += 320;
 
                     if(!started)
                     {
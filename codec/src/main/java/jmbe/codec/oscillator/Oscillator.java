@@ -19,9 +19,11 @@
 
 package jmbe.codec.oscillator;
 
+import java.util.Arrays;
+
 public class Oscillator
 {
-    private Complex mAnglePerSample;
+    private Complex mAnglePerSample = new Complex();
     private Complex mCurrentAngle = new Complex(0.0f, -1.0f);
     private double mFrequency;
     private double mSampleRate;
@@ -77,17 +79,52 @@ public class Oscillator
     public float[] generate(int sampleCount, float gain)
     {
         float[] samples = new float[sampleCount];
+        generate(samples, 0, sampleCount, gain);
+        return samples;
+    }
 
+    /**
+     * Generates real samples from this oscillator into the samples array, replacing the current contents.
+     *
+     * @param samples array to receive the generated samples
+     * @param offset into the samples array for the first sample
+     * @param sampleCount number of samples to generate
+     * @param gain value
+     */
+    public void generate(float[] samples, int offset, int sampleCount, float gain)
+    {
         if(mFrequency != 0.0)
         {
-            for(int x = 0; x < sampleCount; x++)
+            for(int x = offset; x < offset + sampleCount; x++)
             {
                 rotate();
                 samples[x] = quadrature() * gain;
             }
         }
+        else
+        {
+            Arrays.fill(samples, offset, offset + sampleCount, 0.0f);
+        }
+    }
 
-        return samples;
+    /**
+     * Generates real samples from this oscillator and adds them to the current contents of the samples array.
+     *
+     * @param samples array to accumulate the generated samples
+     * @param offset into the samples array for the first sample
+     * @param sampleCount number of samples to generate
+     * @param gain value
+     */
+    public void add(float[] samples, int offset, int sampleCount, float gain)
+    {
+        if(mFrequency != 0.0)
+        {
+            for(int x = offset; x < offset + sampleCount; x++)
+            {
+                rotate();
+                samples[x] += quadrature() * gain;
+            }
+        }
     }
 
 
@@ -116,6 +153,6 @@ public class Oscillator
     protected void update()
     {
         float anglePerSample = (float)(2.0d * Math.PI * getFrequency() / getSampleRate());
-        mAnglePerSample = Complex.fromAngle(anglePerSample);
+        mAnglePerSample.setAngle(anglePerSample);
     }
 }
@@ -1,9 +1,7 @@
 package jmbe.edac;
 
 import jmbe.binary.BinaryFrame;
-
-import java.util.ArrayList;
-import java.util.List;
+import jmbe.binary.PackedFrame;
 
 /*******************************************************************************
  *     jmbe - Java MBE Library
@@ -35,134 +33,137 @@ public class Golay23
 	};
 
 	/**
-	 * Implements Golay(23,11,7) error detection and correction.  Returns the
-	 * number of detected errors.  If the error count is less than or equal to
-	 * the max correctable errors (3), then the error bits are corrected.  
-	 * Otherwise the message is left intact and an error count greater than 3
-	 * is returned.
-	 * 
-	 * @param frame - message frame bitset
-	 * @param startIndex - first bit index of the golay protected bit sequence
-	 * 
-	 * @return - number of detected errors
+	 * Checksum (parity bits) lookup table for each of the 4096 data values
 	 */
-	public static int checkAndCorrect( BinaryFrame frame, int startIndex )
+	private static final int[] CHECKSUM_TABLE = new int[ 4096 ];
+
+	/**
+	 * Error pattern lookup table for each of the 2048 syndrome values.  The 
+	 * golay(23) code is perfect, so every syndrome maps to exactly one error
+	 * pattern containing 0 - 3 bit errors.
+	 */
+	private static final int[] ERROR_PATTERNS = new int[ 2048 ];
+
+	static
 	{
-		int syndrome = getSyndrome( frame, startIndex );
-		
-		/* No errors */
-		if( syndrome == 0 )
+		for( int data = 0; data < 4096; data++ )
 		{
-			return 0;
-		}
-		
-		BinaryFrame copy = frame.getSubMessage( startIndex, startIndex + 23 );
-
-		int index = -1;
-		int syndromeWeight = MAX_CORRECTABLE_ERRORS;
-		int errors = 0;
-		
-		while( index < 23 )
-		{
-			if( index != -1 )
+			for( int i = 0; i < 12; i++ )
 			{
-				/* restore the previous flipped bit */
-				if( index > 0 )
+				if( ( data & ( 0x800 >>> i ) ) != 0 )
 				{
-					copy.flip( index - 1 );
+					CHECKSUM_TABLE[ data ] ^= CHECKSUMS[ i ];
 				}
-				
-				copy.flip( index );
-				
-				syndromeWeight = MAX_CORRECTABLE_ERRORS - 1;
 			}
-			
-			syndrome = getSyndrome( copy, 0 );
-			
-			if( syndrome > 0 )
+		}
+
+		/* Single, double and triple bit error patterns */
+		for( int a = 0; a < 23; a++ )
+		{
+			int patternA = 1 << a;
+			ERROR_PATTERNS[ getSyndrome( patternA ) ] = patternA;
+
+			for( int b = a + 1; b < 23; b++ )
 			{
-				for( int i = 0; i < 23; i++ )
+				int patternB = patternA | ( 1 << b );
+				ERROR_PATTERNS[ getSyndrome( patternB ) ] = patternB;
+
+				for( int c = b + 1; c < 23; c++ )
 				{
-					errors = Integer.bitCount( syndrome );
-					
-					if( errors <= syndromeWeight )
-					{
-						copy.xor( 12, 11, syndrome );
-						
-						copy.rotateRight( i, 0, 22 );
-
-						if( index >= 0 )
-						{
-							errors ++;
-						}
-
-						int corrected = copy.getInt( 0, 22 );
-						int original = frame.getInt( startIndex, startIndex + 22 );
-						int errorCount = Integer.bitCount( original ^ corrected );
-
-						if( errorCount <= 3 )
-						{
-							frame.load( startIndex, 23, corrected );
-						}
-
-						return errorCount;
-					}
-					else
-					{
-						copy.rotateLeft( 0, 22 );
-						syndrome = getSyndrome( copy, 0 );
-					}
+					int patternC = patternB | ( 1 << c );
+					ERROR_PATTERNS[ getSyndrome( patternC ) ] = patternC;
 				}
-				
-				index++;
 			}
 		}
-
-		/* Return an error count greater than 3 to indicate failed correction attempt */
-		return 4;
 	}
 
-	private static int getSyndrome( BinaryFrame frame, int startIndex )
+	/**
+	 * Implements Golay(23,11,7) error detection and correction.  Returns the
+	 * number of detected errors (0 - 3) and corrects the error bits.
+	 * 
+	 * @param frame - message frame bitset
+	 * @param startIndex - first bit index of the golay protected bit sequence
+	 * 
+	 * @return - number of detected errors
+	 */
+	public static int checkAndCorrect( BinaryFrame frame, int startIndex )
 	{
-		int calculated = calculateChecksum( frame, startIndex );
-		
-		int checksum = frame.getInt( startIndex + 12, startIndex + 22 );
+		int original = frame.getInt( startIndex, startIndex + 22 );
+		int corrected = correct( original );
 
-		return ( checksum ^ calculated );
+		if( corrected != original )
+		{
+			frame.load( startIndex, 23, corrected );
+		}
+
+		return Integer.bitCount( original ^ corrected );
 	}
-	
-	private static int calculateChecksum( BinaryFrame frame, int startIndex )
+
+	/**
+	 * Implements Golay(23,11,7) error detection and correction against a
+	 * packed frame.  Returns the number of detected errors (0 - 3) and
+	 * corrects the error bits.
+	 * 
+	 * @param frame - packed message frame
+	 * @param startIndex - first bit index of the golay protected bit sequence
+	 * 
+	 * @return - number of detected errors
+	 */
+	public static int checkAndCorrect( PackedFrame frame, int startIndex )
 	{
-		int calculated = 0; //Starting value
+		int original = frame.getInt( startIndex, startIndex + 22 );
+		int corrected = correct( original );
 
-		/* Iterate the set bits and XOR running checksum with lookup value */
-		for (int i = frame.nextSetBit( startIndex ); 
-				 i >= startIndex && i < startIndex + 12; 
-				 i = frame.nextSetBit( i+1 ) ) 
+		if( corrected != original )
 		{
-			calculated ^= CHECKSUMS[ i - startIndex ];
+			frame.load( startIndex, 23, corrected );
 		}
-		
-		return calculated;
+
+		return Integer.bitCount( original ^ corrected );
 	}
-	
+
+	/**
+	 * Implements Golay(23,11,7) error detection and correction on a 23-bit
+	 * codeword value, where the first (MSB) data bit of the codeword is located
+	 * at bit 22 and the last parity bit is located at bit 0.  The number of
+	 * corrected errors is the bit count of the xor of the original and the
+	 * corrected codewords.
+	 * 
+	 * @param codeword - 23-bit golay protected value
+	 * 
+	 * @return - corrected codeword
+	 */
+	public static int correct( int codeword )
+	{
+		return codeword ^ ERROR_PATTERNS[ getSyndrome( codeword ) ];
+	}
+
+	/**
+	 * Calculates the syndrome of a 23-bit codeword value
+	 */
+	private static int getSyndrome( int codeword )
+	{
+		return ( ( codeword & 0x7FF ) ^ CHECKSUM_TABLE[ ( codeword >>> 11 ) & 0xFFF ] );
+	}
+
+	/**
+	 * Test harness - verifies that every 23-bit value is corrected to a valid
+	 * codeword with 3 or fewer corrected bit errors
+	 */
 	public static void main( String[] args )
 	{
-		for( int x = 0; x < 0x7FFFFF; x++ )
+		for( int x = 0; x <= 0x7FFFFF; x++ )
 		{
-			BinaryFrame frame = new BinaryFrame( 23 );
-
-			frame.load( 0, 23, x );
-			
-			int errors = checkAndCorrect( frame, 0 );
-			
-			System.out.println( "x:" + x + " errors:" + errors );
-			
-			if( errors == 4 )
+			int corrected = correct( x );
+			int errors = Integer.bitCount( x ^ corrected );
+
+			if( getSyndrome( corrected ) != 0 || errors > MAX_CORRECTABLE_ERRORS )
 			{
-				System.out.println( "Value " + x + " has 4 bit errors" );
+				System.out.println( "Value " + x + " failed correction with " + errors + " errors" );
 				return;
 			}
 		}
+
+		System.out.println( "All values corrected" );
 	}
 }
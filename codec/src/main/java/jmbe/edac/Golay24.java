@@ -44,119 +44,54 @@ public class Golay24
             0x040, 0x020, 0x010, 0x008, 0x004, 0x002, 0x001
         };
 
-    private static int calculateChecksum(BinaryFrame message, int startIndex)
+    /**
+     * Performs error detection and correction of the 24-bit message that starts at the start index.  Corrects the
+     * error bits and returns the number of detected errors.
+     *
+     * @param message - source message containing startIndex + 24 bits length
+     * @param startIndex - start of the 24-bit galois 24 protected bit set
+     * @return - number of detected errors
+     */
+    public static int checkAndCorrect(BinaryFrame message, int startIndex)
     {
-        int calculated = 0; //Starting value
+        int original = message.getInt(startIndex, startIndex + 23);
+        int corrected = correct(original);
 
-        /* Iterate the set bits and XOR running checksum with lookup value */
-        for(int i = message.nextSetBit(startIndex);
-            i >= startIndex && i < startIndex + 12;
-            i = message.nextSetBit(i + 1))
+        if(corrected != original)
         {
-            calculated ^= CHECKSUMS[i - startIndex];
+            message.load(startIndex, 24, corrected);
         }
 
-        return calculated;
+        return Integer.bitCount(original ^ corrected);
     }
 
     /**
-     * Performs error detection and returns a corrected copy of the 24-bit
-     * message that starts at the start index.
+     * Performs error detection and correction on a 24-bit codeword value, where the first (MSB) data bit of the
+     * codeword is located at bit 23 and the overall parity bit is located at bit 0.  The number of corrected errors
+     * is the bit count of the xor of the original and the corrected codewords.
      *
-     * @param message - source message containing startIndex + 24 bits length
-     * @param startIndex - start of the 24-bit galois 24 protected bit set
-     * @return - corrected 24-bit galois value
+     * The first 23 bits are corrected with the Golay(23) syndrome table.  When those bits contain no errors, a parity
+     * error is attributed to (and corrected in) the parity bit.
+     *
+     * @param codeword - 24-bit galois 24 protected value
+     * @return - corrected codeword
      */
-    public static int checkAndCorrect(BinaryFrame message, int startIndex)
+    public static int correct(int codeword)
     {
-        boolean parityError = (message.cardinality() % 2) != 0;
-
-        int syndrome = getSyndrome(message, startIndex);
+        int message = codeword >>> 1;
+        int corrected = Golay23.correct(message);
 
         /* No errors */
-        if(syndrome == 0)
+        if(corrected == message)
         {
-            if(parityError)
+            if((Integer.bitCount(codeword) % 2) != 0)
             {
-                message.flip(startIndex + 23);
-//                message.incrementCorrectedBitCount(1);
-                return 1;
+                return codeword ^ 1;
             }
 
-            return 0;
+            return codeword;
         }
 
-        /* Get original message value */
-        int original = message.getInt(0, 22);
-
-        int index = -1;
-        int syndromeWeight = 3;
-        int errors = 0;
-
-        while(index < 23)
-        {
-            if(index != -1)
-            {
-                /* restore the previous flipped bit */
-                if(index > 0)
-                {
-                    message.flip(index - 1);
-                }
-
-                message.flip(index);
-
-                syndromeWeight = 2;
-            }
-
-            syndrome = getSyndrome(message, startIndex);
-
-            if(syndrome > 0)
-            {
-                for(int i = 0; i < 23; i++)
-                {
-
-                    errors = Integer.bitCount(syndrome);
-
-                    if(errors <= syndromeWeight)
-                    {
-                        message.xor(12, 11, syndrome);
-
-                        message.rotateRight(i, startIndex, startIndex + 22);
-
-                        if(index >= 0)
-                        {
-                            errors++;
-                        }
-
-                        int corrected = message.getInt(0, 22);
-
-                        if(Integer.bitCount(original ^ corrected) > 3)
-                        {
-                            return 4;
-                        }
-
-                        return errors;
-                    }
-                    else
-                    {
-                        message.rotateLeft(startIndex, startIndex + 22);
-                        syndrome = getSyndrome(message, startIndex);
-                    }
-                }
-
-                index++;
-            }
-        }
-
-        return 2;
-    }
-
-    private static int getSyndrome(BinaryFrame message, int startIndex)
-    {
-        int calculated = calculateChecksum(message, startIndex);
-
-        int checksum = message.getInt(startIndex + 12, startIndex + 22);
-
-        return (checksum ^ calculated);
+        return (corrected << 1) | (codeword & 1);
     }
 }
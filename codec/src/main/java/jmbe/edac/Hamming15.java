@@ -1,6 +1,7 @@
 package jmbe.edac;
 
 import jmbe.binary.BinaryFrame;
+import jmbe.binary.PackedFrame;
 
 /*******************************************************************************
  *     jmbe - Java MBE Library
@@ -26,6 +27,41 @@ public class Hamming15
 	private static int[] CHECKSUMS = new int[] { 0xF,0xE,0xD,0xC,0xB,0XA,0x9,
 		0x7,0x6,0x5,0x3 };
 
+	/**
+	 * Codeword bit index to correct for each syndrome value 1 - 15
+	 */
+	private static int[] SYNDROME_ERROR_INDEX = new int[] { -1,14,13,10,12,9,8,
+		7,11,6,5,4,3,2,1,0 };
+
+	/**
+	 * Checksum (parity 8,4,2,1) lookup table for each of the 2048 data values
+	 */
+	private static final int[] CHECKSUM_TABLE = new int[ 2048 ];
+
+	/**
+	 * Error pattern lookup table for each of the 16 syndrome values
+	 */
+	private static final int[] ERROR_PATTERNS = new int[ 16 ];
+
+	static
+	{
+		for( int data = 0; data < 2048; data++ )
+		{
+			for( int i = 0; i < 11; i++ )
+			{
+				if( ( data & ( 0x400 >>> i ) ) != 0 )
+				{
+					CHECKSUM_TABLE[ data ] ^= CHECKSUMS[ i ];
+				}
+			}
+		}
+
+		for( int syndrome = 1; syndrome < 16; syndrome++ )
+		{
+			ERROR_PATTERNS[ syndrome ] = 0x4000 >>> SYNDROME_ERROR_INDEX[ syndrome ];
+		}
+	}
+
 	/**
 	 * Performs error detection and correction of any single-bit errors.
 	 * 
@@ -35,102 +71,59 @@ public class Hamming15
 	 * 
 	 * @return - 0 = no errors 
 	 * 			 1 = a single-bit error was corrected
-	 * 			 2 = two or more errors detected - no corrections made
 	 */
 	public static int checkAndCorrect( BinaryFrame frame, int startIndex )
 	{
-		int syndrome = getSyndrome( frame, startIndex );
+		int original = frame.getInt( startIndex, startIndex + 14 );
+		int corrected = correct( original );
 
-		switch( syndrome )
+		if( corrected != original )
 		{
-			case 0:
-				return 0;
-			case 1:
-				frame.flip( startIndex + 14 ); //Parity 1
-				return 1;
-			case 2:
-				frame.flip( startIndex + 13 ); //Parity 2
-				return 1;
-			case 3:
-				frame.flip( startIndex + 10 ); //Data 1
-				return 1;
-			case 4:
-				frame.flip( startIndex + 12 ); //Parity 4
-				return 1;
-			case 5:
-				frame.flip( startIndex + 9 ); //Data 2
-				return 1;
-			case 6:
-				frame.flip( startIndex + 8 ); //Data 3
-				return 1;
-			case 7:
-				frame.flip( startIndex + 7 ); //Data 4
-				return 1;
-			case 8:
-				frame.flip( startIndex + 11 ); //Parity 8
-				return 1;
-			case 9:
-				frame.flip( startIndex + 6 ); //Data 5
-				return 1;
-			case 10:
-				frame.flip( startIndex + 5 ); //Data 6
-				return 1;
-			case 11:
-				frame.flip( startIndex + 4 ); //Data 7
-				return 1;
-			case 12:
-				frame.flip( startIndex + 3 ); //Data 8
-				return 1;
-			case 13:
-				frame.flip( startIndex + 2 ); //Data 9
-				return 1;
-			case 14:
-				frame.flip( startIndex + 1 ); //Data 10
-				return 1;
-			case 15:
-				frame.flip( startIndex ); //Data 11
-				return 1;
+			frame.load( startIndex, 15, corrected );
+			return 1;
 		}
 
-		/* We'll never get to here */
-		return 2;
+		return 0;
 	}
 
 	/**
-	 * Calculates the checksum (Parity 8,4,2,1) for data (11 <> 1 ) bits.
-	 * @param frame - frame containing hamming(15) protected word
-	 * @param startIndex - start bit index of the hamming protected word
-	 * @return parity value, 0 - 15
+	 * Performs error detection and correction of any single-bit errors
+	 * against a packed frame.
+	 * 
+	 * @param frame - packed frame containing a hamming(15,11,4) protected field
+	 * 
+	 * @param startIndex - offset to the first bit of the field
+	 * 
+	 * @return - 0 = no errors 
+	 * 			 1 = a single-bit error was corrected
 	 */
-	private static int calculateChecksum( BinaryFrame frame, int startIndex )
+	public static int checkAndCorrect( PackedFrame frame, int startIndex )
 	{
-		int calculated = 0; //Starting value
+		int original = frame.getInt( startIndex, startIndex + 14 );
+		int corrected = correct( original );
 
-		/* Iterate the set bits and XOR running checksum with lookup value */
-		for (int i = frame.nextSetBit( startIndex ); 
-				 i >= startIndex && i < startIndex + 11; 
-				 i = frame.nextSetBit( i+1 ) ) 
+		if( corrected != original )
 		{
-			calculated ^= CHECKSUMS[ i - startIndex ];
+			frame.load( startIndex, 15, corrected );
+			return 1;
 		}
-		
-		return calculated;
+
+		return 0;
 	}
 
 	/**
-	 * Calculates the syndrome - xor of the calculated checksum and the actual
-	 * checksum.
+	 * Performs error detection and correction of any single-bit errors on a
+	 * 15-bit codeword value, where data bit 11 is located at bit 14 and
+	 * parity bit 1 is located at bit 0.
+	 * 
+	 * @param codeword - hamming(15,11,4) protected value
 	 * 
-	 * @param frame - binary frame containing a hamming(15,11,4) protected word
-	 * @param startIndex - of bit 0 of the hamming protected word
-	 * @return - 0 (no errors) or 1 (single bit error corrected)
+	 * @return - corrected codeword
 	 */
-	private static int getSyndrome( BinaryFrame frame, int startIndex )
+	public static int correct( int codeword )
 	{
-		int calculated = calculateChecksum( frame, startIndex );
-		
-		int checksum = frame.getInt( startIndex + 11, startIndex + 14 );
+		int syndrome = ( codeword & 0xF ) ^ CHECKSUM_TABLE[ ( codeword >>> 4 ) & 0x7FF ];
 
-		return ( checksum ^ calculated );
+		return codeword ^ ERROR_PATTERNS[ syndrome ];
 	}
 }
@@ -0,0 +1,488 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.service;
+
+import jmbe.JMBEAudioLibrary;
+import jmbe.codec.ambe.AMBEAudioCodec;
+import jmbe.codec.imbe.IMBEAudioCodec;
+import jmbe.iface.IAudioCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Multi-channel audio decoder service.  Decodes audio frames for any number of logical channels, each identified by
+ * a channel ID, using a fixed set of worker threads.
+ *
+ * Each channel is pinned to a single worker by its channel ID, so frames for a channel are decoded in submission
+ * order by the same thread and the channel's codec state stays cache-hot.  Each worker owns its channel to codec map
+ * and a pool of reset codecs that are reused for new channels, so that no locks are taken while decoding.  Frames
+ * are handed to workers over lock-free queues.  Each worker accepts a bounded number of queued decode tasks, so that
+ * channels that submit frames faster than the worker can decode them are rejected instead of growing the heap.
+ *
+ * Decoded audio is returned through a completable future or a decode listener.  Both are completed on the worker
+ * thread.  Call release() at the end of each call so that the channel's codec is reset and returned to the pool.
+ */
+public class DecoderService implements AutoCloseable
+{
+    private final static Logger mLog = LoggerFactory.getLogger(DecoderService.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    private final Supplier<IAudioCodec> mCodecSupplier;
+    private final int mFrameLength;
+    private final int mQueueCapacity;
+    private final Worker[] mWorkers;
+    private volatile boolean mRunning = true;
+
+    /**
+     * Constructs a decoder service with one worker thread per available processor
+     *
+     * @param codecName of the codec, IMBE or AMBE.  See JMBEAudioLibrary.supports()
+     * @throws IllegalArgumentException if the codec is not supported
+     */
+    public DecoderService(String codecName)
+    {
+        this(codecName, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a decoder service
+     *
+     * @param codecName of the codec, IMBE or AMBE.  See JMBEAudioLibrary.supports()
+     * @param threadCount number of worker threads
+     * @throws IllegalArgumentException if the codec is not supported or the thread count is less than 1
+     */
+    public DecoderService(String codecName, int threadCount)
+    {
+        this(getCodecSupplier(codecName), getFrameLength(codecName), threadCount);
+    }
+
+    /**
+     * Constructs a decoder service with the default queue capacity
+     *
+     * @param codecSupplier to create a codec for each concurrently active channel
+     * @param frameLength in bytes of each audio frame for the supplied codec
+     * @param threadCount number of worker threads
+     * @throws IllegalArgumentException if the frame length or the thread count is less than 1
+     */
+    public DecoderService(Supplier<IAudioCodec> codecSupplier, int frameLength, int threadCount)
+    {
+        this(codecSupplier, frameLength, threadCount, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a decoder service
+     *
+     * @param codecSupplier to create a codec for each concurrently active channel
+     * @param frameLength in bytes of each audio frame for the supplied codec
+     * @param threadCount number of worker threads
+     * @param queueCapacity maximum number of decode tasks that can be queued for each worker thread
+     * @throws IllegalArgumentException if the frame length, thread count or queue capacity is less than 1
+     */
+    public DecoderService(Supplier<IAudioCodec> codecSupplier, int frameLength, int threadCount, int queueCapacity)
+    {
+        if(frameLength < 1)
+        {
+            throw new IllegalArgumentException("Frame length must be greater than 0");
+        }
+
+        if(threadCount < 1)
+        {
+            throw new IllegalArgumentException("Thread count must be greater than 0");
+        }
+
+        if(queueCapacity < 1)
+        {
+            throw new IllegalArgumentException("Queue capacity must be greater than 0");
+        }
+
+        mCodecSupplier = codecSupplier;
+        mFrameLength = frameLength;
+        mQueueCapacity = queueCapacity;
+        mWorkers = new Worker[threadCount];
+
+        for(int x = 0; x < threadCount; x++)
+        {
+            mWorkers[x] = new Worker("jmbe decoder " + (x + 1));
+        }
+    }
+
+    /**
+     * Creates a codec supplier for the named codec
+     */
+    private static Supplier<IAudioCodec> getCodecSupplier(String codecName)
+    {
+        JMBEAudioLibrary library = new JMBEAudioLibrary();
+
+        if(codecName == null || !library.supports(codecName))
+        {
+            throw new IllegalArgumentException("Unsupported CODEC:" + (codecName != null ? codecName : "(null)"));
+        }
+
+        return () -> library.getAudioConverter(codecName);
+    }
+
+    /**
+     * Frame length of the named codec
+     */
+    private static int getFrameLength(String codecName)
+    {
+        if(IMBEAudioCodec.CODEC_NAME.equals(codecName))
+        {
+            return IMBEAudioCodec.FRAME_LENGTH;
+        }
+        else if(AMBEAudioCodec.CODEC_NAME.equals(codecName))
+        {
+            return AMBEAudioCodec.FRAME_LENGTH;
+        }
+
+        throw new IllegalArgumentException("Unsupported CODEC:" + (codecName != null ? codecName : "(null)"));
+    }
+
+    /**
+     * Number of worker threads
+     */
+    public int getThreadCount()
+    {
+        return mWorkers.length;
+    }
+
+    /**
+     * Length in bytes of each audio frame for the codec used by this service
+     */
+    public int getFrameLength()
+    {
+        return mFrameLength;
+    }
+
+    /**
+     * Submits one or more back-to-back audio frames for decoding
+     *
+     * @param channelId of the channel
+     * @param frames containing one or more audio frames.  The array must not be modified until decoding completes.
+     * @return future that completes with the decoded audio samples
+     * @throws IllegalArgumentException if the frames length is not a multiple of the codec frame length
+     * @throws IllegalStateException if the service is closed or the channel's worker queue is full
+     */
+    public CompletableFuture<float[]> submit(long channelId, byte[] frames)
+    {
+        CompletableFuture<float[]> future = new CompletableFuture<>();
+        submit(channelId, frames, new IDecodeListener()
+        {
+            @Override
+            public void decoded(long channelId, float[] audio)
+            {
+                future.complete(audio);
+            }
+
+            @Override
+            public void failed(long channelId, Exception exception)
+            {
+                future.completeExceptionally(exception);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Submits one or more back-to-back audio frames for decoding
+     *
+     * @param channelId of the channel
+     * @param frames containing one or more audio frames.  The array must not be modified until decoding completes.
+     * @param listener to receive the decoded audio samples
+     * @throws IllegalArgumentException if the frames length is not a multiple of the codec frame length
+     * @throws IllegalStateException if the service is closed or the channel's worker queue is full
+     */
+    public void submit(long channelId, byte[] frames, IDecodeListener listener)
+    {
+        if(frames.length == 0 || frames.length % mFrameLength != 0)
+        {
+            throw new IllegalArgumentException("Frames length [" + frames.length +
+                "] must be a multiple of the frame length [" + mFrameLength + "]");
+        }
+
+        getWorker(channelId).enqueue(new Task(Task.DECODE, channelId, frames, listener));
+    }
+
+    /**
+     * Resets the channel's codec for a new call.  Frames submitted before the reset are decoded first.
+     *
+     * @param channelId of the channel
+     * @throws IllegalStateException if the service is closed
+     */
+    public void reset(long channelId)
+    {
+        getWorker(channelId).enqueue(new Task(Task.RESET, channelId, null, null));
+    }
+
+    /**
+     * Releases the channel at the end of a call.  The channel's codec is reset and returned to the pool for reuse by
+     * another channel.  Frames submitted before the release are decoded first.
+     *
+     * @param channelId of the channel
+     * @throws IllegalStateException if the service is closed
+     */
+    public void release(long channelId)
+    {
+        getWorker(channelId).enqueue(new Task(Task.RELEASE, channelId, null, null));
+    }
+
+    /**
+     * Stops the worker threads after any queued frames are decoded.  Frames submitted while the service is closing
+     * may not be decoded, in which case their listeners are notified of the failure.
+     */
+    @Override
+    public void close()
+    {
+        mRunning = false;
+
+        for(Worker worker : mWorkers)
+        {
+            LockSupport.unpark(worker.mThread);
+        }
+
+        for(Worker worker : mWorkers)
+        {
+            try
+            {
+                worker.mThread.join();
+            }
+            catch(InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            Task task;
+
+            while((task = worker.mQueue.poll()) != null)
+            {
+                task.fail(new IllegalStateException("Decoder service is closed"));
+            }
+        }
+    }
+
+    /**
+     * Worker that owns the channel.  Channel IDs are mixed so that sequential IDs spread evenly across workers.
+     */
+    private Worker getWorker(long channelId)
+    {
+        if(!mRunning)
+        {
+            throw new IllegalStateException("Decoder service is closed");
+        }
+
+        long hash = channelId * 0x9E3779B97F4A7C15L;
+        int index = (int)(((hash >>> 32) * mWorkers.length) >>> 32);
+        return mWorkers[index];
+    }
+
+    /**
+     * Decode, reset or release task for a channel
+     */
+    private static class Task
+    {
+        private static final int DECODE = 0;
+        private static final int RESET = 1;
+        private static final int RELEASE = 2;
+
+        private final int mType;
+        private final long mChannelId;
+        private final byte[] mFrames;
+        private final IDecodeListener mListener;
+
+        private Task(int type, long channelId, byte[] frames, IDecodeListener listener)
+        {
+            mType = type;
+            mChannelId = channelId;
+            mFrames = frames;
+            mListener = listener;
+        }
+
+        private void fail(Exception exception)
+        {
+            if(mListener != null)
+            {
+                mListener.failed(mChannelId, exception);
+            }
+        }
+    }
+
+    /**
+     * Worker thread.  The channel map and codec pool are only accessed by the worker thread.
+     */
+    private class Worker implements Runnable
+    {
+        private final ConcurrentLinkedQueue<Task> mQueue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger mQueuedDecodes = new AtomicInteger();
+        private final Map<Long,IAudioCodec> mChannels = new HashMap<>();
+        private final Deque<IAudioCodec> mCodecPool = new ArrayDeque<>();
+        private final Thread mThread;
+        private volatile boolean mParked;
+
+        private Worker(String name)
+        {
+            mThread = new Thread(this, name);
+            mThread.setDaemon(true);
+            mThread.start();
+        }
+
+        /**
+         * Adds the task to the queue and wakes the worker thread if it is idle.  If the service closed while the task
+         * was being added, the worker and close() may have already drained the queue, so the task is removed and
+         * failed here unless the worker or close() has already taken it.  Reset and release tasks are always
+         * accepted, so that channel codecs are returned to the pool.
+         *
+         * @throws IllegalStateException if the task is a decode task and the queue is full
+         */
+        private void enqueue(Task task)
+        {
+            if(task.mType == Task.DECODE && mQueuedDecodes.incrementAndGet() > mQueueCapacity)
+            {
+                mQueuedDecodes.decrementAndGet();
+                throw new IllegalStateException("Decoder queue is full - [" + mQueueCapacity +
+                    "] decode tasks are waiting for worker [" + mThread.getName() + "]");
+            }
+
+            mQueue.offer(task);
+
+            if(!mRunning && mQueue.remove(task))
+            {
+                if(task.mType == Task.DECODE)
+                {
+                    mQueuedDecodes.decrementAndGet();
+                }
+
+                task.fail(new IllegalStateException("Decoder service is closed"));
+                return;
+            }
+
+            if(mParked)
+            {
+                LockSupport.unpark(mThread);
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            while(true)
+            {
+                Task task = mQueue.poll();
+
+                if(task != null)
+                {
+                    if(task.mType == Task.DECODE)
+                    {
+                        mQueuedDecodes.decrementAndGet();
+                    }
+
+                    process(task);
+                }
+                else if(!mRunning)
+                {
+                    return;
+                }
+                else
+                {
+                    mParked = true;
+
+                    if(mQueue.isEmpty() && mRunning)
+                    {
+                        LockSupport.park(this);
+                    }
+
+                    mParked = false;
+                }
+            }
+        }
+
+        private void process(Task task)
+        {
+            switch(task.mType)
+            {
+                case Task.DECODE:
+                    decode(task);
+                    break;
+                case Task.RESET:
+                    IAudioCodec codec = mChannels.get(task.mChannelId);
+
+                    if(codec != null)
+                    {
+                        codec.reset();
+                    }
+                    break;
+                case Task.RELEASE:
+                    IAudioCodec released = mChannels.remove(task.mChannelId);
+
+                    if(released != null)
+                    {
+                        released.reset();
+                        mCodecPool.push(released);
+                    }
+                    break;
+            }
+        }
+
+        private void decode(Task task)
+        {
+            float[] audio;
+
+            try
+            {
+                IAudioCodec codec = mChannels.get(task.mChannelId);
+
+                if(codec == null)
+                {
+                    codec = mCodecPool.isEmpty() ? mCodecSupplier.get() : mCodecPool.pop();
+                    mChannels.put(task.mChannelId, codec);
+                }
+
+                int frameCount = task.mFrames.length / mFrameLength;
+                audio = new float[frameCount * codec.getSamplesPerFrame()];
+                codec.decode(task.mFrames, 0, mFrameLength, frameCount, audio, 0, null);
+            }
+            catch(Exception e)
+            {
+                mLog.error("Error decoding audio for channel [" + task.mChannelId + "]", e);
+                task.fail(e);
+                return;
+            }
+
+            try
+            {
+                task.mListener.decoded(task.mChannelId, audio);
+            }
+            catch(Exception e)
+            {
+                mLog.error("Error delivering decoded audio for channel [" + task.mChannelId + "]", e);
+            }
+        }
+    }
+}
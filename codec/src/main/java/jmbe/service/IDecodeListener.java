@@ -0,0 +1,45 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.service;
+
+/**
+ * Receives decoded audio from the decoder service.  Listener methods are invoked on the decoder worker thread that
+ * owns the channel, so implementations should hand off any lengthy processing.
+ */
+public interface IDecodeListener
+{
+    /**
+     * Decoded audio for a channel.  The audio array is owned by the listener.
+     *
+     * @param channelId of the decoded frame(s)
+     * @param audio samples for the decoded frame(s)
+     */
+    void decoded(long channelId, float[] audio);
+
+    /**
+     * Notification that frame(s) could not be decoded for a channel.  The default implementation ignores the error.
+     *
+     * @param channelId of the frame(s)
+     * @param exception that occurred while decoding
+     */
+    default void failed(long channelId, Exception exception)
+    {
+    }
+}
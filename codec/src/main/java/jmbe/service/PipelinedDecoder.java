@@ -0,0 +1,335 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.service;
+
+import jmbe.JMBEAudioLibrary;
+import jmbe.codec.DecodedFrame;
+import jmbe.codec.IPipelinedAudioCodec;
+import jmbe.iface.BatchDecodeStatus;
+import jmbe.iface.IAudioCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Two stage pipelined decoder for a single audio stream, for example offline transcoding of a long recording where
+ * the frames of one channel cannot otherwise be decoded in parallel.
+ *
+ * The calling thread decodes each frame (deinterleave, error correction and model parameter reconstruction) while
+ * a dedicated synthesis thread synthesizes the audio for the preceding frame.  Decoded frames are handed to the
+ * synthesis thread over a fixed size single producer, single consumer ring of reusable decoded frames, so that no
+ * locks are taken and nothing is allocated while decoding.  Audio is identical to decoding the same frames with the
+ * codec directly.
+ *
+ * Decoding methods return after all of the frames have been synthesized.  An instance decodes a single stream and
+ * must only be used by one thread at a time.  The codec's output settings (e.g. output sample rate) determine the
+ * number of samples per frame and must not be changed while a decoding method is running.  Call close() to stop the
+ * synthesis thread.
+ */
+public class PipelinedDecoder implements AutoCloseable
+{
+    private final static Logger mLog = LoggerFactory.getLogger(PipelinedDecoder.class);
+
+    public static final int DEFAULT_CAPACITY = 8;
+    private static final int SPIN_LIMIT = 1000;
+    private static final int YIELD_LIMIT = 2000;
+
+    private final IPipelinedAudioCodec mCodec;
+    private final int mFrameLength;
+    private final DecodedFrame[] mFrames;
+    private final float[][] mOutputs;
+    private final int[] mOutputOffsets;
+    private final int mMask;
+    private final AtomicLong mProduced = new AtomicLong();
+    private final AtomicLong mConsumed = new AtomicLong();
+    private final Thread mThread;
+    private volatile boolean mRunning = true;
+    private volatile boolean mParked;
+    private volatile Exception mFailure;
+
+    /**
+     * Constructs a pipelined decoder
+     *
+     * @param codecName of the codec, IMBE or AMBE.  See JMBEAudioLibrary.supports()
+     * @throws IllegalArgumentException if the codec is not supported or does not support pipelined decoding
+     */
+    public PipelinedDecoder(String codecName)
+    {
+        this(getCodec(codecName), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a pipelined decoder
+     *
+     * @param codec to decode with.  The codec must not be used elsewhere while in use by this decoder.
+     * @param capacity number of decoded frames that can be queued for the synthesis thread, a power of 2
+     * @throws IllegalArgumentException if the capacity is not a power of 2 greater than 1
+     */
+    public PipelinedDecoder(IPipelinedAudioCodec codec, int capacity)
+    {
+        if(capacity < 2 || Integer.bitCount(capacity) != 1)
+        {
+            throw new IllegalArgumentException("Capacity [" + capacity + "] must be a power of 2 greater than 1");
+        }
+
+        mCodec = codec;
+        mFrameLength = codec.getFrameLength();
+        mFrames = new DecodedFrame[capacity];
+        mOutputs = new float[capacity][];
+        mOutputOffsets = new int[capacity];
+        mMask = capacity - 1;
+
+        for(int x = 0; x < capacity; x++)
+        {
+            mFrames[x] = codec.createDecodedFrame();
+        }
+
+        mThread = new Thread(this::synthesize, "jmbe pipelined synthesizer");
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    /**
+     * Creates the named codec
+     */
+    private static IPipelinedAudioCodec getCodec(String codecName)
+    {
+        JMBEAudioLibrary library = new JMBEAudioLibrary();
+
+        if(codecName == null || !library.supports(codecName))
+        {
+            throw new IllegalArgumentException("Unsupported CODEC:" + (codecName != null ? codecName : "(null)"));
+        }
+
+        IAudioCodec codec = library.getAudioConverter(codecName);
+
+        if(!(codec instanceof IPipelinedAudioCodec))
+        {
+            throw new IllegalArgumentException("CODEC [" + codecName + "] does not support pipelined decoding");
+        }
+
+        return (IPipelinedAudioCodec)codec;
+    }
+
+    /**
+     * Codec used by this decoder
+     */
+    public IPipelinedAudioCodec getCodec()
+    {
+        return mCodec;
+    }
+
+    /**
+     * Length in bytes of each audio frame for the codec used by this decoder
+     */
+    public int getFrameLength()
+    {
+        return mFrameLength;
+    }
+
+    /**
+     * Decodes a sequence of back-to-back audio frames into audio samples that are written contiguously into the out
+     * array, getSamplesPerFrame() samples per frame from the codec.  Frame decoding runs on the calling thread,
+     * overlapped with audio synthesis on the synthesis thread.
+     *
+     * @param frames array containing the audio frames
+     * @param offset to the first byte of the first frame in the frames array
+     * @param frameCount number of frames to decode
+     * @param out array to receive the decoded audio samples
+     * @param outOffset to the first sample position in the out array
+     * @param status to receive the frame type and error count of each frame, or null
+     * @return number of samples written to the out array
+     * @throws IllegalArgumentException if the frames array does not contain frameCount frames from the offset or the
+     * out array is too small
+     * @throws IllegalStateException if the decoder is closed or audio synthesis failed
+     */
+    public int decode(byte[] frames, int offset, int frameCount, float[] out, int outOffset, BatchDecodeStatus status)
+    {
+        if(!mRunning)
+        {
+            throw new IllegalStateException("Pipelined decoder is closed");
+        }
+
+        if(frameCount < 0 || offset < 0 || (long)offset + ((long)frameCount * mFrameLength) > frames.length)
+        {
+            throw new IllegalArgumentException("Frames array length [" + frames.length + "] does not contain [" +
+                frameCount + "] frames of length [" + mFrameLength + "] from offset [" + offset + "]");
+        }
+
+        int samplesPerFrame = mCodec.getSamplesPerFrame();
+        int sampleCount = frameCount * samplesPerFrame;
+
+        if(outOffset < 0 || (long)outOffset + sampleCount > out.length)
+        {
+            throw new IllegalArgumentException("Out array length [" + out.length + "] can't hold [" + sampleCount +
+                "] samples from offset [" + outOffset + "]");
+        }
+
+        if(status != null)
+        {
+            status.reset(frameCount);
+        }
+
+        long produced = mProduced.get();
+
+        try
+        {
+            for(int x = 0; x < frameCount; x++)
+            {
+                //Wait for the synthesis thread to release the oldest decoded frame when the ring is full
+                for(int idle = 0; produced - mConsumed.get() > mMask; idle++)
+                {
+                    idle(idle);
+                }
+
+                int index = (int)(produced & mMask);
+                DecodedFrame decoded = mFrames[index];
+                mCodec.decode(frames, offset + (x * mFrameLength), decoded);
+                mOutputs[index] = out;
+                mOutputOffsets[index] = outOffset + (x * samplesPerFrame);
+
+                if(status != null)
+                {
+                    status.set(x, decoded.getFrameType(), decoded.getErrorCount());
+                }
+
+                mProduced.set(++produced);
+
+                if(mParked)
+                {
+                    LockSupport.unpark(mThread);
+                }
+            }
+        }
+        finally
+        {
+            //Wait for the synthesis thread to finish the frames decoded so far
+            for(int idle = 0; mConsumed.get() < produced; idle++)
+            {
+                idle(idle);
+            }
+        }
+
+        Exception failure = mFailure;
+
+        if(failure != null)
+        {
+            mFailure = null;
+            throw new IllegalStateException("Error synthesizing audio", failure);
+        }
+
+        return sampleCount;
+    }
+
+    /**
+     * Resets the codec for a new call
+     */
+    public void reset()
+    {
+        mCodec.reset();
+    }
+
+    /**
+     * Stops the synthesis thread
+     */
+    @Override
+    public void close()
+    {
+        mRunning = false;
+        LockSupport.unpark(mThread);
+
+        try
+        {
+            mThread.join();
+        }
+        catch(InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Busy waits briefly, since a frame is synthesized in tens of microseconds, and then yields the processor
+     */
+    private static void idle(int count)
+    {
+        if(count >= SPIN_LIMIT)
+        {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Synthesis thread.  Synthesizes each decoded frame in order and releases it to the decoding thread.  Parks when
+     * no frames have been decoded for a while, until the decoding thread publishes the next frame.
+     */
+    private void synthesize()
+    {
+        long consumed = 0;
+        int idle = 0;
+
+        while(true)
+        {
+            if(consumed < mProduced.get())
+            {
+                int index = (int)(consumed & mMask);
+
+                try
+                {
+                    mCodec.synthesize(mFrames[index], mOutputs[index], mOutputOffsets[index]);
+                }
+                catch(Exception e)
+                {
+                    mLog.error("Error synthesizing audio", e);
+
+                    if(mFailure == null)
+                    {
+                        mFailure = e;
+                    }
+                }
+
+                mOutputs[index] = null;
+                mConsumed.lazySet(++consumed);
+                idle = 0;
+            }
+            else if(!mRunning)
+            {
+                return;
+            }
+            else if(idle < YIELD_LIMIT)
+            {
+                idle(idle++);
+            }
+            else
+            {
+                mParked = true;
+
+                if(consumed == mProduced.get() && mRunning)
+                {
+                    LockSupport.park(this);
+                }
+
+                mParked = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * ******************************************************************************
+ * Copyright (C) 2015-2019 Dennis Sheirer
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ * *****************************************************************************
+ */
+
+package jmbe.codec;
+
+/**
+ * Data parallel kernels of the MBE synthesizer: windowed harmonic accumulation, unvoiced band energy and DFT bin
+ * scaling, unvoiced weighted overlap-add and the final mix, scale and clip of the voiced and unvoiced components.
+ *
+ * This is the Java 17 version of this class from the multi-release codec jar.  The kernels use the incubating Vector
+ * API when the jdk.incubator.vector module is added to the runtime with the command line option
+ * '--add-modules jdk.incubator.vector' and fall back to the scalar kernels otherwise.  Set system property
+ * 'jmbe.vector.disabled=true' to force the scalar kernels.
+ */
+public final class SynthesisKernels
+{
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final boolean VECTORIZED = isVectorApiAvailable();
+
+    /**
+     * Static kernels only
+     */
+    private SynthesisKernels()
+    {
+    }
+
+    /**
+     * Indicates if the Vector API module is present in the runtime, is not disabled and provides a vector shape with
+     * more than one lane for floats.
+     */
+    private static boolean isVectorApiAvailable()
+    {
+        if(Boolean.getBoolean("jmbe.vector.disabled") || ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty())
+        {
+            return false;
+        }
+
+        try
+        {
+            return VectorSynthesisKernels.isSupported();
+        }
+        catch(LinkageError e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Indicates if the kernels use the Vector API
+     */
+    public static boolean isVectorized()
+    {
+        return VECTORIZED;
+    }
+
+    /**
+     * Adds a constant frequency harmonic that is weighted by the synthesis window (Alg #131, #132 and #133).
+     * @see HarmonicOscillatorBank#addWindowedHarmonic(float[], int, float, float, float, float, float, int)
+     */
+    public static void addWindowedHarmonic(float[] samples, int sampleCount, float amplitude, float phase,
+                                           float frequency, float rotationInphase, float rotationQuadrature,
+                                           int windowOffset)
+    {
+        if(VECTORIZED)
+        {
+            VectorSynthesisKernels.addWindowedHarmonic(samples, sampleCount, amplitude, phase, frequency,
+                rotationInphase, rotationQuadrature, windowOffset);
+        }
+        else
+        {
+            HarmonicOscillatorBank.addWindowedHarmonic(samples, sampleCount, amplitude, phase, frequency,
+                rotationInphase, rotationQuadrature, windowOffset);
+        }
+    }
+
+    /**
+     * Sum of the squared values in the index range (Alg #120 band energy)
+     *
+     * @param values to sum
+     * @param from index, inclusive
+     * @param to index, exclusive
+     * @return sum of squares
+     */
+    public static float sumOfSquares(float[] values, int from, int to)
+    {
+        if(VECTORIZED)
+        {
+            return VectorSynthesisKernels.sumOfSquares(values, from, to);
+        }
+
+        return ScalarSynthesisKernels.sumOfSquares(values, from, to);
+    }
+
+    /**
+     * Scales each of the interleaved real and imaginary DFT bin values by the scalor of its frequency band (Alg #119,
+     * #120 and #124)
+     *
+     * @param bins of interleaved real and imaginary DFT values
+     * @param bandScalors indexed by frequency band
+     * @param interleavedBinBands frequency band for each of the DFT values.  @see FundamentalFrequencyTables
+     */
+    public static void scaleBins(float[] bins, float[] bandScalors, int[] interleavedBinBands)
+    {
+        if(VECTORIZED)
+        {
+            VectorSynthesisKernels.scaleBins(bins, bandScalors, interleavedBinBands);
+        }
+        else
+        {
+            ScalarSynthesisKernels.scaleBins(bins, bandScalors, interleavedBinBands);
+        }
+    }
+
+    /**
+     * Weighted overlap-add of the previous and current inverse DFT results to form the 160 unvoiced samples
+     * (Alg #126)
+     *
+     * @param previousUw inverse DFT results of the previous frame
+     * @param currentUw inverse DFT results of the current frame
+     * @param unvoiced array to receive the 160 unvoiced samples
+     */
+    public static void overlapAdd(float[] previousUw, float[] currentUw, float[] unvoiced)
+    {
+        if(VECTORIZED)
+        {
+            VectorSynthesisKernels.overlapAdd(previousUw, currentUw, unvoiced);
+        }
+        else
+        {
+            ScalarSynthesisKernels.overlapAdd(previousUw, currentUw, unvoiced);
+        }
+    }
+
+    /**
+     * Sums the voiced and unvoiced samples, applies the gain and clips to -limit <> limit (Alg #142)
+     *
+     * @param voiced samples
+     * @param unvoiced samples
+     * @param gain applied to the sum
+     * @param limit for clipping
+     * @param output array to receive the samples
+     * @param offset into the output array for the first sample
+     * @param count of samples
+     */
+    public static void mix(float[] voiced, float[] unvoiced, float gain, float limit, float[] output, int offset,
+                           int count)
+    {
+        if(VECTORIZED)
+        {
+            VectorSynthesisKernels.mix(voiced, unvoiced, gain, limit, output, offset, count);
+        }
+        else
+        {
+            ScalarSynthesisKernels.mix(voiced, unvoiced, gain, limit, output, offset, count);
+        }
+    }
+}
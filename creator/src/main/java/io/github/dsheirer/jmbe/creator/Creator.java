@@ -53,6 +53,7 @@ public class Creator
     private final static Logger mLog = LoggerFactory.getLogger(GitHub.class);
 
     private final static String GITHUB_JMBE_RELEASES_URL = "https://api.github.com/repos/dsheirer/jmbe/releases";
+    private final static String FORMAT_CONVERSION_PROVIDER_SERVICE = "javax.sound.sampled.spi.FormatConversionProvider";
 
     /**
      * Exit code to indicate that the process completed successfully
@@ -190,6 +191,26 @@ public class Creator
         }
     }
 
+    /**
+     * Discovers the Java Sound format conversion provider service file from the source code tree and copies it to the
+     * META-INF/services directory of the output directory, so that the library registers the JMBE audio converter
+     *
+     * @param downloadDirectory where source code exists
+     * @throws IOException if there is an error
+     */
+    public static void copyServiceFiles(Path downloadDirectory) throws IOException
+    {
+        Path service = getFile(downloadDirectory, FORMAT_CONVERSION_PROVIDER_SERVICE);
+
+        if(service != null)
+        {
+            Path servicesDirectory = getOutputDirectory(downloadDirectory).resolve("META-INF").resolve("services");
+            Files.createDirectories(servicesDirectory);
+            Files.copy(service, servicesDirectory.resolve(FORMAT_CONVERSION_PROVIDER_SERVICE),
+                StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     /**
      * Recursively finds the specified filename in the specified directory
      *
@@ -294,12 +315,14 @@ public class Creator
      * Indicates if the zip entry is a compilable file for the codec or interface java classes
      *
      * @param zipEntry to inspect
-     * @return true if the file is part of the interfaces or codec package and is a java file.
+     * @return true if the file is part of the interfaces or codec package and is a java file, excluding the Java 17
+     * versions of the multi-release codec classes.
      */
     public static boolean isCompilable(ZipEntry zipEntry)
     {
         String name = zipEntry.getName();
-        return name.endsWith(".java") && (name.contains("iface") || name.contains("codec"));
+        return name.endsWith(".java") && (name.contains("iface") || name.contains("codec")) &&
+            !name.contains("/java17/");
     }
 
     /**
@@ -444,6 +467,8 @@ public class Creator
                     createJarMetadata(getOutputDirectory(temporaryDirectory), latest.getVersion().toString());
                     System.out.println("Creating: JAR License File");
                     copyLicenseFile(temporaryDirectory);
+                    System.out.println("Creating: JAR Service Files");
+                    copyServiceFiles(temporaryDirectory);
                     Path sourceFiles = getOutputDirectory(temporaryDirectory);
                     Path zip = temporaryDirectory.resolve(getJarName(latest.getVersion().toString()));
                     System.out.println("Creating: JMBE Library [" + library.toString() + "]");